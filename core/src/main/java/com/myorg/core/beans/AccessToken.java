@@ -0,0 +1,58 @@
+package com.myorg.core.beans;
+
+/**
+ * Immutable OAuth access token along with the time window it is valid for
+ */
+public class AccessToken {
+
+    private final String value;
+
+    private final long issuedAt;
+
+    private final long expiresAt;
+
+    /**
+     * @param value     Access token
+     * @param issuedAt  Time in milliseconds since epoch the token was issued at
+     * @param lifetime  Time in milliseconds the token is valid for
+     */
+    public AccessToken(String value, long issuedAt, long lifetime) {
+        this.value = value;
+        this.issuedAt = issuedAt;
+        this.expiresAt = issuedAt + lifetime;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expiresAt;
+    }
+
+    /**
+     * Time at which token should be refreshed
+     * @param refreshFraction   Fraction of token lifetime after which token is refreshed
+     * @return                  Time in milliseconds since epoch
+     */
+    public long getRefreshAt(double refreshFraction) {
+        return issuedAt + (long) ((expiresAt - issuedAt) * refreshFraction);
+    }
+
+    @Override
+    public String toString() {
+        /*Token value is never logged*/
+        return "AccessToken{" +
+                "issuedAt=" + issuedAt +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -0,0 +1,66 @@
+package com.myorg.core.beans;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable time budget of a form submission, measured on the monotonic clock. Created once per request
+ * and shared by all its service workers, so that every phase of every outbound call only waits for the
+ * time which is left of the budget instead of its own full timeout
+ */
+public final class RequestDeadline {
+
+    private static final RequestDeadline NONE = new RequestDeadline(Long.MAX_VALUE);
+
+    private final long startedAt;
+
+    private final long budget;
+
+    private RequestDeadline(long budget) {
+        this.startedAt = System.nanoTime();
+        this.budget = budget;
+    }
+
+    /**
+     * @param budget    Time in milliseconds from now the request must be answered in
+     * @return          Request deadline
+     */
+    public static RequestDeadline after(long budget) {
+        return new RequestDeadline(Math.max(0, budget));
+    }
+
+    /**
+     * @return  Deadline which never expires, used for background work which no request is waiting for
+     */
+    public static RequestDeadline none() {
+        return NONE;
+    }
+
+    /**
+     * @return  Time in milliseconds left until the deadline, 0 once it has passed
+     */
+    public long remainingMillis() {
+        if (budget == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, budget - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    public boolean isExpired() {
+        return remainingMillis() == 0;
+    }
+
+    /**
+     * @param timeout   Timeout in milliseconds of a single phase
+     * @return          Supplied timeout, or time left until the deadline if it is shorter
+     */
+    public long cap(long timeout) {
+        return Math.min(timeout, remainingMillis());
+    }
+
+    @Override
+    public String toString() {
+        return "RequestDeadline{" +
+                "remainingMillis=" + remainingMillis() +
+                '}';
+    }
+}
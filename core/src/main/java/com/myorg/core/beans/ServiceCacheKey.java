@@ -0,0 +1,71 @@
+package com.myorg.core.beans;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Immutable cache key which identifies service data by 128 bit hash of the full id and the
+ * service request type. Ids like recaptcha tokens are hundreds of characters long, hashing them keeps
+ * keys small and free of collisions on shared prefixes, hash code is computed once.
+ */
+public final class ServiceCacheKey {
+
+    private final long mostSignificantBits;
+
+    private final long leastSignificantBits;
+
+    private final ServiceRequestType serviceRequestType;
+
+    private final int hashCode;
+
+    public ServiceCacheKey(String id, ServiceRequestType serviceRequestType) {
+        ByteBuffer hash = ByteBuffer.wrap(Hashing.murmur3_128().hashString(id != null ? id : "", StandardCharsets.UTF_8).asBytes());
+        this.mostSignificantBits = hash.getLong();
+        this.leastSignificantBits = hash.getLong();
+        this.serviceRequestType = serviceRequestType;
+        int result = Long.hashCode(mostSignificantBits ^ leastSignificantBits);
+        this.hashCode = 31 * result + (serviceRequestType != null ? serviceRequestType.ordinal() : -1);
+    }
+
+    public long getMostSignificantBits() {
+        return mostSignificantBits;
+    }
+
+    public long getLeastSignificantBits() {
+        return leastSignificantBits;
+    }
+
+    public ServiceRequestType getServiceRequestType() {
+        return serviceRequestType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ServiceCacheKey that = (ServiceCacheKey) o;
+
+        return hashCode == that.hashCode
+                && mostSignificantBits == that.mostSignificantBits
+                && leastSignificantBits == that.leastSignificantBits
+                && serviceRequestType == that.serviceRequestType;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        /*Id is not part of the key, so that e-mail addresses and tokens are never logged*/
+        return "ServiceCacheKey{" +
+                "serviceRequestType=" + serviceRequestType +
+                ", hash=" + Long.toHexString(mostSignificantBits) + Long.toHexString(leastSignificantBits) +
+                '}';
+    }
+}
@@ -7,7 +7,9 @@ public enum ServiceRequestType {
 
     ZEROBOUNCE("Zerobounce", "Request for validating email"),
 
-    AUTH_TOKEN("Auth token", "Request for generating authentication token");
+    AUTH_TOKEN("Auth token", "Request for generating authentication token"),
+
+    LEAD_SUBMISSION("Lead submission", "Request for submitting lead");
 
 
     private final String name;
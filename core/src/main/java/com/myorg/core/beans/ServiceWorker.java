@@ -1,30 +1,60 @@
 package com.myorg.core.beans;
 
-import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.impl.client.HttpRequestFutureTask;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 
 public class ServiceWorker {
 
     private final String id;
 
+    private final ServiceCacheKey cacheKey;
+
     private ServiceRequestType serviceRequestType;
 
     private HttpUriRequest requestPayload;
 
-    private HttpRequestFutureTask<String> serviceTask;
+    private CompletableFuture<String> serviceTask;
+
+    /*Completed with outcome of service task, shared with service workers attached to this load*/
+    private CompletableFuture<String> sharedTask;
+
+    /*Time budget of the request this service worker belongs to*/
+    private RequestDeadline deadline = RequestDeadline.none();
+
+    /*Max time in milliseconds a single attempt of the request waits for data, capped by the deadline*/
+    private long timeout = Long.MAX_VALUE;
 
     public ServiceWorker(String id, ServiceRequestType serviceRequestType, HttpUriRequest requestPayload) {
-        this.id = StringUtils.abbreviate(id, 60);
+        this.id = id;
+        this.cacheKey = new ServiceCacheKey(id, serviceRequestType);
         this.serviceRequestType = serviceRequestType;
         this.requestPayload = requestPayload;
     }
 
-    public ServiceWorker(String id) {
-        this.id = StringUtils.abbreviate(id, 60);
+    /**
+     * Creates service worker to read cached data of given service. Since it has no request payload,
+     * it is never dispatched
+     * @param id                    Service worker id
+     * @param serviceRequestType    Service the data belongs to
+     */
+    public ServiceWorker(String id, ServiceRequestType serviceRequestType) {
+        this.id = id;
+        this.cacheKey = new ServiceCacheKey(id, serviceRequestType);
+    }
+
+    /**
+     * Creates service worker attached to a load in flight. Since it has no request payload, it is never dispatched.
+     * Its service task depends on the load so that cancelling this worker does not cancel the shared load
+     * @param serviceWorker Service worker which dispatched the load
+     * @param inFlightTask  Load in flight
+     */
+    public ServiceWorker(ServiceWorker serviceWorker, CompletableFuture<String> inFlightTask) {
+        this.id = serviceWorker.id;
+        this.cacheKey = serviceWorker.cacheKey;
+        this.serviceTask = inFlightTask.thenApply(Function.identity());
     }
 
     public ServiceRequestType getServiceRequest() {
@@ -35,7 +65,7 @@ public class ServiceWorker {
         return requestPayload;
     }
 
-    public HttpRequestFutureTask<String> getServiceTask() {
+    public CompletableFuture<String> getServiceTask() {
         return serviceTask;
     }
 
@@ -43,8 +73,63 @@ public class ServiceWorker {
         return id;
     }
 
-    public void setServiceTask(HttpRequestFutureTask<String> serviceTask) {
+    public ServiceCacheKey getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setServiceTask(CompletableFuture<String> serviceTask) {
         this.serviceTask = serviceTask;
+        if (sharedTask != null) {
+            serviceTask.whenComplete((response, e) -> {
+                if (e != null) {
+                    sharedTask.completeExceptionally(e);
+                } else {
+                    sharedTask.complete(response);
+                }
+            });
+        }
+    }
+
+    public CompletableFuture<String> getSharedTask() {
+        return sharedTask;
+    }
+
+    public void setSharedTask(CompletableFuture<String> sharedTask) {
+        this.sharedTask = sharedTask;
+    }
+
+    public RequestDeadline getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(RequestDeadline deadline) {
+        this.deadline = deadline != null ? deadline : RequestDeadline.none();
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @param timeout   Socket timeout in milliseconds of the service the request is sent to
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout > 0 ? timeout : Long.MAX_VALUE;
+    }
+
+    /**
+     * Cancels service task and aborts the underlying HTTP request if it was dispatched
+     */
+    public void cancel() {
+        if (serviceTask != null) {
+            serviceTask.cancel(true);
+        } else if (sharedTask != null) {
+            /*Never dispatched, release attached service workers*/
+            sharedTask.cancel(false);
+        }
+        if (requestPayload != null) {
+            requestPayload.abort();
+        }
     }
 
     @Override
@@ -53,24 +138,18 @@ public class ServiceWorker {
 
         if (o == null || getClass() != o.getClass()) return false;
 
-        ServiceWorker that = (ServiceWorker) o;
-
-        return new EqualsBuilder()
-                .append(id, that.id)
-                .isEquals();
+        return cacheKey.equals(((ServiceWorker) o).cacheKey);
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(17, 37)
-                .append(id)
-                .toHashCode();
+        return cacheKey.hashCode();
     }
 
     @Override
     public String toString() {
         return "ServiceWorker{" +
-                "id='" + id + '\'' +
+                "cacheKey=" + cacheKey +
                 '}';
     }
 }
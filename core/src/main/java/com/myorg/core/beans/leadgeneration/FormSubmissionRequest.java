@@ -1,9 +1,9 @@
 package com.myorg.core.beans.leadgeneration;
 
-import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
 import com.myorg.core.constants.FormConstants;
 import com.myorg.core.constants.GenericConstants;
+import com.myorg.core.utils.JsonUtils;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -59,6 +59,24 @@ public class FormSubmissionRequest {
         this.company = this.firstName + GenericConstants.SPACE + this.lastName + GenericConstants.SPACE + company;
     }
 
+    /**
+     * Creates request from its fields as read from json
+     */
+    FormSubmissionRequest(String firstName, String lastName, String email, String description, String phone, String street,
+                          String city, String state, String postalCode, String leadSource, String company) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.description = description;
+        this.phone = phone;
+        this.street = street;
+        this.city = city;
+        this.state = state;
+        this.postalCode = postalCode;
+        this.leadSource = leadSource;
+        this.company = company;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -104,7 +122,6 @@ public class FormSubmissionRequest {
     }
 
     public String serialize() {
-        Gson gson = new Gson();
-        return gson.toJson(this);
+        return JsonUtils.GSON.toJson(this, FormSubmissionRequest.class);
     }
 }
@@ -0,0 +1,115 @@
+package com.myorg.core.beans.leadgeneration;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@code FormSubmissionRequest} as lead generation request json without reflection. Field names and
+ * order match the {@code SerializedName} annotations of the request, null fields are omitted unless Gson serializes nulls
+ */
+public class FormSubmissionRequestAdapter extends TypeAdapter<FormSubmissionRequest> {
+
+    private static final String FIRST_NAME = "FirstName";
+
+    private static final String LAST_NAME = "LastName";
+
+    private static final String EMAIL = "Email";
+
+    private static final String DESCRIPTION = "Description";
+
+    private static final String PHONE = "Phone";
+
+    private static final String STREET = "Street";
+
+    private static final String CITY = "City";
+
+    private static final String STATE = "State";
+
+    private static final String POSTAL_CODE = "PostalCode";
+
+    private static final String LEAD_SOURCE = "LeadSource";
+
+    private static final String COMPANY = "Company";
+
+    @Override
+    public void write(JsonWriter out, FormSubmissionRequest value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name(FIRST_NAME).value(value.getFirstName());
+        out.name(LAST_NAME).value(value.getLastName());
+        out.name(EMAIL).value(value.getEmail());
+        out.name(DESCRIPTION).value(value.getDescription());
+        out.name(PHONE).value(value.getPhone());
+        out.name(STREET).value(value.getStreet());
+        out.name(CITY).value(value.getCity());
+        out.name(STATE).value(value.getState());
+        out.name(POSTAL_CODE).value(value.getPostalCode());
+        out.name(LEAD_SOURCE).value(value.getLeadSource());
+        out.name(COMPANY).value(value.getCompany());
+        out.endObject();
+    }
+
+    /**
+     * Reads request as written, e.g. a lead payload of the outbox. Company is read as it was composed when the
+     * request was created from the form data, unknown fields are skipped
+     */
+    @Override
+    public FormSubmissionRequest read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String firstName = null;
+        String lastName = null;
+        String email = null;
+        String description = null;
+        String phone = null;
+        String street = null;
+        String city = null;
+        String state = null;
+        String postalCode = null;
+        String leadSource = null;
+        String company = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else if (FIRST_NAME.equals(name)) {
+                firstName = in.nextString();
+            } else if (LAST_NAME.equals(name)) {
+                lastName = in.nextString();
+            } else if (EMAIL.equals(name)) {
+                email = in.nextString();
+            } else if (DESCRIPTION.equals(name)) {
+                description = in.nextString();
+            } else if (PHONE.equals(name)) {
+                phone = in.nextString();
+            } else if (STREET.equals(name)) {
+                street = in.nextString();
+            } else if (CITY.equals(name)) {
+                city = in.nextString();
+            } else if (STATE.equals(name)) {
+                state = in.nextString();
+            } else if (POSTAL_CODE.equals(name)) {
+                postalCode = in.nextString();
+            } else if (LEAD_SOURCE.equals(name)) {
+                leadSource = in.nextString();
+            } else if (COMPANY.equals(name)) {
+                company = in.nextString();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return new FormSubmissionRequest(firstName, lastName, email, description, phone, street, city, state, postalCode,
+                leadSource, company);
+    }
+}
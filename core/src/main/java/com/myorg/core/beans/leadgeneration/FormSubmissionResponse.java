@@ -1,8 +1,9 @@
 package com.myorg.core.beans.leadgeneration;
 
-import com.google.gson.Gson;
+import com.myorg.core.utils.JsonUtils;
 import org.apache.http.HttpStatus;
 
+import java.io.Writer;
 import java.util.Collections;
 import java.util.List;
 
@@ -16,6 +17,9 @@ public class FormSubmissionResponse {
 
     private List<Error> errors;
 
+    /*Id of a lead accepted by the outbox, absent if lead was submitted synchronously*/
+    private String submissionId;
+
     public FormSubmissionResponse(){}
 
     public FormSubmissionResponse(boolean success, String errorCode, String errorMessage, List<String> errorFields){
@@ -51,6 +55,14 @@ public class FormSubmissionResponse {
         this.errors = getImmutableList(errors);
     }
 
+    public String getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(String submissionId) {
+        this.submissionId = submissionId;
+    }
+
     public int getStatusCode() {
         return statusCode;
     }
@@ -109,8 +121,15 @@ public class FormSubmissionResponse {
     }
 
     public String serialize() {
-        Gson gson = new Gson();
-        return gson.toJson(this);
+        return JsonUtils.GSON.toJson(this, FormSubmissionResponse.class);
+    }
+
+    /**
+     * Writes json of this response to supplied writer without creating an intermediate string
+     * @param writer    Writer, e.g. of the servlet response
+     */
+    public void writeTo(Writer writer) {
+        JsonUtils.GSON.toJson(this, FormSubmissionResponse.class, writer);
     }
 
 }
@@ -0,0 +1,134 @@
+package com.myorg.core.beans.leadgeneration;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes {@code FormSubmissionResponse} without reflection. Transient id and status code are neither
+ * written nor read, same as with reflective serialization
+ */
+public class FormSubmissionResponseAdapter extends TypeAdapter<FormSubmissionResponse> {
+
+    private static final String SUCCESS = "success";
+
+    private static final String ERRORS = "errors";
+
+    private static final String SUBMISSION_ID = "submissionId";
+
+    private static final String MESSAGE = "message";
+
+    private static final String ERROR_CODE = "errorCode";
+
+    private static final String FIELDS = "fields";
+
+    @Override
+    public void write(JsonWriter out, FormSubmissionResponse value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name(SUCCESS).value(value.isSuccess());
+        if (value.getErrors() != null) {
+            out.name(ERRORS).beginArray();
+            for (FormSubmissionResponse.Error error : value.getErrors()) {
+                writeError(out, error);
+            }
+            out.endArray();
+        }
+        out.name(SUBMISSION_ID).value(value.getSubmissionId());
+        out.endObject();
+    }
+
+    @Override
+    public FormSubmissionResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        FormSubmissionResponse formSubmissionResponse = new FormSubmissionResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else if (SUCCESS.equals(name)) {
+                formSubmissionResponse.setSuccess(in.nextBoolean());
+            } else if (SUBMISSION_ID.equals(name)) {
+                formSubmissionResponse.setSubmissionId(in.nextString());
+            } else if (ERRORS.equals(name)) {
+                List<FormSubmissionResponse.Error> errors = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    errors.add(readError(in, formSubmissionResponse));
+                }
+                in.endArray();
+                formSubmissionResponse.setErrors(errors);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return formSubmissionResponse;
+    }
+
+    private static void writeError(JsonWriter out, FormSubmissionResponse.Error error) throws IOException {
+        if (error == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name(MESSAGE).value(error.getMessage());
+        out.name(ERROR_CODE).value(error.getErrorCode());
+        if (error.getFields() != null) {
+            out.name(FIELDS).beginArray();
+            for (String field : error.getFields()) {
+                out.value(field);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    private static FormSubmissionResponse.Error readError(JsonReader in, FormSubmissionResponse formSubmissionResponse) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        FormSubmissionResponse.Error error = formSubmissionResponse.new Error();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else if (MESSAGE.equals(name)) {
+                error.setMessage(in.nextString());
+            } else if (ERROR_CODE.equals(name)) {
+                error.setErrorCode(in.nextString());
+            } else if (FIELDS.equals(name)) {
+                List<String> fields = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    fields.add(in.peek() == JsonToken.NULL ? nextNull(in) : in.nextString());
+                }
+                in.endArray();
+                error.setFields(fields);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return error;
+    }
+
+    private static String nextNull(JsonReader in) throws IOException {
+        in.nextNull();
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+package com.myorg.core.beans.leadgeneration;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Decides whether an email with a certain zerobounce status is allowed. Configured overrides take precedence,
+ * statuses without override are decided by {@code ZerobounceStatus}
+ */
+public final class ZerobouncePolicy {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ZerobouncePolicy.class);
+
+    public static final ZerobouncePolicy DEFAULT = new ZerobouncePolicy(ImmutableMap.of());
+
+    /*Key of an override which applies to all sub statuses of its status*/
+    private static final String ANY_SUB_STATUS = "*";
+
+    private final Map<String, Map<String, Boolean>> overrides;
+
+    private ZerobouncePolicy(Map<String, Map<String, Boolean>> overrides) {
+        this.overrides = overrides;
+    }
+
+    /**
+     * @param overrides Overrides in the format status=allowed or status:sub_status=allowed, e.g. catch-all=false.
+     *                  An override of a status applies to all its sub statuses without own override
+     * @return          Policy
+     */
+    public static ZerobouncePolicy of(String[] overrides) {
+        if (overrides == null || overrides.length == 0) {
+            return DEFAULT;
+        }
+        Map<String, Map<String, Boolean>> statuses = new HashMap<>();
+        for (String override : overrides) {
+            String[] mapping = StringUtils.split(override, "=", 2);
+            String allowed = mapping != null && mapping.length == 2 ? mapping[1].trim().toLowerCase(Locale.ROOT) : null;
+            if (!Boolean.TRUE.toString().equals(allowed) && !Boolean.FALSE.toString().equals(allowed)) {
+                LOG.warn("invalid zerobounce status policy {}", override);
+                continue;
+            }
+            String key = mapping[0].trim();
+            int separator = key.indexOf(':');
+            String status = separator < 0 ? key : key.substring(0, separator);
+            String subStatus = separator < 0 ? ANY_SUB_STATUS : key.substring(separator + 1);
+            statuses.computeIfAbsent(status, value -> new HashMap<>()).put(subStatus, Boolean.valueOf(allowed));
+        }
+        ImmutableMap.Builder<String, Map<String, Boolean>> builder = ImmutableMap.builder();
+        statuses.forEach((status, subStatuses) -> builder.put(status, ImmutableMap.copyOf(subStatuses)));
+        return new ZerobouncePolicy(builder.build());
+    }
+
+    /**
+     * @param status    Status of zerobounce response
+     * @param subStatus Sub status of zerobounce response
+     * @return          true if email is allowed
+     */
+    public boolean isAllowed(String status, String subStatus) {
+        String normalizedStatus = StringUtils.defaultString(status);
+        String normalizedSubStatus = StringUtils.defaultString(subStatus);
+        Map<String, Boolean> subStatuses = overrides.get(normalizedStatus);
+        if (subStatuses != null) {
+            Boolean allowed = subStatuses.get(normalizedSubStatus);
+            if (allowed == null) {
+                allowed = subStatuses.get(ANY_SUB_STATUS);
+            }
+            if (allowed != null) {
+                return allowed;
+            }
+        }
+        return ZerobounceStatus.of(normalizedStatus, normalizedSubStatus).isAllowed();
+    }
+}
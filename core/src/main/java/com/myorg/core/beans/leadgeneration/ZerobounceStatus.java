@@ -1,9 +1,11 @@
 package com.myorg.core.beans.leadgeneration;
 
 
+import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 
 /**
@@ -14,6 +16,8 @@ public enum ZerobounceStatus {
 
     DEFAULT(StringUtils.EMPTY, StringUtils.EMPTY, true),
 
+    VALID("valid", StringUtils.EMPTY, true),
+
     VALID01("valid", "alias_address", true),
 
     VALID02("valid", "leading_period_removed", true),
@@ -32,7 +36,7 @@ public enum ZerobounceStatus {
 
     INVALID07(Constants.STATUS_INVALID, "unroutable_ip_address", false),
 
-    CATCH_ALL("catch-all ", StringUtils.EMPTY, true),
+    CATCH_ALL("catch-all", StringUtils.EMPTY, true),
 
     SPAMTRAP("spamtrap", StringUtils.EMPTY, false),
 
@@ -66,6 +70,21 @@ public enum ZerobounceStatus {
 
     UNKNOWN08(Constants.STATUS_UNKNOWN, "timeout_exceeded", true);
 
+    /*Sub statuses by status, built once since every uncached verification looks up its status*/
+    private static final Map<String, Map<String, ZerobounceStatus>> STATUSES;
+
+    static {
+        Map<String, ImmutableMap.Builder<String, ZerobounceStatus>> subStatuses = new LinkedHashMap<>();
+        for (ZerobounceStatus value : values()) {
+            if (value != DEFAULT) {
+                subStatuses.computeIfAbsent(value.status, status -> ImmutableMap.builder()).put(value.subStatus, value);
+            }
+        }
+        ImmutableMap.Builder<String, Map<String, ZerobounceStatus>> statuses = ImmutableMap.builder();
+        subStatuses.forEach((status, builder) -> statuses.put(status, builder.build()));
+        STATUSES = statuses.build();
+    }
+
     private final String status;
 
     private final String subStatus;
@@ -113,7 +132,25 @@ public enum ZerobounceStatus {
      * @return ZerobounceStatus enum value
      */
     public static ZerobounceStatus of(final ZeroBounceResponse response){
-        return Arrays.stream(values()).filter(value -> value.getStatus().equals(response.getStatus()))
-                .filter(value -> value.getSubStatus().equals(response.getSubStatus())).findFirst().orElse(DEFAULT);
+        return response != null ? of(response.getStatus(), response.getSubStatus()) : DEFAULT;
+    }
+
+    /**
+     * Get Enum value for supplied status and sub status. An unknown sub status falls back to the value of the status
+     * without sub status if there is one, e.g. catch-all, else DEFAULT enum is returned
+     * @param status    Status, null is treated as empty
+     * @param subStatus Sub status, null is treated as empty
+     * @return ZerobounceStatus enum value
+     */
+    public static ZerobounceStatus of(final String status, final String subStatus) {
+        Map<String, ZerobounceStatus> subStatuses = STATUSES.get(StringUtils.defaultString(status));
+        if (subStatuses == null) {
+            return DEFAULT;
+        }
+        ZerobounceStatus value = subStatuses.get(StringUtils.defaultString(subStatus));
+        if (value == null) {
+            value = subStatuses.get(StringUtils.EMPTY);
+        }
+        return value != null ? value : DEFAULT;
     }
 }
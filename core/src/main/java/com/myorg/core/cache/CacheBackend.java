@@ -0,0 +1,53 @@
+package com.myorg.core.cache;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * {@code CacheBackend} stores the entries of a {@code ServiceCache}. Implementations load
+ * missing entries through the loader function of the cache and, if reload time is configured,
+ * reload entries in the background through its reloader function while stale value is served.
+ * Load context is only passed to the loader and never retained by the entry
+ */
+public interface CacheBackend {
+
+    /**
+     * Get value for supplied key, loading it through supplied load context if not present
+     * @param key           Cache key
+     * @param loadContext   Context the value is loaded with, e.g. the service worker with the request
+     * @return              Cache data, or null if loader returned no data
+     * @throws ExecutionException   Thrown if loader failed
+     */
+    Object get(Object key, Object loadContext) throws ExecutionException;
+
+    /**
+     * Reloads entry identified by the key in the background through the reloader function,
+     * present value is served until the reload completes
+     */
+    void refresh(Object key);
+
+    /**
+     * Invalidates entry identified by the key
+     */
+    void invalidate(Object key);
+
+    /**
+     * Invalidates all entries
+     */
+    void invalidateAll();
+
+    /**
+     * Approximate number of entries
+     */
+    long size();
+
+    /**
+     * Live view of the entries
+     */
+    ConcurrentMap<Object, Object> asMap();
+
+    /**
+     * Counters recorded since the backend was built
+     */
+    CacheStatistics stats();
+}
@@ -0,0 +1,56 @@
+package com.myorg.core.cache;
+
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Available {@code CacheBackend} implementations
+ */
+public enum CacheBackendType {
+
+    /**
+     * Guava cache with LRU like eviction
+     */
+    GUAVA {
+        @Override
+        CacheBackend build(String cacheName, long ttl, long refreshTime, long maxSize, Executor refreshExecutor,
+                           BiFunction<Object, Object, Object> loader, Function<Object, Object> reloader) {
+            return new GuavaCacheBackend(cacheName, ttl, refreshTime, maxSize, refreshExecutor, loader, reloader);
+        }
+    },
+
+    /**
+     * Caffeine cache with W-TinyLFU eviction, better suited to large key spaces with long ttl
+     */
+    CAFFEINE {
+        @Override
+        CacheBackend build(String cacheName, long ttl, long refreshTime, long maxSize, Executor refreshExecutor,
+                           BiFunction<Object, Object, Object> loader, Function<Object, Object> reloader) {
+            return new CaffeineCacheBackend(ttl, refreshTime, maxSize, refreshExecutor, loader, reloader);
+        }
+    };
+
+    /**
+     * Builds cache backend. Entries are reloaded in the background only if reloader is supplied
+     * and reload time is shorter than ttl
+     * @param cacheName         Cache name
+     * @param ttl               Time in minutes after which entries expire
+     * @param refreshTime       Time in minutes after which entries are reloaded in the background
+     * @param maxSize           Maximum number of entries
+     * @param refreshExecutor   Executor to run background reloads
+     * @param loader            Loader function of key and load context
+     * @param reloader          Reloader function of key, may be null
+     * @return                  Cache backend
+     */
+    abstract CacheBackend build(String cacheName, long ttl, long refreshTime, long maxSize, Executor refreshExecutor,
+                                BiFunction<Object, Object, Object> loader, Function<Object, Object> reloader);
+
+    static boolean isRefreshEnabled(long ttl, long refreshTime, Function<Object, Object> reloader) {
+        return reloader != null && isRefreshEnabled(ttl, refreshTime);
+    }
+
+    static boolean isRefreshEnabled(long ttl, long refreshTime) {
+        return refreshTime > 0 && refreshTime < ttl;
+    }
+}
@@ -0,0 +1,119 @@
+package com.myorg.core.cache;
+
+import com.myorg.core.beans.ServiceCacheKey;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+/**
+ * Snapshot of the number of entries and approximate heap footprint of a {@code ServiceCache}.
+ * Footprint is extrapolated from a sample of entries, so that estimating it never scans the whole cache
+ */
+public final class CacheFootprint {
+
+    public static final CacheFootprint EMPTY = new CacheFootprint(0, 0, 0, 0);
+
+    /*Shallow sizes in bytes on a 64 bit jvm with compressed references. Entry overhead covers the map node
+    and the links used for expiry and eviction*/
+    private static final long ENTRY_OVERHEAD = 64;
+
+    private static final long OBJECT_HEADER = 16;
+
+    private static final long CACHE_KEY_SIZE = 48;
+
+    private static final long LOAD_RESULT_SIZE = 32;
+
+    private static final long STRING_SIZE = 40;
+
+    private final long entries;
+
+    private final int sampledEntries;
+
+    private final long estimatedBytes;
+
+    private final long estimatedAt;
+
+    private CacheFootprint(long entries, int sampledEntries, long estimatedBytes, long estimatedAt) {
+        this.entries = entries;
+        this.sampledEntries = sampledEntries;
+        this.estimatedBytes = estimatedBytes;
+        this.estimatedAt = estimatedAt;
+    }
+
+    /**
+     * Estimates footprint from the first entries of supplied view. Iteration order of the backends does not
+     * depend on access or age, so the first entries are as representative as any other
+     * @param entries       Approximate number of entries
+     * @param view          Live view of the entries
+     * @param sampleSize    Maximum number of entries to sample
+     * @return              Footprint
+     */
+    static CacheFootprint estimate(long entries, Iterable<Entry<Object, Object>> view, int sampleSize) {
+        long sampledBytes = 0;
+        int sampled = 0;
+        Iterator<Entry<Object, Object>> it = view.iterator();
+        while (sampled < sampleSize && it.hasNext()) {
+            Entry<Object, Object> entry = it.next();
+            sampledBytes += ENTRY_OVERHEAD + estimateBytes(entry.getKey()) + estimateBytes(entry.getValue());
+            sampled++;
+        }
+        long estimatedBytes = sampled > 0 ? entries * sampledBytes / sampled : 0;
+        return new CacheFootprint(entries, sampled, estimatedBytes, System.currentTimeMillis());
+    }
+
+    /**
+     * Approximate retained size of a cache key or value, shared instances such as booleans are free
+     */
+    static long estimateBytes(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 0;
+        }
+        if (value instanceof ServiceCacheKey) {
+            return CACHE_KEY_SIZE;
+        }
+        if (value instanceof LoadResult) {
+            return LOAD_RESULT_SIZE + estimateBytes(((LoadResult) value).getValue());
+        }
+        if (value instanceof String) {
+            return STRING_SIZE + 2L * ((String) value).length();
+        }
+        return OBJECT_HEADER + estimateBytes(value.toString());
+    }
+
+    /**
+     * @return  Approximate number of entries
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return  Number of entries the footprint was extrapolated from
+     */
+    public int getSampledEntries() {
+        return sampledEntries;
+    }
+
+    /**
+     * @return  Approximate heap footprint of entries in bytes, verdict stores are not included
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * @return  Time in milliseconds since epoch of the estimation, 0 if never estimated
+     */
+    public long getEstimatedAt() {
+        return estimatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheFootprint{" +
+                "entries=" + entries +
+                ", sampledEntries=" + sampledEntries +
+                ", estimatedBytes=" + estimatedBytes +
+                '}';
+    }
+}
@@ -3,8 +3,9 @@ package com.myorg.core.cache;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
+import java.util.concurrent.CompletableFuture;
+
 import static com.myorg.core.constants.GenericConstants.CACHE_RECAPTCHA_RESPONSE;
-import static com.myorg.core.constants.GenericConstants.CACHE_TOKEN_RESPONSE;
 import static com.myorg.core.constants.GenericConstants.CACHE_ZEROBOUNCE_RESPONSE;
 
 /**
@@ -18,14 +19,60 @@ public interface CacheRegistry {
     @ObjectClassDefinition(name = "Cache Registry", description = "Service cache registry")
     @interface Config {
 
-        @AttributeDefinition(name = "Reload time", description = "Cache will be reloaded in the background after defined time in minutes")
+        @AttributeDefinition(name = "Expiry time", description = "Cache entries expire after defined time in minutes")
         long ttl() default 60;
 
+        @AttributeDefinition(name = "Negative expiry time", description = "Definitive negative results, e.g. an e-mail address which does not exist, expire after defined time in minutes. Capped at expiry time")
+        long negativeTtl() default 1440;
+
+        @AttributeDefinition(name = "Failure expiry time", description = "Transient failures, e.g. an upstream outage, are served from cache for defined time in seconds instead of calling the failing endpoint again. 0 disables caching of failures")
+        long failureTtl() default 30;
+
+        @AttributeDefinition(name = "Reload time", description = "Cache entries will be reloaded in the background after defined time in minutes while stale value is served. 0 disables background reload")
+        long refreshTime() default 0;
+
         @AttributeDefinition(name = "Maximum size", description = "Maximum number of objects that can be cached")
         long maxSize() default 10000;
 
         @AttributeDefinition(name = "Allowed Caches", description = "Only caches listed here will be initialized")
-        String [] allowedCaches() default {CACHE_ZEROBOUNCE_RESPONSE,CACHE_RECAPTCHA_RESPONSE, CACHE_TOKEN_RESPONSE};
+        String [] allowedCaches() default {CACHE_ZEROBOUNCE_RESPONSE,CACHE_RECAPTCHA_RESPONSE};
+
+        @AttributeDefinition(name = "In flight timeout", description = "Time in seconds after which a load in flight is no longer shared with concurrent requests for the same key")
+        long inFlightTimeout() default 30;
+
+        @AttributeDefinition(name = "Reload threads", description = "Number of threads shared by all caches to reload entries in the background")
+        int refreshThreads() default 2;
+
+        @AttributeDefinition(name = "Default backend", description = "Backend used for caches without explicit backend mapping: GUAVA or CAFFEINE")
+        String defaultBackend() default "GUAVA";
+
+        @AttributeDefinition(name = "Cache backends", description = "Backend per cache in the format cacheName=GUAVA|CAFFEINE")
+        String [] cacheBackends() default {CACHE_ZEROBOUNCE_RESPONSE + "=CAFFEINE"};
+
+        @AttributeDefinition(name = "Reload queue size", description = "Maximum number of pending background reloads, further reloads are skipped until queue drains")
+        int refreshQueueSize() default 100;
+
+        @AttributeDefinition(name = "Persistent caches", description = "Caches of boolean verdicts which are also stored in a memory mapped file, so that they survive restarts")
+        String [] persistentCaches() default {CACHE_ZEROBOUNCE_RESPONSE};
+
+        @AttributeDefinition(name = "Persistent store directory", description = "Directory of the verdict store files, bundle data area is used if empty")
+        String persistentStoreDirectory() default "";
+
+        @AttributeDefinition(name = "Persistent store capacity", description = "Number of verdicts each store file can hold, rounded up to a power of two")
+        int persistentStoreCapacity() default 1048576;
+
+        @AttributeDefinition(name = "Off heap caches", description = "Caches of boolean verdicts which are also stored outside the heap, caches listed as persistent are stored in their persistent store instead. "
+                + "Keys are stored as 64 bit hashes, hence it is not suited for single use tokens such as recaptcha responses")
+        String [] offHeapCaches() default {};
+
+        @AttributeDefinition(name = "Off heap store capacity", description = "Number of verdicts each off heap store can hold, 16 bytes each, rounded up to a power of two")
+        int offHeapStoreCapacity() default 1048576;
+
+        @AttributeDefinition(name = "Footprint interval", description = "Time in seconds between estimations of number of entries and heap footprint of each cache. 0 disables estimation")
+        long footprintInterval() default 300;
+
+        @AttributeDefinition(name = "Footprint sample size", description = "Number of entries per cache the heap footprint is extrapolated from")
+        int footprintSampleSize() default 100;
 
     }
 
@@ -41,6 +88,12 @@ public interface CacheRegistry {
      */
     ServiceCache registerCache(String cacheName, long ttl, long maxSize);
 
+    /**
+     * Initializes a {@code ServiceCache} with supplied values for ttl, reload time
+     * and max size and adds it to registry table
+     */
+    ServiceCache registerCache(String cacheName, long ttl, long refreshTime, long maxSize);
+
     /**
      * Remove {@code ServiceCache} from cache registry
      */
@@ -53,18 +106,32 @@ public interface CacheRegistry {
     ServiceCache getCache(final String cacheName);
 
     /**
-     * Flush whole {@code ServiceCache}
+     * Flush whole {@code ServiceCache}, including its verdict store
      */
     void invalidateAll(String cacheName);
 
+    /**
+     * Evict entries of {@code ServiceCache} held in memory, its verdict store is kept
+     */
+    void evictAll(String cacheName);
+
     /**
      * Flush particular cache area identified with supplied key
      */
     void invalidate(String cacheName, Object key);
 
     /**
-     * Print cache details for given cache
+     * Register load in flight for supplied key of given cache, unless another
+     * load for the same key is already in flight
+     * @return  Load already in flight, or null if supplied load was registered
+     */
+    <T> CompletableFuture<T> registerInFlight(String cacheName, Object key, CompletableFuture<T> load);
+
+    /**
+     * Get last estimated number of entries and heap footprint of given cache,
+     * estimated periodically in the background
+     * @return  Footprint, or null if cache is not registered
      */
-    void printCacheSize(String cacheName);
+    CacheFootprint getFootprint(String cacheName);
 
 }
@@ -1,29 +1,125 @@
 package com.myorg.core.cache;
 
+import org.apache.commons.lang3.StringUtils;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.metatype.annotations.Designate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.Hashtable;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component(immediate = true, service = CacheRegistry.class)
 @Designate(ocd = CacheRegistry.Config.class)
 public class CacheRegistryImpl implements CacheRegistry {
 
+    private static final Logger LOG = LoggerFactory.getLogger(CacheRegistryImpl.class);
+
     private Config config;
     private List<String> allowedCaches;
 
     private Map<String, ServiceCache> registry;
 
+    private ThreadPoolExecutor refreshExecutor;
+
+    private CacheBackendType defaultBackend;
+
+    private Map<String, CacheBackendType> cacheBackends;
+
+    private List<String> persistentCaches;
+
+    private Path persistentStoreDirectory;
+
+    private List<String> offHeapCaches;
+
+    private ScheduledExecutorService footprintEstimator;
+
+    private BundleContext bundleContext;
+
+    /*MBean registrations by cache name, picked up by the JMX whiteboard*/
+    private Map<String, ServiceRegistration<ServiceCacheMBean>> mbeanRegistrations;
+
     @Activate
-    public void activate(final Config config) {
+    public void activate(final Config config, final BundleContext bundleContext) {
         this.config = config;
+        this.bundleContext = bundleContext;
         this.allowedCaches = Arrays.asList(Optional.ofNullable(config.allowedCaches()).orElse(new String[0]));
+        this.persistentCaches = Arrays.asList(Optional.ofNullable(config.persistentCaches()).orElse(new String[0]));
+        this.offHeapCaches = Arrays.asList(Optional.ofNullable(config.offHeapCaches()).orElse(new String[0]));
+        if (StringUtils.isNotBlank(config.persistentStoreDirectory())) {
+            persistentStoreDirectory = Paths.get(config.persistentStoreDirectory().trim());
+        } else {
+            File dataFile = bundleContext != null ? bundleContext.getDataFile("verdict-store") : null;
+            persistentStoreDirectory = dataFile != null ? dataFile.toPath() : null;
+        }
         registry = new ConcurrentHashMap<>();
+        mbeanRegistrations = new ConcurrentHashMap<>();
+        defaultBackend = getBackendType(config.defaultBackend(), CacheBackendType.GUAVA);
+        cacheBackends = new HashMap<>();
+        for (String cacheBackend : Optional.ofNullable(config.cacheBackends()).orElse(new String[0])) {
+            String[] mapping = cacheBackend.split("=", 2);
+            if (mapping.length == 2) {
+                cacheBackends.put(mapping[0].trim(), getBackendType(mapping[1], defaultBackend));
+            } else {
+                LOG.warn("invalid cache backend mapping {}", cacheBackend);
+            }
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        refreshExecutor = new ThreadPoolExecutor(config.refreshThreads(), config.refreshThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.refreshQueueSize()), runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        refreshExecutor.allowCoreThreadTimeOut(true);
+        if (config.footprintInterval() > 0) {
+            footprintEstimator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cache-footprint");
+                thread.setDaemon(true);
+                return thread;
+            });
+            footprintEstimator.scheduleWithFixedDelay(() -> updateFootprints(config.footprintSampleSize()),
+                    config.footprintInterval(), config.footprintInterval(), TimeUnit.SECONDS);
+        }
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (mbeanRegistrations != null) {
+            mbeanRegistrations.keySet().forEach(this::unregisterMBean);
+        }
+        if (registry != null) {
+            registry.values().forEach(ServiceCache::close);
+        }
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        if (footprintEstimator != null) {
+            footprintEstimator.shutdownNow();
+        }
     }
 
     /**
@@ -31,13 +127,7 @@ public class CacheRegistryImpl implements CacheRegistry {
      */
     @Override
     public ServiceCache registerCache(String cacheName) {
-        if(!allowedCaches.contains(cacheName.trim())) {
-            return null;
-        }
-        ServiceCache cache = new ServiceCache(cacheName, config.ttl(), config.maxSize());
-        cache.setEnabled(true);
-        registry.put(cacheName, cache);
-        return cache;
+        return registerCache(cacheName, config.ttl(), config.refreshTime(), config.maxSize());
     }
 
     /**
@@ -45,12 +135,33 @@ public class CacheRegistryImpl implements CacheRegistry {
      */
     @Override
     public ServiceCache registerCache(String cacheName, long ttl, long maxSize) {
+        return registerCache(cacheName, ttl, config.refreshTime(), maxSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ServiceCache registerCache(String cacheName, long ttl, long refreshTime, long maxSize) {
         if(!allowedCaches.contains(cacheName.trim())) {
             return null;
         }
-        ServiceCache cache = new ServiceCache(cacheName,ttl,maxSize);
+        ServiceCache cache = new ServiceCache(cacheName, ttl, refreshTime, maxSize, config.inFlightTimeout(), refreshExecutor);
         cache.setEnabled(true);
-        registry.put(cacheName, cache);
+        cache.setBackendType(cacheBackends.getOrDefault(cacheName.trim(), defaultBackend));
+        cache.setNegativeTtl(config.negativeTtl());
+        cache.setFailureTtl(config.failureTtl());
+        if (persistentCaches.contains(cacheName.trim()) && persistentStoreDirectory != null) {
+            cache.setVerdictStore(new MappedVerdictStore(persistentStoreDirectory.resolve(cacheName.trim() + ".verdicts"),
+                    config.persistentStoreCapacity()));
+        } else if (offHeapCaches.contains(cacheName.trim())) {
+            cache.setVerdictStore(new OffHeapVerdictStore(config.offHeapStoreCapacity()));
+        }
+        ServiceCache previous = registry.put(cacheName, cache);
+        if (previous != null) {
+            previous.close();
+        }
+        registerMBean(cacheName, cache);
         return cache;
     }
 
@@ -59,7 +170,11 @@ public class CacheRegistryImpl implements CacheRegistry {
      */
     @Override
     public void unregisterCache(String cacheName) {
-        registry.remove(cacheName);
+        ServiceCache cache = registry.remove(cacheName);
+        unregisterMBean(cacheName);
+        if (cache != null) {
+            cache.close();
+        }
     }
 
     /**
@@ -81,6 +196,17 @@ public class CacheRegistryImpl implements CacheRegistry {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void evictAll(String cacheName) {
+        ServiceCache cache = registry.get(cacheName);
+        if (cache != null) {
+            cache.evictAll();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -96,10 +222,63 @@ public class CacheRegistryImpl implements CacheRegistry {
      * {@inheritDoc}
      */
     @Override
-    public void printCacheSize(String cacheName) {
+    public <T> CompletableFuture<T> registerInFlight(String cacheName, Object key, CompletableFuture<T> load) {
         ServiceCache cache = registry.get(cacheName);
-        if (cache != null) {
-           cache.printCacheSize();
+        return cache != null ? cache.registerInFlight(key, load) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheFootprint getFootprint(String cacheName) {
+        ServiceCache cache = registry.get(cacheName);
+        return cache != null ? cache.getFootprint() : null;
+    }
+
+    private void updateFootprints(int sampleSize) {
+        registry.forEach((cacheName, cache) -> {
+            try {
+                CacheFootprint footprint = cache.updateFootprint(sampleSize);
+                LOG.debug("cache {} has {} entries, approx. {} KB", cacheName, footprint.getEntries(), footprint.getEstimatedBytes() / 1024);
+            } catch (RuntimeException e) {
+                LOG.warn("unable to estimate footprint of cache {}", cacheName, e);
+            }
+        });
+    }
+
+    private void registerMBean(String cacheName, ServiceCache cache) {
+        unregisterMBean(cacheName);
+        if (bundleContext == null) {
+            return;
+        }
+        try {
+            Dictionary<String, Object> properties = new Hashtable<>();
+            properties.put("jmx.objectname", ServiceCacheMBean.OBJECT_NAME_PREFIX + ObjectName.quote(cacheName));
+            mbeanRegistrations.put(cacheName, bundleContext.registerService(ServiceCacheMBean.class, new ServiceCacheMBeanImpl(cache), properties));
+        } catch (NotCompliantMBeanException | RuntimeException e) {
+            LOG.warn("unable to publish statistics of cache {}", cacheName, e);
+        }
+    }
+
+    private void unregisterMBean(String cacheName) {
+        ServiceRegistration<ServiceCacheMBean> registration = mbeanRegistrations.remove(cacheName);
+        if (registration != null) {
+            try {
+                registration.unregister();
+            } catch (IllegalStateException e) {
+                /*Already unregistered, e.g. because bundle is stopping*/
+                LOG.debug("statistics of cache {} already unpublished", cacheName);
+            }
+        }
+    }
+
+    private static CacheBackendType getBackendType(String backend, CacheBackendType fallback) {
+        try {
+            return CacheBackendType.valueOf(backend.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            LOG.warn("unknown cache backend {}, using {}", backend, fallback);
+            return fallback;
         }
     }
 
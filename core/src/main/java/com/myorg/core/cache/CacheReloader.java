@@ -0,0 +1,22 @@
+package com.myorg.core.cache;
+
+/**
+ * {@code CacheReloader} reloads entries of a {@code ServiceCache} in the background. Entries do not retain
+ * the load context they were loaded with, hence the reloader names the context it needs to rebuild the request,
+ * e.g. the e-mail address of a verdict, which the cache keeps beside the entry until it expires
+ */
+public interface CacheReloader {
+
+    /**
+     * @param loadContext   Context the entry was loaded with
+     * @return              Context to reload the entry with, or null if the entry is not reloaded
+     */
+    Object getReloadContext(Object loadContext);
+
+    /**
+     * Reloads data for supplied reload context
+     * @param reloadContext Context returned by {@link #getReloadContext(Object)}
+     * @return              Data like returned by the loader of the cache, or null if there is no data
+     */
+    Object reload(Object reloadContext);
+}
@@ -0,0 +1,95 @@
+package com.myorg.core.cache;
+
+/**
+ * Snapshot of the counters a {@code CacheBackend} records since its creation. Counters of Guava and
+ * Caffeine are mapped to this common form, so that they are published the same way for either backend
+ */
+public final class CacheStatistics {
+
+    public static final CacheStatistics EMPTY = new CacheStatistics(0, 0, 0, 0, 0, 0);
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long loadSuccessCount;
+
+    private final long loadFailureCount;
+
+    private final long totalLoadTime;
+
+    private final long evictionCount;
+
+    /**
+     * @param hitCount          Number of lookups which returned a cached value
+     * @param missCount         Number of lookups which had to load a value
+     * @param loadSuccessCount  Number of loads which returned a value
+     * @param loadFailureCount  Number of loads which failed or returned no value
+     * @param totalLoadTime     Time in nanoseconds spent loading values
+     * @param evictionCount     Number of entries evicted because of size or expiry
+     */
+    public CacheStatistics(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                           long totalLoadTime, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return  Ratio of lookups which returned a cached value, 1 if there was no lookup yet
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1 : (double) hitCount / requestCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * @return  Time in nanoseconds spent loading values
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * @return  Average time in nanoseconds a load took, 0 if there was no load yet
+     */
+    public double getAverageLoadPenalty() {
+        long loadCount = loadSuccessCount + loadFailureCount;
+        return loadCount == 0 ? 0 : (double) totalLoadTime / loadCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", loadSuccessCount=" + loadSuccessCount +
+                ", loadFailureCount=" + loadFailureCount +
+                ", totalLoadTime=" + totalLoadTime +
+                ", evictionCount=" + evictionCount +
+                '}';
+    }
+}
@@ -0,0 +1,128 @@
+package com.myorg.core.cache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * {@code CacheBackend} based on Caffeine, whose W-TinyLFU eviction keeps frequently used entries
+ * and reads without locking
+ */
+class CaffeineCacheBackend implements CacheBackend {
+
+    private final LoadingCache<Object, Object> loadingCache;
+
+    private final BiFunction<Object, Object, Object> loader;
+
+    CaffeineCacheBackend(long ttl, long refreshTime, long maxSize, Executor refreshExecutor,
+                         BiFunction<Object, Object, Object> loader, Function<Object, Object> reloader) {
+        this.loader = loader;
+        /*Maintenance such as eviction stays on the default executor of Caffeine, only reloads run on the bounded refresh pool*/
+        Caffeine<Object, Object> caffeine = Caffeine.newBuilder().expireAfterWrite(ttl, TimeUnit.MINUTES).maximumSize(maxSize)
+                .recordStats();
+        if (CacheBackendType.isRefreshEnabled(ttl, refreshTime, reloader)) {
+            caffeine.refreshAfterWrite(refreshTime, TimeUnit.MINUTES);
+        }
+        loadingCache = caffeine.build(new CacheLoader<Object, Object>() {
+            @Override
+            public Object load(Object key) {
+                /*Key is its own load context when loaded without one*/
+                return loader.apply(key, key);
+            }
+
+            @Override
+            public Object reload(Object key, Object oldValue) {
+                Object value = reloader.apply(key);
+                if (value == null) {
+                    /*Caffeine removes entries reloaded to null, stale value is kept until it expires instead*/
+                    throw new IllegalStateException("reloader returned no data");
+                }
+                return value;
+            }
+
+            @Override
+            public CompletableFuture<Object> asyncReload(Object key, Object oldValue, Executor executor) {
+                try {
+                    return CompletableFuture.supplyAsync(() -> reload(key, oldValue), refreshExecutor);
+                } catch (RejectedExecutionException e) {
+                    /*Stale value is kept and reload is attempted again on next access*/
+                    CompletableFuture<Object> rejectedReload = new CompletableFuture<>();
+                    rejectedReload.completeExceptionally(e);
+                    return rejectedReload;
+                }
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object get(Object key, Object loadContext) throws ExecutionException {
+        try {
+            return loadingCache.get(key, cacheKey -> loader.apply(cacheKey, loadContext));
+        } catch (RuntimeException e) {
+            throw new ExecutionException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refresh(Object key) {
+        loadingCache.refresh(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate(Object key) {
+        loadingCache.invalidate(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidateAll() {
+        loadingCache.invalidateAll();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size() {
+        return loadingCache.estimatedSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConcurrentMap<Object, Object> asMap() {
+        return loadingCache.asMap();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStatistics stats() {
+        CacheStats stats = loadingCache.stats();
+        return new CacheStatistics(stats.hitCount(), stats.missCount(), stats.loadSuccessCount(), stats.loadFailureCount(),
+                stats.totalLoadTime(), stats.evictionCount());
+    }
+}
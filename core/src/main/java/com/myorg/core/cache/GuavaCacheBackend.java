@@ -0,0 +1,127 @@
+package com.myorg.core.cache;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * {@code CacheBackend} based on Guava cache framework
+ */
+class GuavaCacheBackend implements CacheBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(GuavaCacheBackend.class);
+
+    private final LoadingCache<Object, Object> loadingCache;
+
+    private final BiFunction<Object, Object, Object> loader;
+
+    GuavaCacheBackend(String cacheName, long ttl, long refreshTime, long maxSize, Executor refreshExecutor,
+                      BiFunction<Object, Object, Object> loader, Function<Object, Object> reloader) {
+        this.loader = loader;
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().expireAfterWrite(ttl, TimeUnit.MINUTES).maximumSize(maxSize).recordStats();
+        if (CacheBackendType.isRefreshEnabled(ttl, refreshTime, reloader)) {
+            cacheBuilder.refreshAfterWrite(refreshTime, TimeUnit.MINUTES);
+        }
+        loadingCache = cacheBuilder.build(new CacheLoader<Object, Object>() {
+            @Override
+            public Object load(Object key) {
+                /*Key is its own load context when loaded without one*/
+                return loader.apply(key, key);
+            }
+
+            @Override
+            public ListenableFuture<Object> reload(Object key, Object value) {
+                log.debug("cache {} starting reload task...", cacheName);
+                ListenableFutureTask<Object> task = ListenableFutureTask.create(() -> reloader.apply(key));
+                try {
+                    refreshExecutor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    /*Stale value is kept and reload is attempted again on next access*/
+                    log.debug("cache {} refresh executor saturated, skipping reload", cacheName);
+                    return Futures.immediateFailedFuture(e);
+                }
+                return task;
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object get(Object key, Object loadContext) throws ExecutionException {
+        try {
+            return loadingCache.get(key, () -> loader.apply(key, loadContext));
+        } catch (InvalidCacheLoadException e) {
+            return null;
+        } catch (UncheckedExecutionException e) {
+            throw new ExecutionException(e.getCause());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refresh(Object key) {
+        loadingCache.refresh(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate(Object key) {
+        loadingCache.invalidate(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidateAll() {
+        loadingCache.invalidateAll();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size() {
+        return loadingCache.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConcurrentMap<Object, Object> asMap() {
+        return loadingCache.asMap();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheStatistics stats() {
+        CacheStats stats = loadingCache.stats();
+        return new CacheStatistics(stats.hitCount(), stats.missCount(), stats.loadSuccessCount(), stats.loadExceptionCount(),
+                stats.totalLoadTime(), stats.evictionCount());
+    }
+}
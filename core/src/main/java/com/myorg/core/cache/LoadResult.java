@@ -0,0 +1,96 @@
+package com.myorg.core.cache;
+
+/**
+ * Typed outcome of a cache load. Hits are cached for the ttl of the cache, definitive negatives
+ * such as an e-mail address which does not exist and transient failures such as an upstream outage
+ * are cached for their own, shorter ttl so that repeated requests do not turn into repeated calls.
+ * Loaders may return plain values, which are treated as hits, and null if there is nothing to cache
+ */
+public final class LoadResult {
+
+    public enum Type {
+        HIT,
+        NEGATIVE,
+        FAILURE
+    }
+
+    private static final LoadResult FAILURE = new LoadResult(Type.FAILURE, null, Long.MAX_VALUE);
+
+    private final Type type;
+
+    private final Object value;
+
+    private final long expiresAt;
+
+    private LoadResult(Type type, Object value, long expiresAt) {
+        this.type = type;
+        this.value = value;
+        this.expiresAt = expiresAt;
+    }
+
+    public static LoadResult hit(Object value) {
+        return new LoadResult(Type.HIT, value, Long.MAX_VALUE);
+    }
+
+    public static LoadResult negative(Object value) {
+        return new LoadResult(Type.NEGATIVE, value, Long.MAX_VALUE);
+    }
+
+    public static LoadResult failure() {
+        return FAILURE;
+    }
+
+    /**
+     * Typed outcome of a verdict, a missing verdict is a failure and a rejecting verdict a definitive negative
+     * @param verdict   Verdict returned by the service, null on failure
+     * @return          Load result
+     */
+    public static LoadResult ofVerdict(Boolean verdict) {
+        if (verdict == null) {
+            return failure();
+        }
+        return verdict ? hit(true) : negative(false);
+    }
+
+    /**
+     * Typed outcome of a stored verdict
+     * @param verdict   Stored verdict
+     * @param expiresAt Time in milliseconds since epoch after which stored verdict is expired
+     * @return          Load result expiring together with the stored verdict
+     */
+    static LoadResult ofVerdict(boolean verdict, long expiresAt) {
+        return new LoadResult(verdict ? Type.HIT : Type.NEGATIVE, verdict, expiresAt);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= expiresAt;
+    }
+
+    /**
+     * @param expiresAt Time in milliseconds since epoch after which result is expired
+     * @return          Copy of this result which expires at supplied time
+     */
+    LoadResult expiringAt(long expiresAt) {
+        return new LoadResult(type, value, expiresAt);
+    }
+
+    @Override
+    public String toString() {
+        return "LoadResult{" +
+                "type=" + type +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package com.myorg.core.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the times of the last loads of a {@code ServiceCache} in a ring buffer. Recording is a single
+ * array write, percentiles are only calculated when read, e.g. through JMX
+ */
+class LoadTimeSampler {
+
+    /*Load times in nanoseconds of the last loads*/
+    private final long[] loadTimes;
+
+    private int index;
+
+    private int recordedLoadTimes;
+
+    LoadTimeSampler(int samples) {
+        this.loadTimes = new long[Math.max(1, samples)];
+    }
+
+    /**
+     * @param loadTime  Time in nanoseconds the load took
+     */
+    synchronized void record(long loadTime) {
+        loadTimes[index] = loadTime;
+        index = (index + 1) % loadTimes.length;
+        recordedLoadTimes = Math.min(recordedLoadTimes + 1, loadTimes.length);
+    }
+
+    /**
+     * @param percentile    Percentile between 1 and 100
+     * @return              Load time in milliseconds at supplied percentile of the last loads, 0 if there was no load yet
+     */
+    double getPercentile(int percentile) {
+        long[] sortedLoadTimes;
+        synchronized (this) {
+            sortedLoadTimes = Arrays.copyOf(loadTimes, recordedLoadTimes);
+        }
+        if (sortedLoadTimes.length == 0) {
+            return 0;
+        }
+        Arrays.sort(sortedLoadTimes);
+        int percentileIndex = (int) Math.ceil(Math.max(1, Math.min(percentile, 100)) / 100d * sortedLoadTimes.length) - 1;
+        return (double) sortedLoadTimes[Math.max(0, percentileIndex)] / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,354 @@
+package com.myorg.core.cache;
+
+import com.myorg.core.beans.ServiceCacheKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@code VerdictStore} backed by a memory mapped file, so that verdicts survive restarts without occupying heap.
+ * The file holds an open addressing table with linear probing, each slot holds the 128 bit key hash and the
+ * expiry time packed together with the verdict. File is mapped in the background on creation and writes are
+ * applied behind by a single writer thread, reads never block on disk I/O. Writes which do not fit the write
+ * queue are dropped and counted, a dropped verdict is only missing from the store and loaded again on demand.
+ */
+public class MappedVerdictStore implements VerdictStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedVerdictStore.class);
+
+    private static final int MAGIC = 0x56455244;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 16;
+
+    /*Most and least significant key bits followed by expiry shifted left by one bit OR verdict, 0 marks an empty slot*/
+    private static final int SLOT_SIZE = 24;
+
+    private static final int MAX_PROBES = 32;
+
+    private static final int WRITE_QUEUE_SIZE = 10000;
+
+    /*Largest power of two whose slots still fit a single mapping*/
+    private static final int MAX_CAPACITY = Integer.highestOneBit((Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE);
+
+    private static final int MIN_CAPACITY = 1024;
+
+    /*Dropped writes are logged once per this many drops, so that a write burst does not flood the log*/
+    private static final int DROPPED_WRITES_LOG_INTERVAL = 1000;
+
+    private final Path file;
+
+    private final int capacity;
+
+    private final ThreadPoolExecutor writer;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final AtomicLong droppedWrites = new AtomicLong();
+
+    /*Incremented by clear, writes queued before are skipped so that they do not bring back cleared verdicts*/
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile MappedByteBuffer buffer;
+
+    private FileChannel channel;
+
+    /**
+     * @param file      Store file, created if it does not exist
+     * @param capacity  Number of slots, rounded up to a power of two
+     */
+    public MappedVerdictStore(Path file, int capacity) {
+        this(file, capacity, WRITE_QUEUE_SIZE);
+    }
+
+    /**
+     * @param file              Store file, created if it does not exist
+     * @param capacity          Number of slots, rounded up to a power of two
+     * @param writeQueueSize    Max writes waiting to be applied, further writes are dropped
+     */
+    MappedVerdictStore(Path file, int capacity, int writeQueueSize) {
+        this.file = file;
+        this.capacity = capacity(capacity);
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(writeQueueSize), runnable -> {
+            Thread thread = new Thread(runnable, "verdict-store-writer");
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, executor) -> onDroppedWrite(executor));
+        /*Writes are queued behind, and therefore applied after, mapping the file*/
+        writer.execute(this::open);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LoadResult get(ServiceCacheKey key) {
+        /*Read lock rather than optimistic read, an unmapped buffer must never be read*/
+        long stamp = lock.readLock();
+        try {
+            MappedByteBuffer mappedBuffer = buffer;
+            return mappedBuffer != null ? find(mappedBuffer, key) : null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(ServiceCacheKey key, boolean verdict, long expiresAt) {
+        long writeGeneration = generation.get();
+        writer.execute(() -> write(key, (expiresAt << 1) | (verdict ? 1 : 0), writeGeneration));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(ServiceCacheKey key) {
+        /*Slot keeps the key with an expiry in the past so that probe sequences of other keys stay intact*/
+        long writeGeneration = generation.get();
+        writer.execute(() -> write(key, 1L << 1, writeGeneration));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Verdicts are cleared right away rather than behind, so that a full write queue cannot drop the clear.
+     */
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            generation.incrementAndGet();
+            MappedByteBuffer mappedBuffer = buffer;
+            if (mappedBuffer != null) {
+                for (int offset = HEADER_SIZE; offset < mappedBuffer.capacity(); offset += Long.BYTES) {
+                    mappedBuffer.putLong(offset, 0L);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        LOG.info("verdict store {} cleared", file);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Mapping is released right away, so that the file is not held open until the buffer is garbage collected.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOG.warn("verdict store {} closed with pending writes", file);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        MappedByteBuffer mappedBuffer;
+        long stamp = lock.writeLock();
+        try {
+            mappedBuffer = buffer;
+            buffer = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        try {
+            if (mappedBuffer != null) {
+                mappedBuffer.force();
+                unmap(mappedBuffer);
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            LOG.error("error while closing verdict store {}", file, e);
+        }
+        if (droppedWrites.get() > 0) {
+            LOG.warn("verdict store {} dropped {} writes since it was opened", file, droppedWrites.get());
+        }
+    }
+
+    /**
+     * @return  Number of writes dropped because write queue was full
+     */
+    long getDroppedWrites() {
+        return droppedWrites.get();
+    }
+
+    /**
+     * @return  Number of slots
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @param capacity  Requested number of slots
+     * @return          Next power of two of requested number of slots
+     */
+    static int capacity(int capacity) {
+        int slots = Math.min(Math.max(capacity, MIN_CAPACITY), MAX_CAPACITY);
+        return Integer.bitCount(slots) == 1 ? slots : Integer.highestOneBit(slots) << 1;
+    }
+
+    /**
+     * Waits until writes queued so far are applied and forces them to disk
+     */
+    void flush() {
+        try {
+            writer.submit(() -> {
+                MappedByteBuffer mappedBuffer = buffer;
+                if (mappedBuffer != null) {
+                    mappedBuffer.force();
+                }
+            }).get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RejectedExecutionException e) {
+            LOG.warn("unable to flush verdict store {}", file, e);
+        }
+    }
+
+    private void onDroppedWrite(ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        long dropped = droppedWrites.incrementAndGet();
+        if (dropped % DROPPED_WRITES_LOG_INTERVAL == 1) {
+            LOG.warn("verdict store {} write queue is full, {} writes dropped so far", file, dropped);
+        }
+    }
+
+    /**
+     * Releases mapping of supplied buffer, which the JDK would otherwise only release once the buffer is
+     * garbage collected. Buffer must not be accessed afterwards
+     * @param mappedBuffer  Mapped buffer
+     */
+    private void unmap(MappedByteBuffer mappedBuffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", java.nio.ByteBuffer.class);
+            invokeCleaner.invoke(theUnsafe.get(null), mappedBuffer);
+        } catch (NoSuchMethodException e) {
+            /*Java 8 has no invokeCleaner, cleaner of the direct buffer is called instead*/
+            try {
+                Method cleanerMethod = mappedBuffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(mappedBuffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (ReflectiveOperationException | RuntimeException cleanerException) {
+                LOG.debug("unable to unmap verdict store {}, mapping is released on garbage collection", file, cleanerException);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.debug("unable to unmap verdict store {}, mapping is released on garbage collection", file, e);
+        }
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer mappedBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            if (mappedBuffer.getInt(0) != MAGIC || mappedBuffer.getInt(4) != VERSION || mappedBuffer.getInt(8) != capacity) {
+                LOG.info("initializing verdict store {} with {} slots", file, capacity);
+                for (int offset = HEADER_SIZE; offset < mappedBuffer.capacity(); offset += Long.BYTES) {
+                    mappedBuffer.putLong(offset, 0L);
+                }
+                mappedBuffer.putInt(0, MAGIC);
+                mappedBuffer.putInt(4, VERSION);
+                mappedBuffer.putInt(8, capacity);
+            }
+            buffer = mappedBuffer;
+            LOG.info("verdict store {} opened", file);
+        } catch (IOException | RuntimeException e) {
+            LOG.error("unable to open verdict store {}, verdicts are not persisted", file, e);
+        }
+    }
+
+    private LoadResult find(MappedByteBuffer mappedBuffer, ServiceCacheKey key) {
+        int index = index(key);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int offset = offset(index + probe);
+            long packed = mappedBuffer.getLong(offset + 16);
+            if (packed == 0) {
+                return null;
+            }
+            if (mappedBuffer.getLong(offset) == key.getMostSignificantBits() && mappedBuffer.getLong(offset + 8) == key.getLeastSignificantBits()) {
+                return (packed >>> 1) > System.currentTimeMillis() ? LoadResult.ofVerdict((packed & 1) == 1, packed >>> 1) : null;
+            }
+        }
+        return null;
+    }
+
+    private void write(ServiceCacheKey key, long packed, long writeGeneration) {
+        MappedByteBuffer mappedBuffer = buffer;
+        if (mappedBuffer == null) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (writeGeneration != generation.get()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            int index = index(key);
+            int freeOffset = -1;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int offset = offset(index + probe);
+                long slot = mappedBuffer.getLong(offset + 16);
+                if (slot != 0 && mappedBuffer.getLong(offset) == key.getMostSignificantBits()
+                        && mappedBuffer.getLong(offset + 8) == key.getLeastSignificantBits()) {
+                    mappedBuffer.putLong(offset + 16, packed);
+                    return;
+                }
+                if (freeOffset < 0 && (slot == 0 || (slot >>> 1) <= now)) {
+                    freeOffset = offset;
+                }
+                if (slot == 0) {
+                    break;
+                }
+            }
+            if (freeOffset < 0) {
+                LOG.debug("verdict store {} has no free slot for {}", file, key);
+                return;
+            }
+            mappedBuffer.putLong(freeOffset, key.getMostSignificantBits());
+            mappedBuffer.putLong(freeOffset + 8, key.getLeastSignificantBits());
+            mappedBuffer.putLong(freeOffset + 16, packed);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private int index(ServiceCacheKey key) {
+        return (int) (key.getMostSignificantBits() ^ key.getLeastSignificantBits());
+    }
+
+    private int offset(int index) {
+        return HEADER_SIZE + (index & (capacity - 1)) * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,225 @@
+package com.myorg.core.cache;
+
+import com.myorg.core.beans.ServiceCacheKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@code VerdictStore} held in direct byte buffers outside the heap, so that millions of verdicts can be
+ * cached without adding to garbage collection. Buffers are split into segments with their own lock, each
+ * segment is an open addressing table with linear probing whose slots hold a 64 bit key hash and the
+ * expiry time packed together with the verdict. Verdicts are lost on restart. Keys are reduced to 64 bit
+ * hashes, so that it suits verdicts which may be shared by a colliding key, not single use tokens.
+ */
+public class OffHeapVerdictStore implements VerdictStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OffHeapVerdictStore.class);
+
+    /*Key hash followed by expiry shifted left by one bit OR verdict, 0 marks an empty slot*/
+    private static final int SLOT_SIZE = 16;
+
+    private static final int SEGMENTS = 16;
+
+    private static final int MAX_PROBES = 32;
+
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    /*Largest power of two whose slots still fit a single buffer*/
+    private static final int MAX_SEGMENT_CAPACITY = Integer.highestOneBit(Integer.MAX_VALUE / SLOT_SIZE);
+
+    private final int segmentCapacity;
+
+    /*Dropped on close, so that the direct buffers are freed once no reader or writer holds a segment anymore*/
+    private volatile Segment[] segments;
+
+    /**
+     * @param capacity  Number of slots, rounded up to a power of two
+     */
+    public OffHeapVerdictStore(int capacity) {
+        this.segmentCapacity = segmentCapacity(capacity);
+        Segment[] allocatedSegments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            allocatedSegments[i] = new Segment(ByteBuffer.allocateDirect(segmentCapacity * SLOT_SIZE));
+        }
+        this.segments = allocatedSegments;
+        LOG.info("off heap verdict store allocated with {} slots", (long) segmentCapacity * SEGMENTS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LoadResult get(ServiceCacheKey key) {
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+        return segment != null ? segment.get(hash) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(ServiceCacheKey key, boolean verdict, long expiresAt) {
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+        if (segment != null) {
+            segment.put(hash, (expiresAt << 1) | (verdict ? 1 : 0));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(ServiceCacheKey key) {
+        long hash = hash(key);
+        Segment segment = segmentFor(hash);
+        if (segment != null) {
+            /*Slot keeps the key with an expiry in the past so that probe sequences of other keys stay intact*/
+            segment.put(hash, 1L << 1);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        Segment[] currentSegments = segments;
+        if (currentSegments != null) {
+            for (Segment segment : currentSegments) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Direct buffers are released to the garbage collector, which frees their native memory. Verdicts
+     * are not available anymore once store is closed.
+     */
+    @Override
+    public void close() {
+        segments = null;
+    }
+
+    /**
+     * @return  true if store is closed and its buffers are released
+     */
+    boolean isClosed() {
+        return segments == null;
+    }
+
+    /**
+     * @return  Number of slots of all segments
+     */
+    long capacity() {
+        return (long) segmentCapacity * SEGMENTS;
+    }
+
+    private Segment segmentFor(long hash) {
+        Segment[] currentSegments = segments;
+        return currentSegments != null ? currentSegments[(int) (hash >>> 60) & (SEGMENTS - 1)] : null;
+    }
+
+    /**
+     * @param capacity  Requested number of slots of the store
+     * @return          Slots per segment, the next power of two of an equal share of requested capacity
+     */
+    static int segmentCapacity(int capacity) {
+        int share = capacity / SEGMENTS + (capacity % SEGMENTS == 0 ? 0 : 1);
+        int slots = Math.min(Math.max(share, MIN_SEGMENT_CAPACITY), MAX_SEGMENT_CAPACITY);
+        return Integer.bitCount(slots) == 1 ? slots : Integer.highestOneBit(slots) << 1;
+    }
+
+    private static long hash(ServiceCacheKey key) {
+        return key.getMostSignificantBits() ^ key.getLeastSignificantBits();
+    }
+
+    private final class Segment {
+
+        private final ByteBuffer buffer;
+
+        private final StampedLock lock = new StampedLock();
+
+        private Segment(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private LoadResult get(long hash) {
+            long stamp = lock.tryOptimisticRead();
+            LoadResult verdict = find(hash);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    verdict = find(hash);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return verdict;
+        }
+
+        private LoadResult find(long hash) {
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int offset = offset(hash, probe);
+                long packed = buffer.getLong(offset + 8);
+                if (packed == 0) {
+                    return null;
+                }
+                if (buffer.getLong(offset) == hash) {
+                    return (packed >>> 1) > System.currentTimeMillis() ? LoadResult.ofVerdict((packed & 1) == 1, packed >>> 1) : null;
+                }
+            }
+            return null;
+        }
+
+        private void put(long hash, long packed) {
+            long stamp = lock.writeLock();
+            try {
+                long now = System.currentTimeMillis();
+                int freeOffset = -1;
+                for (int probe = 0; probe < MAX_PROBES; probe++) {
+                    int offset = offset(hash, probe);
+                    long slot = buffer.getLong(offset + 8);
+                    if (slot != 0 && buffer.getLong(offset) == hash) {
+                        buffer.putLong(offset + 8, packed);
+                        return;
+                    }
+                    if (freeOffset < 0 && (slot == 0 || (slot >>> 1) <= now)) {
+                        freeOffset = offset;
+                    }
+                    if (slot == 0) {
+                        break;
+                    }
+                }
+                if (freeOffset < 0) {
+                    LOG.debug("off heap verdict store has no free slot for key hash {}", Long.toHexString(hash));
+                    return;
+                }
+                buffer.putLong(freeOffset, hash);
+                buffer.putLong(freeOffset + 8, packed);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void clear() {
+            long stamp = lock.writeLock();
+            try {
+                for (int offset = 0; offset < buffer.capacity(); offset += Long.BYTES) {
+                    buffer.putLong(offset, 0L);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private int offset(long hash, int probe) {
+            return (((int) hash + probe) & (segmentCapacity - 1)) * SLOT_SIZE;
+        }
+    }
+}
@@ -1,62 +1,109 @@
 package com.myorg.core.cache;
 
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
-import com.google.common.cache.LoadingCache;
-import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListenableFutureTask;
+import com.myorg.core.beans.ServiceCacheKey;
 import com.myorg.core.exception.CacheException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Iterator;
-import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 /**
- * {@code ServiceCache} uses Guava
- * cache framework to store cache data
+ * {@code ServiceCache} stores cache data in a {@code CacheBackend},
+ * Guava or Caffeine based on cache registry configuration. Caches of boolean
+ * verdicts may have a {@code VerdictStore} below the backend, which is consulted
+ * on a miss before the loader and receives every loaded verdict. Loaders may return
+ * a {@code LoadResult}, negatives and failures are cached with their own ttl. If a {@code CacheReloader} is
+ * supplied and reload time is shorter than ttl, entries requested after reload time are reloaded in the background
+ * while the cached value is served
  */
 public class ServiceCache {
 
     private static final Logger log = LoggerFactory.getLogger(ServiceCache.class);
 
+    private static final int LOAD_TIME_SAMPLES = 1024;
+
     private String name;
     private long ttl;
+    private long negativeTtl;
+    private long failureTtl;
+    private long refreshTime;
     private long max;
     private boolean enabled;
     private boolean initialized;
+    private CacheBackendType backendType = CacheBackendType.GUAVA;
 
     private Function<Object, Object> loader;
-    private LoadingCache<Object, Object> loadingCache;
-    private final ExecutorService loadingCacheExecutor;
+    private CacheBackend backend;
+    private VerdictStore verdictStore;
+    private CacheReloader reloader;
+    /*Contexts to reload entries with by key, only kept if entries are reloaded*/
+    private Cache<Object, Object> reloadContexts;
+    private final Executor refreshExecutor;
+    private final Cache<Object, CompletableFuture<?>> inFlightLoads;
+    private volatile CacheFootprint footprint = CacheFootprint.EMPTY;
+    /*Times of loads which called the loader, verdict store hits are not included*/
+    private final LoadTimeSampler loadTimes = new LoadTimeSampler(LOAD_TIME_SAMPLES);
 
-    public ServiceCache(String cacheName, long ttl, long maxSize) {
+    /**
+     * @param cacheName         Cache name
+     * @param ttl               Time in minutes after which entries expire
+     * @param refreshTime       Time in minutes after which entries are reloaded in the background, 0 disables reload
+     * @param maxSize           Maximum number of entries
+     * @param inFlightTimeout   Time in seconds after which a load in flight is no longer shared
+     * @param refreshExecutor   Executor shared by all caches to run background reloads
+     */
+    public ServiceCache(String cacheName, long ttl, long refreshTime, long maxSize, long inFlightTimeout, Executor refreshExecutor) {
         this.name = cacheName;
         this.ttl = ttl;
+        this.negativeTtl = TimeUnit.MINUTES.toMillis(ttl);
+        this.refreshTime = refreshTime;
         this.max = maxSize;
-        this.loadingCacheExecutor = Executors.newSingleThreadExecutor();
+        this.refreshExecutor = refreshExecutor;
+        /*Loads which never complete e.g. because they were never dispatched must not block the key forever*/
+        this.inFlightLoads = CacheBuilder.newBuilder().expireAfterWrite(inFlightTimeout, TimeUnit.SECONDS).build();
     }
 
     public void init(Function<Object, Object> loader) {
+        init(loader, null);
+    }
+
+    /**
+     * Initializes cache with loader function, which is applied to the load context supplied with
+     * {@link #getData(Object, Object)}, and reloader. Entries are only reloaded in the background if reloader
+     * is supplied and reload time is shorter than ttl
+     * @param loader    Loader function
+     * @param reloader  Reloader, may be null
+     */
+    public void init(Function<Object, Object> loader, CacheReloader reloader) {
         try{
             this.loader = loader;
-            loadingCache = buildCache(loader, loadingCacheExecutor);
+            boolean refreshEnabled = reloader != null && CacheBackendType.isRefreshEnabled(ttl, refreshTime);
+            this.reloader = refreshEnabled ? reloader : null;
+            reloadContexts = refreshEnabled
+                    ? CacheBuilder.newBuilder().expireAfterWrite(ttl, TimeUnit.MINUTES).maximumSize(max).build() : null;
+            backend = backendType.build(name, ttl, refreshTime, max, refreshExecutor, getCacheLoader(loader),
+                    refreshEnabled ? getCacheReloader(reloader) : null);
             initialized = true;
-            log.info("cache {} initialized", name);
+            log.info("cache {} initialized with {} backend", name, backendType);
         } catch (Exception e) {
             log.error("Exception occurred in init method", e);
         }
     }
 
 
+    public String getName() {
+        return name;
+    }
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -68,12 +115,79 @@ public class ServiceCache {
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
+
+    public CacheBackendType getBackendType() {
+        return backendType;
+    }
+
+    /**
+     * Sets backend to store cache data in, takes effect on initialization
+     * @param backendType   Backend type
+     */
+    public void setBackendType(CacheBackendType backendType) {
+        this.backendType = backendType;
+    }
+
     /**
-     * Invalidates whole cache
+     * Sets time after which definitive negative results expire, capped at cache ttl
+     * @param negativeTtl   Time in minutes
+     */
+    public void setNegativeTtl(long negativeTtl) {
+        this.negativeTtl = TimeUnit.MINUTES.toMillis(Math.min(negativeTtl, ttl));
+    }
+
+    /**
+     * Sets time after which transient failures expire, 0 disables caching of failures
+     * @param failureTtl    Time in seconds
+     */
+    public void setFailureTtl(long failureTtl) {
+        this.failureTtl = TimeUnit.SECONDS.toMillis(failureTtl);
+    }
+
+    public VerdictStore getVerdictStore() {
+        return verdictStore;
+    }
+
+    /**
+     * Sets store below the cache backend, takes effect on initialization
+     * @param verdictStore  Verdict store
+     */
+    public void setVerdictStore(VerdictStore verdictStore) {
+        this.verdictStore = verdictStore;
+    }
+
+    /**
+     * Invalidates whole cache, including verdicts in the verdict store
      */
     public void invalidateAll() {
         if (isInitialized() && isEnabled()) {
-            loadingCache.invalidateAll();
+            backend.invalidateAll();
+            invalidateReloadContexts();
+            if (verdictStore != null) {
+                verdictStore.clear();
+            }
+        }
+    }
+
+    /**
+     * Evicts all entries held by the cache backend. Verdict store is kept, so that its verdicts
+     * are served again once the cache is used again, e.g. after its service is reactivated
+     */
+    public void evictAll() {
+        if (isInitialized() && isEnabled()) {
+            backend.invalidateAll();
+            invalidateReloadContexts();
+        }
+    }
+
+    /**
+     * Reloads cached entry identified by the key in the background, cached value is served until
+     * the reload completes. Does nothing if entries are not reloaded or the key is not cached
+     * @param key   Cache key
+     */
+    public void refresh(Object key) {
+        if (isInitialized() && isEnabled() && reloader != null && backend.asMap().containsKey(key)) {
+            backend.refresh(key);
         }
     }
 
@@ -84,27 +198,67 @@ public class ServiceCache {
      */
     public void invalidate(Object key) {
         if (isInitialized() && isEnabled()) {
-            loadingCache.invalidate(key);
+            backend.invalidate(key);
+            if (reloadContexts != null) {
+                reloadContexts.invalidate(key);
+            }
+            ServiceCacheKey cacheKey = getCacheKey(key);
+            if (verdictStore != null && cacheKey != null) {
+                verdictStore.remove(cacheKey);
+            }
         }
     }
 
     /**
-     * Gets data from cache for supplied key. If cache is initialized and enabled
-     * then get the value from cache or else guava cache internally executes the
-     * loader function (API call) to get the data
+     * Gets data from cache for supplied key, which is its own load context
      * @param key   Cache key
      * @return      Cache data
      * @throws CacheException   Thrown in case of any error while getting data from cache
      */
     public Object getData(Object key) throws CacheException {
+        return getData(key, key);
+    }
+
+    /**
+     * Gets data from cache for supplied key. If cache is initialized and enabled
+     * then get the value from cache or else cache backend internally executes the
+     * loader function (API call) with the load context to get the data. Only the key
+     * is retained by the cache entry. Cached failures are reported as exception until they expire
+     * @param key           Cache key
+     * @param loadContext   Context the data is loaded with, e.g. the service worker with the request
+     * @return              Cache data
+     * @throws CacheException   Thrown in case of any error while getting data from cache
+     */
+    public Object getData(Object key, Object loadContext) throws CacheException {
         try {
             if (isInitialized()) {
                 if (isEnabled()) {
                     log.debug("cache {} initialized & enabled, getting data through cache", name);
-                    return loadingCache.get(key);
+                    Object data = backend.get(key, loadContext);
+                    if (data instanceof LoadResult && ((LoadResult) data).isExpired()) {
+                        backend.asMap().remove(key, data);
+                        data = backend.get(key, loadContext);
+                    }
+                    /*Data is cached now, requests for the key no longer need to attach to the load*/
+                    releaseInFlight(key);
+                    if (data == null) {
+                        /*Loader returns no data for load contexts which did not request it, e.g. while circuit breaker is open*/
+                        log.debug("no cache data loaded for key: {}", key);
+                        throw new CacheException("CacheLoader returned null for " + key);
+                    }
+                    if (data instanceof LoadResult) {
+                        LoadResult result = (LoadResult) data;
+                        if (result.getType() == LoadResult.Type.FAILURE) {
+                            log.debug("cache {} serving cached failure for key: {}", name, key);
+                            throw new CacheException("Cached failure for " + key);
+                        }
+                        return result.getValue();
+                    }
+                    return data;
                 } else {
                     log.debug("cache {} initialized but disabled, getting data directly", name);
-                    return loader.apply(key);
+                    Object data = loader.apply(loadContext);
+                    return data instanceof LoadResult ? ((LoadResult) data).getValue() : data;
                 }
             }
             log.error("cache {} not initialized", name);
@@ -112,65 +266,217 @@ public class ServiceCache {
         } catch (ExecutionException e) {
             log.error("error occurred while executing cache loader function for key: {}", key, e);
             return null;
-        } catch (InvalidCacheLoadException e) {
-            log.error("error occurred while fetching cache data for key: {}", key, e);
-            throw new CacheException("CacheLoader returned null for " + key);
         }
     }
 
     /**
-     * Logs cache details
+     * Checks whether data for supplied key is cached, in cache backend or verdict store
+     * @param key   Cache key
+     * @return      True if data is cached
      */
-    public void printCacheSize() {
-        try {
-            if (isInitialized()) {
-                Iterator<Entry<Object, Object>> it = loadingCache.asMap().entrySet().iterator();
-                long cacheSize = 0;
-                StringBuilder keys = new StringBuilder();
-                while (it.hasNext()) {
-                    Entry<Object,Object> entry = it.next();
-                    keys.append(entry.getKey()).append(" ");
-                    String value = entry.getValue().toString();
-                    cacheSize += value.getBytes().length;
+    public boolean isCached(Object key) {
+        if (!isInitialized() || !isEnabled()) {
+            return false;
+        }
+        Object data = backend.asMap().get(key);
+        if (data != null) {
+            return !(data instanceof LoadResult && ((LoadResult) data).isExpired());
+        }
+        ServiceCacheKey cacheKey = getCacheKey(key);
+        return verdictStore != null && cacheKey != null && verdictStore.get(cacheKey) != null;
+    }
+
+    /**
+     * Flushes and closes verdict store
+     */
+    public void close() {
+        if (verdictStore != null) {
+            verdictStore.close();
+        }
+    }
+
+    /**
+     * Registers load in flight for supplied key, unless another load for the same key is already
+     * in flight, so that concurrent cache misses for a key result in a single upstream call. Completed
+     * load stays registered until its data is cached by {@link #getData(Object, Object)}, otherwise a
+     * request in between would neither find the data nor the load. Failed load is removed right away
+     * @param key   Cache key
+     * @param load  Load to register
+     * @return      Load already in flight for the key, or null if supplied load was registered
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> registerInFlight(Object key, CompletableFuture<T> load) {
+        if (!isEnabled()) {
+            return null;
+        }
+        CompletableFuture<T> inFlightLoad = (CompletableFuture<T>) inFlightLoads.asMap().putIfAbsent(key, load);
+        if (inFlightLoad == null) {
+            load.whenComplete((data, e) -> {
+                if (e != null) {
+                    inFlightLoads.asMap().remove(key, load);
                 }
-                float cacheSizeKB = (float) cacheSize / 1000;
-                float cacheSizeMB = (float) cacheSize / 1000000;
-                log.info("### The cache {} contains keys {}", name, keys);
-                log.info(String.format("### The cache %s has %s entries, size is %s KB or %s MB", name, loadingCache.size(), cacheSizeKB, cacheSizeMB));
-            }
-        } catch (Exception e) {
-            log.error("error occurred while calculation cache size", e);
+            });
+        } else {
+            log.debug("cache {} load already in flight for key: {}", name, key);
         }
+        return inFlightLoad;
+    }
 
+    /**
+     * Removes load registered for supplied key once it completed
+     * @param key   Cache key
+     */
+    private void releaseInFlight(Object key) {
+        CompletableFuture<?> inFlightLoad = inFlightLoads.getIfPresent(key);
+        if (inFlightLoad != null && inFlightLoad.isDone()) {
+            inFlightLoads.asMap().remove(key, inFlightLoad);
+        }
+    }
+
+    private void invalidateReloadContexts() {
+        if (reloadContexts != null) {
+            reloadContexts.invalidateAll();
+        }
     }
 
     /**
-     * Builds Guava cache based on supplied parameters
-     * @param loader
-     * @param executor
-     * @return
+     * @return  Approximate number of entries, 0 if cache is not initialized
      */
-    private <K, V> LoadingCache<K, V> buildCache(Function<K, V> loader, final ExecutorService executor) {
-        return CacheBuilder.newBuilder().expireAfterWrite(ttl, TimeUnit.MINUTES).maximumSize(max)
-                .build(new CacheLoader<K, V>() {
-                    @Override
-                    public V load(K key) {
-                        return loader.apply(key);
-                    }
+    public long size() {
+        return isInitialized() ? backend.size() : 0;
+    }
 
-                    @Override
-                    public ListenableFuture<V> reload(K key, V value) {
-                        log.debug("cache {} starting load task...", name);
-                        ListenableFutureTask<V> task = ListenableFutureTask.create(() -> loader.apply(key));
-                        executor.execute(task);
-                        return task;
-                    }
-                });
+    /**
+     * @return  Hit, miss, load and eviction counters of the cache backend, empty if cache is not initialized
+     */
+    public CacheStatistics getStatistics() {
+        return isInitialized() ? backend.stats() : CacheStatistics.EMPTY;
+    }
+
+    /**
+     * @param percentile    Percentile between 1 and 100
+     * @return              Time in milliseconds at supplied percentile of the last loads and reloads
+     */
+    public double getLoadTimePercentile(int percentile) {
+        return loadTimes.getPercentile(percentile);
+    }
+
+    /**
+     * Re-estimates number of entries and heap footprint from a sample of entries. Meant to be
+     * called periodically off the request path, requests only read the last estimate
+     * @param sampleSize    Maximum number of entries to sample
+     * @return              Updated footprint
+     */
+    public CacheFootprint updateFootprint(int sampleSize) {
+        if (isInitialized()) {
+            footprint = CacheFootprint.estimate(backend.size(), backend.asMap().entrySet(), sampleSize);
+        }
+        return footprint;
+    }
+
+    /**
+     * @return  Last estimated footprint, empty until first estimation
+     */
+    public CacheFootprint getFootprint() {
+        return footprint;
+    }
+
+    /**
+     * Wraps loader function so that verdicts are read from verdict store before calling the loader,
+     * loaded data is converted to the form it is cached in and loaded verdicts are written to the store.
+     * Context to reload a cached entry with is kept if entries are reloaded
+     */
+    private BiFunction<Object, Object, Object> getCacheLoader(Function<Object, Object> function) {
+        return (key, loadContext) -> {
+            ServiceCacheKey cacheKey = getCacheKey(key);
+            LoadResult storedVerdict = verdictStore != null && cacheKey != null ? verdictStore.get(cacheKey) : null;
+            Object value;
+            if (storedVerdict != null) {
+                /*Verdict is cached for the rest of its lifetime in the store, not for a fresh ttl*/
+                log.debug("cache {} verdict store hit for key: {}", name, key);
+                value = storedVerdict;
+            } else {
+                value = toCacheValue(key, timedApply(function, loadContext));
+            }
+            if (value != null && reloader != null) {
+                Object reloadContext = reloader.getReloadContext(loadContext);
+                if (reloadContext != null) {
+                    reloadContexts.put(key, reloadContext);
+                }
+            }
+            return value;
+        };
+    }
+
+    /**
+     * Wraps reloader so that it is applied to the context kept for the key. Entries without reload context and
+     * failed reloads return no data, so that the stale value is kept until it expires
+     */
+    private Function<Object, Object> getCacheReloader(CacheReloader cacheReloader) {
+        return key -> {
+            Object reloadContext = reloadContexts.getIfPresent(key);
+            if (reloadContext == null) {
+                log.debug("cache {} has no reload context for key: {}", name, key);
+                return null;
+            }
+            Object data = timedApply(cacheReloader::reload, reloadContext);
+            if (data == null || data instanceof LoadResult && ((LoadResult) data).getType() == LoadResult.Type.FAILURE) {
+                return null;
+            }
+            Object value = toCacheValue(key, data);
+            if (value != null) {
+                /*Reloaded entry is written again, so is its reload context*/
+                reloadContexts.put(key, reloadContext);
+            }
+            return value;
+        };
+    }
+
+    /**
+     * Hits are cached as plain value for the cache ttl, negatives and failures as {@code LoadResult}
+     * expiring after their own ttl. Failures are not cached if failure ttl is 0
+     */
+    private Object toCacheValue(Object key, Object data) {
+        if (!(data instanceof LoadResult)) {
+            writeVerdict(key, data, System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(ttl));
+            return data;
+        }
+        LoadResult result = (LoadResult) data;
+        switch (result.getType()) {
+            case HIT:
+                return toCacheValue(key, result.getValue());
+            case NEGATIVE:
+                long expiresAt = System.currentTimeMillis() + negativeTtl;
+                writeVerdict(key, result.getValue(), expiresAt);
+                return result.getValue() != null ? result.expiringAt(expiresAt) : null;
+            default:
+                return failureTtl > 0 ? result.expiringAt(System.currentTimeMillis() + failureTtl) : null;
+        }
+    }
+
+    private Object timedApply(Function<Object, Object> function, Object input) {
+        long start = System.nanoTime();
+        try {
+            return function.apply(input);
+        } finally {
+            loadTimes.record(System.nanoTime() - start);
+        }
+    }
+
+    private void writeVerdict(Object key, Object data, long expiresAt) {
+        ServiceCacheKey cacheKey = getCacheKey(key);
+        if (verdictStore != null && cacheKey != null && data instanceof Boolean) {
+            verdictStore.put(cacheKey, (Boolean) data, expiresAt);
+        }
+    }
+
+    private static ServiceCacheKey getCacheKey(Object key) {
+        return key instanceof ServiceCacheKey ? (ServiceCacheKey) key : null;
     }
 
     public ConcurrentMap<Object, Object> getCacheMap(){
-        if (loadingCache != null) {
-            return loadingCache.asMap();
+        if (backend != null) {
+            return backend.asMap();
         } else {
             return null;
         }
@@ -0,0 +1,64 @@
+package com.myorg.core.cache;
+
+import com.adobe.granite.jmx.annotation.Description;
+import com.adobe.granite.jmx.annotation.Name;
+
+/**
+ * Statistics and operations of a {@code ServiceCache}, published per registered cache
+ */
+@Description("Service cache statistics")
+public interface ServiceCacheMBean {
+
+    String OBJECT_NAME_PREFIX = "com.myorg.core:type=ServiceCache,name=";
+
+    @Description("Cache name")
+    String getName();
+
+    @Description("Cache backend, GUAVA or CAFFEINE")
+    String getBackend();
+
+    @Description("Whether data is served through the cache")
+    boolean isEnabled();
+
+    @Description("Approximate number of entries")
+    long getSize();
+
+    @Description("Approximate heap footprint of entries in bytes, as of the last periodic estimation")
+    long getEstimatedBytes();
+
+    @Description("Number of lookups which returned a cached value")
+    long getHitCount();
+
+    @Description("Number of lookups which had to load a value")
+    long getMissCount();
+
+    @Description("Ratio of lookups which returned a cached value")
+    double getHitRate();
+
+    @Description("Number of loads which returned a value")
+    long getLoadSuccessCount();
+
+    @Description("Number of loads which failed or returned no value")
+    long getLoadFailureCount();
+
+    @Description("Average load time in milliseconds")
+    double getAverageLoadTime();
+
+    @Description("Median load time in milliseconds of the last loads")
+    double getLoadTime50thPercentile();
+
+    @Description("95th percentile load time in milliseconds of the last loads")
+    double getLoadTime95thPercentile();
+
+    @Description("99th percentile load time in milliseconds of the last loads")
+    double getLoadTime99thPercentile();
+
+    @Description("Number of entries evicted because of size or expiry")
+    long getEvictionCount();
+
+    @Description("Removes all entries, including persisted verdicts")
+    void invalidateAll();
+
+    @Description("Removes entry of an id, e.g. an e-mail address, including its persisted verdict")
+    void invalidate(@Name("id") @Description("Id the entry was cached for") String id);
+}
@@ -0,0 +1,110 @@
+package com.myorg.core.cache;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import com.myorg.core.beans.ServiceCacheKey;
+import com.myorg.core.beans.ServiceRequestType;
+
+import javax.management.NotCompliantMBeanException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ServiceCacheMBean} of a single {@code ServiceCache}. Every attribute is read from the cache
+ * when requested, so that the cache pays nothing for being published
+ */
+class ServiceCacheMBeanImpl extends AnnotatedStandardMBean implements ServiceCacheMBean {
+
+    private final ServiceCache cache;
+
+    ServiceCacheMBeanImpl(ServiceCache cache) throws NotCompliantMBeanException {
+        super(ServiceCacheMBean.class);
+        this.cache = cache;
+    }
+
+    @Override
+    public String getName() {
+        return cache.getName();
+    }
+
+    @Override
+    public String getBackend() {
+        return cache.getBackendType().name();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return cache.isEnabled();
+    }
+
+    @Override
+    public long getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        return cache.getFootprint().getEstimatedBytes();
+    }
+
+    @Override
+    public long getHitCount() {
+        return cache.getStatistics().getHitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.getStatistics().getMissCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        return cache.getStatistics().getHitRate();
+    }
+
+    @Override
+    public long getLoadSuccessCount() {
+        return cache.getStatistics().getLoadSuccessCount();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return cache.getStatistics().getLoadFailureCount();
+    }
+
+    @Override
+    public double getAverageLoadTime() {
+        return cache.getStatistics().getAverageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public double getLoadTime50thPercentile() {
+        return cache.getLoadTimePercentile(50);
+    }
+
+    @Override
+    public double getLoadTime95thPercentile() {
+        return cache.getLoadTimePercentile(95);
+    }
+
+    @Override
+    public double getLoadTime99thPercentile() {
+        return cache.getLoadTimePercentile(99);
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.getStatistics().getEvictionCount();
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void invalidate(String id) {
+        /*Cache keys are hashes of id and request type, type of the cached requests is not known here*/
+        for (ServiceRequestType serviceRequestType : ServiceRequestType.values()) {
+            cache.invalidate(new ServiceCacheKey(id, serviceRequestType));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.myorg.core.cache;
+
+import com.myorg.core.beans.ServiceCacheKey;
+
+/**
+ * {@code VerdictStore} is a storage tier below the heap cache of a {@code ServiceCache} for caches
+ * whose values are boolean verdicts. Entries are identified by hashed cache key and expire at a fixed time
+ */
+public interface VerdictStore {
+
+    /**
+     * Get verdict for supplied key
+     * @param key   Cache key
+     * @return      Verdict as load result which expires together with the stored verdict, or null if not present or expired
+     */
+    LoadResult get(ServiceCacheKey key);
+
+    /**
+     * Store verdict for supplied key, implementations may write it asynchronously
+     * @param key       Cache key
+     * @param verdict   Verdict
+     * @param expiresAt Time in milliseconds since epoch after which verdict is expired
+     */
+    void put(ServiceCacheKey key, boolean verdict, long expiresAt);
+
+    /**
+     * Remove verdict for supplied key
+     * @param key   Cache key
+     */
+    void remove(ServiceCacheKey key);
+
+    /**
+     * Remove all verdicts, store stays usable
+     */
+    void clear();
+
+    /**
+     * Flush pending writes and release resources, stored verdicts are kept
+     */
+    void close();
+}
@@ -17,7 +17,6 @@ public class GenericConstants {
 
     public static final String CACHE_RECAPTCHA_RESPONSE = "recaptcha_response";
 
-    public static final String CACHE_TOKEN_RESPONSE = "token_response";
 
     public static final String ERROR_CODE_INVALID_EMAIL = "INVALID_EMAIL";
 
@@ -25,4 +24,8 @@ public class GenericConstants {
 
     public static final String ERROR_CODE_INVALID_AUTH_HEADER = "INVALID_AUTH_HEADER";
 
+    public static final String ERROR_CODE_SERVICE_UNAVAILABLE = "SERVICE_UNAVAILABLE";
+
+    public static final String ERROR_CODE_TIMEOUT = "TIMEOUT";
+
 }
@@ -0,0 +1,53 @@
+package com.myorg.core.outbox;
+
+import com.myorg.core.beans.RequestDeadline;
+import com.myorg.core.beans.leadgeneration.FormSubmissionResponse;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@code LeadBatcher} accumulates leads of concurrent submissions and sends them to the lead generation API
+ * as a single composite request, completing each submission with the result of its own record
+ */
+public interface LeadBatcher {
+
+    @ObjectClassDefinition(name = "Lead Batcher", description = "Batched submission of leads through composite API")
+    @interface Config {
+
+        @AttributeDefinition(name = "Enabled", description = "Submit leads in batches. Requires composite API end point of lead generation service, "
+                + "leads of a batch are posted one by one otherwise")
+        boolean enabled() default false;
+
+        @AttributeDefinition(name = "Max batch size", description = "Max leads per composite request, sObject collections accept up to 200 records")
+        int maxBatchSize() default 200;
+
+        @AttributeDefinition(name = "Linger time", description = "Time in milliseconds a batch waits for further leads after its first lead before it is sent")
+        long lingerTime() default 50;
+
+        @AttributeDefinition(name = "Queue capacity", description = "Max leads waiting to be batched, further leads are rejected")
+        int queueCapacity() default 2000;
+
+        @AttributeDefinition(name = "Sender threads", description = "Max batches in flight at the same time")
+        int senderThreads() default 2;
+    }
+
+    /**
+     * @return  true if leads are submitted in batches
+     */
+    boolean isEnabled();
+
+    /**
+     * Adds lead to the next batch
+     * @param leadGenerationRequest Lead generation request json
+     * @param token                 Access token
+     * @param deadline              Request deadline, the batch is sent within the earliest deadline of its leads and
+     *                              leads whose deadline has passed before the batch is sent are left out
+     * @return                      Future completed with the response of the lead, or exceptionally with
+     *                              {@link java.util.concurrent.RejectedExecutionException} if the queue is full or the
+     *                              batcher is deactivated. Cancelling it leaves the lead out of its batch, unless the
+     *                              batch was already sent
+     */
+    CompletableFuture<FormSubmissionResponse> submit(String leadGenerationRequest, String token, RequestDeadline deadline);
+}
@@ -0,0 +1,226 @@
+package com.myorg.core.outbox;
+
+import com.myorg.core.beans.RequestDeadline;
+import com.myorg.core.beans.leadgeneration.FormSubmissionResponse;
+import com.myorg.core.services.LeadGenerationService;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.Designate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Leads are collected by a single dispatcher thread. A batch is closed once it is full or the linger time after its
+ * first lead has elapsed, and sent on a sender thread. If all sender threads are busy, the dispatcher sends the batch
+ * itself, so that leads accumulate in the queue and the next batch is larger. Every lead is completed, leads which are
+ * not sent because the batcher is deactivated fail with {@code RejectedExecutionException}
+ */
+@Component(immediate = true, service = LeadBatcher.class)
+@Designate(ocd = LeadBatcher.Config.class)
+public class LeadBatcherImpl implements LeadBatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LeadBatcherImpl.class);
+
+    @Reference
+    private LeadGenerationService leadGenerationService;
+
+    private Config config;
+
+    private int maxBatchSize;
+
+    private BlockingQueue<PendingLead> pendingLeads;
+
+    private ThreadPoolExecutor senderExecutor;
+
+    private Thread dispatcher;
+
+    private volatile boolean running;
+
+    @Activate
+    public void activate(final Config config) {
+        this.config = config;
+        if (!config.enabled()) {
+            return;
+        }
+        maxBatchSize = Math.max(1, config.maxBatchSize());
+        pendingLeads = new ArrayBlockingQueue<>(Math.max(maxBatchSize, config.queueCapacity()));
+        int senderThreads = Math.max(1, config.senderThreads());
+        AtomicInteger threadCount = new AtomicInteger();
+        senderExecutor = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "lead-batch-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, executor) -> {
+            /*Unlike CallerRunsPolicy, batch is not discarded silently once the batcher is deactivated*/
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("lead batcher is deactivated");
+            }
+            runnable.run();
+        });
+        running = true;
+        dispatcher = new Thread(this::dispatch, "lead-batcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        if (senderExecutor != null) {
+            senderExecutor.shutdown();
+        }
+        if (pendingLeads != null) {
+            List<PendingLead> remainingLeads = new ArrayList<>();
+            pendingLeads.drainTo(remainingLeads);
+            reject(remainingLeads);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEnabled() {
+        return config.enabled() && running;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<FormSubmissionResponse> submit(String leadGenerationRequest, String token, RequestDeadline deadline) {
+        PendingLead pendingLead = new PendingLead(leadGenerationRequest, token, deadline);
+        if (!running) {
+            reject(Collections.singletonList(pendingLead));
+        } else if (!pendingLeads.offer(pendingLead)) {
+            LOG.warn("lead batch queue is full, rejecting lead");
+            pendingLead.response.completeExceptionally(new RejectedExecutionException("lead batch queue is full"));
+        } else if (!running && pendingLeads.remove(pendingLead)) {
+            /*Deactivated while the lead was offered, it may have missed the final drain of the queue*/
+            reject(Collections.singletonList(pendingLead));
+        }
+        return pendingLead.response;
+    }
+
+    private void dispatch() {
+        while (running) {
+            List<PendingLead> batch = new ArrayList<>(maxBatchSize);
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                /*Deactivated, leads already taken from the queue are not sent*/
+                reject(batch);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                senderExecutor.execute(() -> send(batch));
+            } catch (RejectedExecutionException e) {
+                batch.forEach(pendingLead -> pendingLead.response.completeExceptionally(e));
+            }
+        }
+    }
+
+    /**
+     * Waits for the first lead of the next batch and collects further leads until batch is full or linger time elapsed
+     * @param batch Batch the leads are added to, holds the leads collected so far if interrupted
+     */
+    private void collect(List<PendingLead> batch) throws InterruptedException {
+        batch.add(pendingLeads.take());
+        long lingerUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.lingerTime());
+        while (batch.size() < maxBatchSize) {
+            pendingLeads.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = lingerUntil - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0) {
+                break;
+            }
+            PendingLead pendingLead = pendingLeads.poll(remaining, TimeUnit.NANOSECONDS);
+            if (pendingLead == null) {
+                break;
+            }
+            batch.add(pendingLead);
+        }
+    }
+
+    private static void reject(List<PendingLead> leads) {
+        leads.forEach(pendingLead -> pendingLead.response.completeExceptionally(new RejectedExecutionException("lead batcher is deactivated")));
+    }
+
+    /**
+     * Sends batch and completes each lead with the response of its record
+     * @param batch Leads
+     */
+    private void send(List<PendingLead> lingeredBatch) {
+        /*Leads whose deadline passed while the batch lingered or which were cancelled are not sent, their submissions have already given up*/
+        List<PendingLead> batch = new ArrayList<>(lingeredBatch.size());
+        for (PendingLead pendingLead : lingeredBatch) {
+            if (pendingLead.response.isCancelled()) {
+                continue;
+            }
+            if (pendingLead.deadline.isExpired()) {
+                pendingLead.response.completeExceptionally(new TimeoutException("lead deadline passed before batch was sent"));
+            } else {
+                batch.add(pendingLead);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        /*Most recent token of the batch is least likely to be expired*/
+        String token = batch.get(batch.size() - 1).token;
+        /*Composite request must return before the earliest lead of the batch gives up*/
+        RequestDeadline deadline = batch.stream().map(pendingLead -> pendingLead.deadline)
+                .min(Comparator.comparingLong(RequestDeadline::remainingMillis)).orElse(RequestDeadline.none());
+        try {
+            List<FormSubmissionResponse> formSubmissionResponses = leadGenerationService.submitLeadGenerations(
+                    batch.stream().map(pendingLead -> pendingLead.leadGenerationRequest).collect(Collectors.toList()), token, deadline);
+            if (formSubmissionResponses.size() != batch.size()) {
+                throw new IllegalStateException("received " + formSubmissionResponses.size() + " responses for batch of " + batch.size() + " leads");
+            }
+            LOG.debug("sent batch of {} leads", batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).response.complete(formSubmissionResponses.get(i));
+            }
+        } catch (RuntimeException e) {
+            LOG.error("error while sending batch of {} leads", batch.size(), e);
+            batch.forEach(pendingLead -> pendingLead.response.completeExceptionally(e));
+        }
+    }
+
+    private static final class PendingLead {
+
+        private final String leadGenerationRequest;
+
+        private final String token;
+
+        private final RequestDeadline deadline;
+
+        private final CompletableFuture<FormSubmissionResponse> response = new CompletableFuture<>();
+
+        private PendingLead(String leadGenerationRequest, String token, RequestDeadline deadline) {
+            this.leadGenerationRequest = leadGenerationRequest;
+            this.token = token;
+            this.deadline = deadline != null ? deadline : RequestDeadline.none();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.myorg.core.outbox;
+
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.io.IOException;
+
+/**
+ * {@code LeadOutbox} accepts validated leads into a write ahead log and delivers them to the lead generation API
+ * in the background, so that a form submission is answered without waiting for the CRM
+ */
+public interface LeadOutbox {
+
+    @ObjectClassDefinition(name = "Lead Outbox", description = "Durable asynchronous submission of leads")
+    @interface Config {
+
+        @AttributeDefinition(name = "Enabled", description = "Answer validated form submissions with 202 and deliver the lead in the background. "
+                + "If disabled, lead is submitted while the form submission waits for it")
+        boolean enabled() default false;
+
+        @AttributeDefinition(name = "Log directory", description = "Directory of the write ahead log, bundle data area is used if empty")
+        String logDirectory() default "";
+
+        @AttributeDefinition(name = "Worker count", description = "Number of threads delivering leads")
+        int workerCount() default 2;
+
+        @AttributeDefinition(name = "Max attempts", description = "Max delivery attempts of a lead before it is moved to the dead letter file")
+        int maxAttempts() default 20;
+
+        @AttributeDefinition(name = "Initial retry delay", description = "Time in seconds the first redelivery of a lead is delayed, doubled for every further attempt")
+        long initialRetryDelay() default 5;
+
+        @AttributeDefinition(name = "Max retry delay", description = "Time in seconds a redelivery is delayed at most")
+        long maxRetryDelay() default 600;
+
+        @AttributeDefinition(name = "Token timeout", description = "Time in milliseconds a delivery waits for the auth token")
+        long tokenTimeout() default 10000;
+    }
+
+    /**
+     * @return  true if leads are delivered through the outbox
+     */
+    boolean isEnabled();
+
+    /**
+     * Appends lead to the write ahead log and schedules its delivery. Lead is durable once this method returns
+     * @param leadGenerationRequest Lead generation request json
+     * @return                      Submission id the lead can be traced by
+     * @throws IOException          Thrown if lead could not be written to the log, lead is not accepted in that case
+     */
+    String submit(String leadGenerationRequest) throws IOException;
+
+    /**
+     * @return  Number of accepted leads which are not yet delivered
+     */
+    int getPendingCount();
+}
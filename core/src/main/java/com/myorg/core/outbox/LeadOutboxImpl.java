@@ -0,0 +1,236 @@
+package com.myorg.core.outbox;
+
+import com.myorg.core.beans.RequestDeadline;
+import com.myorg.core.beans.leadgeneration.FormSubmissionResponse;
+import com.myorg.core.services.LeadGenerationService;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpStatus;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.Designate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers leads of the write ahead log on a pool of worker threads. Delivery is at least once, a lead whose
+ * delivery was interrupted by a restart before it was marked as delivered is delivered again
+ */
+@Component(immediate = true, service = LeadOutbox.class)
+@Designate(ocd = LeadOutbox.Config.class)
+public class LeadOutboxImpl implements LeadOutbox {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LeadOutboxImpl.class);
+
+    private static final String LOG_FILE = "lead-outbox.log";
+
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    @Reference
+    private LeadGenerationService leadGenerationService;
+
+    @Reference
+    private LeadBatcher leadBatcher;
+
+    private Config config;
+
+    private WriteAheadLog writeAheadLog;
+
+    private ScheduledThreadPoolExecutor deliveryExecutor;
+
+    @Activate
+    public void activate(final Config config, final BundleContext bundleContext) throws IOException {
+        this.config = config;
+        if (!config.enabled()) {
+            return;
+        }
+        Path logDirectory;
+        if (StringUtils.isNotBlank(config.logDirectory())) {
+            logDirectory = Paths.get(config.logDirectory().trim());
+        } else {
+            File dataFile = bundleContext.getDataFile("lead-outbox");
+            if (dataFile == null) {
+                throw new IOException("bundle data area is not available, lead outbox requires a log directory");
+            }
+            logDirectory = dataFile.toPath();
+        }
+        writeAheadLog = new WriteAheadLog(logDirectory.resolve(LOG_FILE));
+        List<WriteAheadLog.Entry> pendingEntries = writeAheadLog.open();
+        AtomicInteger threadCount = new AtomicInteger();
+        deliveryExecutor = new ScheduledThreadPoolExecutor(Math.max(1, config.workerCount()), runnable -> {
+            Thread thread = new Thread(runnable, "lead-outbox-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!pendingEntries.isEmpty()) {
+            LOG.info("redelivering {} pending leads of {}", pendingEntries.size(), logDirectory);
+        }
+        pendingEntries.forEach(entry -> schedule(entry, 1, 0));
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (deliveryExecutor != null) {
+            /*Leads in flight remain pending in the log and are delivered again on next activation*/
+            deliveryExecutor.shutdownNow();
+        }
+        if (writeAheadLog != null) {
+            try {
+                writeAheadLog.close();
+            } catch (IOException e) {
+                LOG.error("error while closing lead outbox log", e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEnabled() {
+        return config.enabled() && writeAheadLog != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String submit(String leadGenerationRequest) throws IOException {
+        if (!isEnabled()) {
+            throw new IOException("lead outbox is disabled");
+        }
+        WriteAheadLog.Entry entry = new WriteAheadLog.Entry(UUID.randomUUID().toString(), leadGenerationRequest, System.currentTimeMillis());
+        writeAheadLog.append(entry);
+        schedule(entry, 1, 0);
+        return entry.getId();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPendingCount() {
+        return writeAheadLog != null ? writeAheadLog.getPendingCount() : 0;
+    }
+
+    private void schedule(WriteAheadLog.Entry entry, int attempt, long delay) {
+        try {
+            deliveryExecutor.schedule(() -> deliver(entry, attempt), delay, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            /*Outbox is deactivated, lead remains pending in the log*/
+            LOG.debug("lead {} not scheduled, outbox is deactivated", entry.getId());
+        }
+    }
+
+    /**
+     * Delivers lead, through the lead batcher if it is enabled. Delivery is not bound to a client request, hence
+     * each attempt is only bounded by the service timeout
+     * @param entry     Lead
+     * @param attempt   Delivery attempt starting at 1
+     */
+    private void deliver(WriteAheadLog.Entry entry, int attempt) {
+        FormSubmissionResponse formSubmissionResponse;
+        try {
+            String token = getToken();
+            if (StringUtils.isEmpty(token)) {
+                formSubmissionResponse = null;
+            } else if (leadBatcher.isEnabled()) {
+                /*Outcome is recorded on the sender thread of the batch, worker threads must not wait for it as they would limit the batch size*/
+                leadBatcher.submit(entry.getPayload(), token, RequestDeadline.none()).whenComplete((response, e) -> onDelivery(entry, attempt, response, e));
+                return;
+            } else {
+                formSubmissionResponse = leadGenerationService.submitLeadGeneration(entry.getPayload(), token, RequestDeadline.none());
+            }
+        } catch (RuntimeException e) {
+            /*Scheduled executor would swallow the exception and leave the lead pending until next activation*/
+            LOG.warn("delivery of lead {} failed on attempt {}", entry.getId(), attempt, e);
+            onDelivery(entry, attempt, null, e);
+            return;
+        }
+        onDelivery(entry, attempt, formSubmissionResponse, null);
+    }
+
+    /**
+     * Records the outcome of a delivery in the log. Transient failures are retried with exponential backoff,
+     * leads rejected by the API or exceeding max attempts are moved to the dead letter file
+     * @param entry                     Lead
+     * @param attempt                   Delivery attempt starting at 1
+     * @param formSubmissionResponse    Lead generation response, null if there was no token or delivery failed
+     * @param failure                   Exception delivery failed with, e.g. because batch queue was full or the service threw
+     */
+    private void onDelivery(WriteAheadLog.Entry entry, int attempt, FormSubmissionResponse formSubmissionResponse, Throwable failure) {
+        int statusCode;
+        if (failure != null) {
+            statusCode = HttpStatus.SC_SERVICE_UNAVAILABLE;
+        } else if (formSubmissionResponse == null) {
+            statusCode = HttpStatus.SC_UNAUTHORIZED;
+        } else if (formSubmissionResponse.isSuccess()) {
+            LOG.info("lead {} delivered on attempt {}", entry.getId(), attempt);
+            record(entry, true);
+            return;
+        } else {
+            statusCode = formSubmissionResponse.getStatusCode();
+        }
+        if (isRetryable(statusCode) && attempt < config.maxAttempts()) {
+            long delay = getRetryDelay(attempt);
+            LOG.warn("delivery of lead {} failed with status {} on attempt {}, retrying in {} s", entry.getId(), statusCode, attempt, delay);
+            schedule(entry, attempt + 1, delay);
+        } else {
+            LOG.error("lead {} could not be delivered, status {} on attempt {}, moving it to dead letter file", entry.getId(), statusCode, attempt);
+            record(entry, false);
+        }
+    }
+
+    private void record(WriteAheadLog.Entry entry, boolean delivered) {
+        try {
+            if (delivered) {
+                writeAheadLog.markDelivered(entry.getId());
+            } else {
+                writeAheadLog.markDead(entry.getId());
+            }
+        } catch (IOException e) {
+            /*Lead remains pending and is delivered again after a restart*/
+            LOG.error("error while recording outcome of lead {}", entry.getId(), e);
+        }
+    }
+
+    private String getToken() {
+        try {
+            return leadGenerationService.getServiceDataAsync(leadGenerationService.getServiceWorker(Collections.emptyMap()))
+                    .get(config.tokenTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            LOG.warn("unable to get auth token for lead delivery", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return  true if delivery failed for a reason which may not persist, e.g. unavailable API or expired token
+     */
+    private static boolean isRetryable(int statusCode) {
+        return statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR || statusCode == HttpStatus.SC_UNAUTHORIZED
+                || statusCode == HttpStatus.SC_REQUEST_TIMEOUT || statusCode == SC_TOO_MANY_REQUESTS;
+    }
+
+    private long getRetryDelay(int attempt) {
+        long initialRetryDelay = Math.max(1, config.initialRetryDelay());
+        return Math.min(initialRetryDelay << Math.min(attempt - 1, 20), Math.max(initialRetryDelay, config.maxRetryDelay()));
+    }
+}
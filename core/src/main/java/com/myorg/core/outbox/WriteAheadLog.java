@@ -0,0 +1,330 @@
+package com.myorg.core.outbox;
+
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log of submitted leads. A lead is durable once {@link #append(Entry)} returns, as the record is forced
+ * to disk. Delivered and dead leads are marked by further records, leads without such a record are pending and are
+ * returned on {@link #open()} after a restart. Each record carries a checksum, a record torn by a crash while it was
+ * written is discarded. Log is compacted to the pending leads on open and once enough leads were completed.
+ * Leads which could not be delivered are moved to a dead letter file next to the log, one json object per line with
+ * submission id, submission time and the lead generation request as payload, so that they can be replayed manually
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final byte SUBMITTED = 1;
+
+    private static final byte DELIVERED = 2;
+
+    private static final byte DEAD = 3;
+
+    /*Record length, type, submission time, id length and payload length*/
+    private static final int HEADER_SIZE = 4 + 1 + 8 + 4 + 4;
+
+    private static final int CHECKSUM_SIZE = 8;
+
+    /*Max size of a single record, larger lengths can only be read from a corrupt log*/
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    /*Log is compacted once this many leads were completed since last compaction*/
+    private static final int COMPACTION_THRESHOLD = 1000;
+
+    private final Path file;
+
+    private final Path deadLetterFile;
+
+    private final Map<String, Entry> pending = new LinkedHashMap<>();
+
+    private FileChannel channel;
+
+    private int completedSinceCompaction;
+
+    /**
+     * @param file  Log file, created if it does not exist
+     */
+    public WriteAheadLog(Path file) {
+        this.file = file;
+        this.deadLetterFile = file.resolveSibling(file.getFileName() + ".dead");
+    }
+
+    /**
+     * Replays the log and opens it for appending
+     * @return  Pending leads in the order they were submitted
+     * @throws IOException  Thrown if log could not be read or written
+     */
+    public synchronized List<Entry> open() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        if (Files.exists(file)) {
+            replay();
+        }
+        compact();
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Appends submitted lead and forces it to disk
+     * @param entry         Lead
+     * @throws IOException  Thrown if lead could not be written, lead is not accepted in that case
+     */
+    public synchronized void append(Entry entry) throws IOException {
+        write(SUBMITTED, entry);
+        channel.force(false);
+        pending.put(entry.getId(), entry);
+    }
+
+    /**
+     * Marks lead as delivered, so that it is not delivered again after a restart
+     * @param id    Submission id
+     */
+    public synchronized void markDelivered(String id) throws IOException {
+        Entry entry = pending.remove(id);
+        if (entry != null) {
+            write(DELIVERED, entry);
+            complete();
+        }
+    }
+
+    /**
+     * Moves lead which could not be delivered to dead letter file
+     * @param id    Submission id
+     */
+    public synchronized void markDead(String id) throws IOException {
+        Entry entry = pending.get(id);
+        if (entry == null) {
+            return;
+        }
+        try (FileChannel deadLetterChannel = FileChannel.open(deadLetterFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer deadLetter = encodeDeadLetter(entry);
+            while (deadLetter.hasRemaining()) {
+                deadLetterChannel.write(deadLetter);
+            }
+            deadLetterChannel.force(false);
+        }
+        pending.remove(id);
+        write(DEAD, entry);
+        complete();
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void replay() throws IOException {
+        try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+            long position = 0;
+            while (true) {
+                lengthBuffer.clear();
+                if (readFully(readChannel, lengthBuffer, position) < 4) {
+                    break;
+                }
+                int length = lengthBuffer.getInt(0);
+                if (length < HEADER_SIZE + CHECKSUM_SIZE || length > MAX_RECORD_SIZE) {
+                    LOG.warn("corrupt record at {} in {}, discarding remainder of the log", position, file);
+                    break;
+                }
+                ByteBuffer record = ByteBuffer.allocate(length);
+                if (readFully(readChannel, record, position) < length) {
+                    LOG.warn("torn record at {} in {}, discarding remainder of the log", position, file);
+                    break;
+                }
+                if (!apply(record)) {
+                    /*Length is intact, so the records written after it can still be read. A skipped delivered
+                    or dead record only causes the lead to be delivered again*/
+                    LOG.warn("torn record at {} in {}, skipping it", position, file);
+                }
+                position += length;
+            }
+        }
+    }
+
+    /**
+     * Applies record read from the log
+     * @return  false if checksum of the record does not match
+     */
+    private boolean apply(ByteBuffer record) {
+        int length = record.getInt(0);
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), 0, length - CHECKSUM_SIZE);
+        if (checksum.getValue() != record.getLong(length - CHECKSUM_SIZE)) {
+            return false;
+        }
+        record.position(4);
+        byte type = record.get();
+        long submittedAt = record.getLong();
+        byte[] id = new byte[record.getInt()];
+        record.get(id);
+        byte[] payload = new byte[record.getInt()];
+        record.get(payload);
+        String submissionId = new String(id, StandardCharsets.UTF_8);
+        if (type == SUBMITTED) {
+            pending.put(submissionId, new Entry(submissionId, new String(payload, StandardCharsets.UTF_8), submittedAt));
+        } else {
+            pending.remove(submissionId);
+        }
+        return true;
+    }
+
+    /**
+     * Rewrites log with pending leads only and replaces the current log atomically. If compaction fails,
+     * the current log stays open and is appended to until the next compaction
+     */
+    private void compact() throws IOException {
+        Path compactedFile = file.resolveSibling(file.getFileName() + ".compact");
+        try (FileChannel compactedChannel = FileChannel.open(compactedFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Entry entry : pending.values()) {
+                ByteBuffer record = encode(SUBMITTED, entry);
+                while (record.hasRemaining()) {
+                    compactedChannel.write(record);
+                }
+            }
+            compactedChannel.force(true);
+        }
+        /*Channel is only swapped once the compacted log is complete*/
+        close();
+        try {
+            Files.move(compactedFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            /*Current log is reopened if it could not be replaced, it is created if the log is opened for the first time*/
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        completedSinceCompaction = 0;
+    }
+
+    private void complete() throws IOException {
+        if (++completedSinceCompaction >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    private void write(byte type, Entry entry) throws IOException {
+        if (channel == null) {
+            throw new IOException("write ahead log " + file + " is not open");
+        }
+        ByteBuffer record = encode(type, entry);
+        long size = channel.size();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            /*Partial record must not remain in front of records appended later*/
+            try {
+                channel.truncate(size);
+            } catch (IOException truncateException) {
+                e.addSuppressed(truncateException);
+                LOG.error("unable to remove partial record from {}, closing the log", file);
+                channel.close();
+                channel = null;
+            }
+            throw e;
+        }
+    }
+
+    private static ByteBuffer encode(byte type, Entry entry) {
+        byte[] id = entry.getId().getBytes(StandardCharsets.UTF_8);
+        /*Only submitted records need the payload, dead leads are kept in the dead letter file*/
+        byte[] payload = type == SUBMITTED ? entry.getPayload().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = HEADER_SIZE + id.length + payload.length + CHECKSUM_SIZE;
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(length).put(type).putLong(entry.getSubmittedAt())
+                .putInt(id.length).put(id)
+                .putInt(payload.length).put(payload);
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), 0, length - CHECKSUM_SIZE);
+        record.putLong(checksum.getValue());
+        record.flip();
+        return record;
+    }
+
+    private static ByteBuffer encodeDeadLetter(Entry entry) throws IOException {
+        StringWriter deadLetter = new StringWriter();
+        try (JsonWriter jsonWriter = new JsonWriter(deadLetter)) {
+            jsonWriter.beginObject()
+                    .name("id").value(entry.getId())
+                    .name("submittedAt").value(entry.getSubmittedAt())
+                    .name("payload").value(entry.getPayload())
+                    .endObject();
+        }
+        deadLetter.write('\n');
+        return ByteBuffer.wrap(deadLetter.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int readFully(FileChannel readChannel, ByteBuffer buffer, long position) throws IOException {
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            int count = readChannel.read(buffer, position + read);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        return read;
+    }
+
+    /**
+     * Lead submitted to the outbox
+     */
+    public static final class Entry {
+
+        private final String id;
+
+        private final String payload;
+
+        private final long submittedAt;
+
+        /**
+         * @param id            Submission id
+         * @param payload       Lead generation request json
+         * @param submittedAt   Time in milliseconds since epoch lead was submitted at
+         */
+        public Entry(String id, String payload, long submittedAt) {
+            this.id = id;
+            this.payload = payload;
+            this.submittedAt = submittedAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+
+        public long getSubmittedAt() {
+            return submittedAt;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.ServiceRequestType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker of a single upstream service. Outcomes of the last calls are kept in a rolling window,
+ * once failure rate or slow call rate exceed their threshold the breaker opens and calls are not permitted
+ * until the open duration elapsed. A limited number of probe calls is then permitted, breaker closes if
+ * all of them succeed and opens again otherwise
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final byte FAILED = 1;
+
+    private static final byte SLOW = 2;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final ServiceRequestType serviceRequestType;
+
+    private final int failureRateThreshold;
+
+    private final int slowCallRateThreshold;
+
+    private final long slowCallDuration;
+
+    private final int minimumCalls;
+
+    private final long openDuration;
+
+    private final int halfOpenProbes;
+
+    /*Ring buffer of outcomes of the last calls, each outcome is a combination of FAILED and SLOW*/
+    private final byte[] outcomes;
+
+    private int index;
+
+    private int recordedCalls;
+
+    private int failedCalls;
+
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+
+    private long stateChangedAt;
+
+    private int permittedProbes;
+
+    private int succeededProbes;
+
+    /**
+     * @param serviceRequestType    Service guarded by this breaker
+     * @param config                Circuit breaker configuration
+     */
+    public CircuitBreaker(ServiceRequestType serviceRequestType, CircuitBreakerRegistry.Config config) {
+        this.serviceRequestType = serviceRequestType;
+        this.failureRateThreshold = config.failureRateThreshold();
+        this.slowCallRateThreshold = config.slowCallRateThreshold();
+        this.slowCallDuration = config.slowCallDuration();
+        this.minimumCalls = Math.max(1, Math.min(config.minimumCalls(), config.windowSize()));
+        this.openDuration = TimeUnit.SECONDS.toMillis(config.openDuration());
+        this.halfOpenProbes = Math.max(1, config.halfOpenProbes());
+        this.outcomes = new byte[Math.max(1, config.windowSize())];
+    }
+
+    public ServiceRequestType getServiceRequestType() {
+        return serviceRequestType;
+    }
+
+    /**
+     * @return  Current state, open breaker is reported half open once open duration elapsed
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() - stateChangedAt >= openDuration) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Checks whether a call is permitted. Every permitted call must be monitored, so that its
+     * outcome is recorded
+     * @return  True if call is permitted
+     */
+    public synchronized boolean tryAcquirePermission() {
+        long now = System.currentTimeMillis();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - stateChangedAt < openDuration) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN, now);
+                break;
+            default:
+                if (now - stateChangedAt >= openDuration + slowCallDuration) {
+                    /*Probes which never reported an outcome must not keep the breaker half open forever*/
+                    transitionTo(State.HALF_OPEN, now);
+                }
+        }
+        if (permittedProbes < halfOpenProbes) {
+            permittedProbes++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records outcome of supplied call once it completes. Calls cancelled before they became slow were
+     * cancelled by the caller e.g. because the submission was already rejected, they are not recorded
+     * @param call  Call which was permitted
+     */
+    public void monitor(CompletableFuture<?> call) {
+        long start = System.currentTimeMillis();
+        call.whenComplete((response, e) -> {
+            long duration = System.currentTimeMillis() - start;
+            if (call.isCancelled() && duration < slowCallDuration) {
+                release();
+            } else {
+                record(e != null, duration >= slowCallDuration);
+            }
+        });
+    }
+
+    synchronized void record(boolean failed, boolean slow) {
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                transitionTo(State.OPEN, System.currentTimeMillis());
+            } else if (++succeededProbes >= halfOpenProbes) {
+                transitionTo(State.CLOSED, System.currentTimeMillis());
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+        if (recordedCalls == outcomes.length) {
+            failedCalls -= outcomes[index] & FAILED;
+            slowCalls -= (outcomes[index] & SLOW) >> 1;
+        } else {
+            recordedCalls++;
+        }
+        outcomes[index] = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        failedCalls += failed ? 1 : 0;
+        slowCalls += slow ? 1 : 0;
+        index = (index + 1) % outcomes.length;
+        if (recordedCalls >= minimumCalls && (failedCalls * 100 >= failureRateThreshold * recordedCalls
+                || slowCalls * 100 >= slowCallRateThreshold * recordedCalls)) {
+            LOG.warn("{} circuit breaker opened, {} failed and {} slow out of {} calls", serviceRequestType.getName(),
+                    failedCalls, slowCalls, recordedCalls);
+            transitionTo(State.OPEN, System.currentTimeMillis());
+        }
+    }
+
+    private synchronized void release() {
+        if (state == State.HALF_OPEN && permittedProbes > succeededProbes) {
+            permittedProbes--;
+        }
+    }
+
+    private void transitionTo(State newState, long now) {
+        if (newState != state) {
+            LOG.info("{} circuit breaker {} -> {}", serviceRequestType.getName(), state, newState);
+        }
+        state = newState;
+        stateChangedAt = now;
+        permittedProbes = 0;
+        succeededProbes = 0;
+        if (newState == State.CLOSED) {
+            index = 0;
+            recordedCalls = 0;
+            failedCalls = 0;
+            slowCalls = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{" +
+                "serviceRequestType=" + serviceRequestType +
+                ", state=" + getState() +
+                '}';
+    }
+}
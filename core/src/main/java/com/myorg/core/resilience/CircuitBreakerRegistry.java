@@ -0,0 +1,57 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.ServiceRequestType;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.util.Map;
+
+/**
+ * {@code CircuitBreakerRegistry} holds a {@code CircuitBreaker} per {@code ServiceRequestType} along
+ * with the verdict services answer with while their breaker is open or their call failed
+ */
+public interface CircuitBreakerRegistry {
+
+    @ObjectClassDefinition(name = "Circuit Breaker Registry", description = "Circuit breakers of third party services")
+    @interface Config {
+
+        @AttributeDefinition(name = "Window size", description = "Number of most recent calls failure rate and slow call rate are calculated over")
+        int windowSize() default 20;
+
+        @AttributeDefinition(name = "Minimum calls", description = "Minimum number of calls in the window before breaker may open")
+        int minimumCalls() default 10;
+
+        @AttributeDefinition(name = "Failure rate threshold", description = "Breaker opens once this percentage of calls failed")
+        int failureRateThreshold() default 50;
+
+        @AttributeDefinition(name = "Slow call rate threshold", description = "Breaker opens once this percentage of calls was slow")
+        int slowCallRateThreshold() default 80;
+
+        @AttributeDefinition(name = "Slow call duration", description = "Time in milliseconds after which a call is considered slow")
+        long slowCallDuration() default 2000;
+
+        @AttributeDefinition(name = "Open duration", description = "Time in seconds breaker stays open before probe calls are permitted")
+        long openDuration() default 30;
+
+        @AttributeDefinition(name = "Half open probes", description = "Number of probe calls which must succeed to close the breaker")
+        int halfOpenProbes() default 3;
+
+        @AttributeDefinition(name = "Fallback verdicts", description = "Verdict per service used while its breaker is open, in the format ZEROBOUNCE=true")
+        String [] fallbackVerdicts() default {"ZEROBOUNCE=true", "RECAPTCHA=false"};
+    }
+
+    /**
+     * Get circuit breaker of supplied service
+     */
+    CircuitBreaker getCircuitBreaker(ServiceRequestType serviceRequestType);
+
+    /**
+     * Get verdict to use for supplied service instead of a service response
+     */
+    boolean getFallbackVerdict(ServiceRequestType serviceRequestType);
+
+    /**
+     * Get current state of all circuit breakers
+     */
+    Map<ServiceRequestType, CircuitBreaker.State> getStates();
+}
@@ -0,0 +1,53 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.ServiceRequestType;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.metatype.annotations.Designate;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Component(immediate = true, service = CircuitBreakerRegistry.class)
+@Designate(ocd = CircuitBreakerRegistry.Config.class)
+public class CircuitBreakerRegistryImpl implements CircuitBreakerRegistry {
+
+    private Map<ServiceRequestType, CircuitBreaker> circuitBreakers;
+
+    private Map<ServiceRequestType, Boolean> fallbackVerdicts;
+
+    @Activate
+    public void activate(final Config config) {
+        circuitBreakers = new EnumMap<>(ServiceRequestType.class);
+        for (ServiceRequestType serviceRequestType : ServiceRequestType.values()) {
+            circuitBreakers.put(serviceRequestType, new CircuitBreaker(serviceRequestType, config));
+        }
+        fallbackVerdicts = ServiceRequestTypes.parseOverrides(config.fallbackVerdicts(), Boolean::valueOf, "fallback verdict mapping");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CircuitBreaker getCircuitBreaker(ServiceRequestType serviceRequestType) {
+        return circuitBreakers.get(serviceRequestType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean getFallbackVerdict(ServiceRequestType serviceRequestType) {
+        return fallbackVerdicts.getOrDefault(serviceRequestType, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<ServiceRequestType, CircuitBreaker.State> getStates() {
+        Map<ServiceRequestType, CircuitBreaker.State> states = new EnumMap<>(ServiceRequestType.class);
+        circuitBreakers.forEach((serviceRequestType, circuitBreaker) -> states.put(serviceRequestType, circuitBreaker.getState()));
+        return states;
+    }
+}
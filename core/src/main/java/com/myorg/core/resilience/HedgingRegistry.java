@@ -0,0 +1,37 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.ServiceRequestType;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * {@code HedgingRegistry} holds a {@code RequestHedger} per {@code ServiceRequestType} hedging is enabled for
+ */
+public interface HedgingRegistry {
+
+    @ObjectClassDefinition(name = "Hedging Registry", description = "Hedged requests of third party services")
+    @interface Config {
+
+        @AttributeDefinition(name = "Hedged services", description = "Services whose idempotent requests are hedged e.g. RECAPTCHA. "
+                + "Note that a recaptcha token verifies only once, a duplicate verification is answered with timeout-or-duplicate")
+        String [] hedgedServices() default {};
+
+        @AttributeDefinition(name = "Hedge delay percentile", description = "Hedge is sent once the request is outstanding for longer than this percentile of recent latencies")
+        int hedgeDelayPercentile() default 95;
+
+        @AttributeDefinition(name = "Minimum hedge delay", description = "Time in milliseconds a request is outstanding at least before it is hedged")
+        long minimumHedgeDelay() default 50;
+
+        @AttributeDefinition(name = "Latency samples", description = "Number of most recent latencies the hedge delay is calculated over")
+        int latencySamples() default 256;
+
+        @AttributeDefinition(name = "Hedge budget", description = "Max hedges in percent of requests")
+        int hedgeBudget() default 5;
+    }
+
+    /**
+     * Get request hedger of supplied service
+     * @return  Request hedger, or null if hedging is not enabled for the service
+     */
+    RequestHedger getRequestHedger(ServiceRequestType serviceRequestType);
+}
@@ -0,0 +1,60 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.ServiceRequestType;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.Designate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+@Component(immediate = true, service = HedgingRegistry.class)
+@Designate(ocd = HedgingRegistry.Config.class)
+public class HedgingRegistryImpl implements HedgingRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HedgingRegistryImpl.class);
+
+    private Map<ServiceRequestType, RequestHedger> requestHedgers;
+
+    private ScheduledExecutorService hedgeScheduler;
+
+    @Activate
+    public void activate(final Config config) {
+        /*Scheduler only dispatches hedges to the non blocking client, a single thread is sufficient*/
+        hedgeScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "request-hedger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        requestHedgers = new EnumMap<>(ServiceRequestType.class);
+        for (String hedgedService : Optional.ofNullable(config.hedgedServices()).orElse(new String[0])) {
+            try {
+                ServiceRequestType serviceRequestType = ServiceRequestTypes.valueOf(hedgedService);
+                requestHedgers.put(serviceRequestType, new RequestHedger(serviceRequestType, config, hedgeScheduler));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("invalid hedged service {}", hedgedService);
+            }
+        }
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (hedgeScheduler != null) {
+            hedgeScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RequestHedger getRequestHedger(ServiceRequestType serviceRequestType) {
+        return requestHedgers.get(serviceRequestType);
+    }
+}
@@ -0,0 +1,129 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.ServiceRequestType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when a request of a single upstream service is hedged. Latencies of the last successful requests
+ * are kept in a ring buffer, a request still outstanding after the configured percentile of them is hedged
+ * with an identical request. Every request earns a fraction of a hedge credit and every hedge spends one,
+ * so hedges never exceed the configured share of requests
+ */
+public class RequestHedger {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequestHedger.class);
+
+    /*Max hedge credits which can be saved up, limits hedges sent in a burst*/
+    private static final double MAX_HEDGE_CREDITS = 10;
+
+    /*Hedge delay is recalculated after this many latencies were recorded*/
+    private static final int RECALCULATION_INTERVAL = 16;
+
+    private final ServiceRequestType serviceRequestType;
+
+    private final int hedgeDelayPercentile;
+
+    private final long minimumHedgeDelay;
+
+    private final double creditPerRequest;
+
+    private final ScheduledExecutorService hedgeScheduler;
+
+    /*Ring buffer of latencies in milliseconds of the last successful requests*/
+    private final long[] latencies;
+
+    private final int minimumSamples;
+
+    private int index;
+
+    private int recordedLatencies;
+
+    private double hedgeCredits;
+
+    /*Hedge delay in milliseconds, negative until enough latencies were recorded*/
+    private volatile long hedgeDelay = -1;
+
+    /**
+     * @param serviceRequestType    Service whose requests are hedged
+     * @param config                Hedging configuration
+     * @param hedgeScheduler        Scheduler hedges are dispatched on
+     */
+    public RequestHedger(ServiceRequestType serviceRequestType, HedgingRegistry.Config config, ScheduledExecutorService hedgeScheduler) {
+        this.serviceRequestType = serviceRequestType;
+        this.hedgeDelayPercentile = Math.max(1, Math.min(config.hedgeDelayPercentile(), 100));
+        this.minimumHedgeDelay = Math.max(1, config.minimumHedgeDelay());
+        this.creditPerRequest = Math.max(0, config.hedgeBudget()) / 100d;
+        this.hedgeScheduler = hedgeScheduler;
+        this.latencies = new long[Math.max(RECALCULATION_INTERVAL, config.latencySamples())];
+        this.minimumSamples = Math.min(latencies.length, 2 * RECALCULATION_INTERVAL);
+    }
+
+    public ServiceRequestType getServiceRequestType() {
+        return serviceRequestType;
+    }
+
+    /**
+     * @return  Time in milliseconds after which an outstanding request is hedged, negative if requests are not yet hedged
+     */
+    public long getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    /**
+     * Earns hedge credit for a dispatched request and schedules its hedge. Hedge is skipped if the request
+     * completed in the meantime or hedge budget is exhausted
+     * @param hedge     Dispatches the hedge, must only be run if request is still outstanding
+     * @return          Scheduled hedge to cancel once request completes, or null if request is not hedged
+     */
+    public ScheduledFuture<?> scheduleHedge(Runnable hedge) {
+        synchronized (this) {
+            hedgeCredits = Math.min(MAX_HEDGE_CREDITS, hedgeCredits + creditPerRequest);
+        }
+        long delay = hedgeDelay;
+        if (delay < 0) {
+            return null;
+        }
+        try {
+            return hedgeScheduler.schedule(() -> {
+                if (tryAcquireHedge()) {
+                    LOG.debug("hedging {} request outstanding for {} ms", serviceRequestType, delay);
+                    hedge.run();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            /*Registry is deactivated, request is simply not hedged*/
+            return null;
+        }
+    }
+
+    /**
+     * Records latency of a successful request
+     * @param latency   Time in milliseconds the request took
+     */
+    public synchronized void recordLatency(long latency) {
+        latencies[index] = latency;
+        index = (index + 1) % latencies.length;
+        recordedLatencies = Math.min(recordedLatencies + 1, latencies.length);
+        if (recordedLatencies >= minimumSamples && index % RECALCULATION_INTERVAL == 0) {
+            long[] sortedLatencies = Arrays.copyOf(latencies, recordedLatencies);
+            Arrays.sort(sortedLatencies);
+            int percentileIndex = (int) Math.ceil(hedgeDelayPercentile / 100d * recordedLatencies) - 1;
+            hedgeDelay = Math.max(minimumHedgeDelay, sortedLatencies[Math.max(0, percentileIndex)]);
+        }
+    }
+
+    synchronized boolean tryAcquireHedge() {
+        if (hedgeCredits < 1) {
+            return false;
+        }
+        hedgeCredits -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,41 @@
+package com.myorg.core.resilience;
+
+/**
+ * Token bucket shared by all retry policies. Every request deposits a fraction of a token and every
+ * retry withdraws a whole one, so retries never exceed the configured share of requests and stop
+ * altogether once an outage drained the bucket, instead of multiplying load on the failing service
+ */
+public class RetryBudget {
+
+    private final double tokensPerRequest;
+
+    private final double capacity;
+
+    private double tokens;
+
+    /**
+     * @param retryRatio    Max retries in percent of requests
+     * @param capacity      Max tokens which can be saved up, bucket starts full
+     */
+    public RetryBudget(int retryRatio, int capacity) {
+        this.tokensPerRequest = Math.max(0, retryRatio) / 100d;
+        this.capacity = Math.max(0, capacity);
+        this.tokens = this.capacity;
+    }
+
+    public synchronized void onRequest() {
+        tokens = Math.min(capacity, tokens + tokensPerRequest);
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
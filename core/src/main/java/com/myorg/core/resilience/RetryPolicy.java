@@ -0,0 +1,207 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.RequestDeadline;
+import com.myorg.core.beans.ServiceRequestType;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpOptions;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether a failed request of a single upstream service is retried and how long the retry is delayed.
+ * Requests which never reached the service are always retried, other failures only if the request is idempotent.
+ * Retries are delayed by exponential backoff with full jitter, or by Retry-After of the response if present, and
+ * are only permitted while the shared retry budget has tokens left and the request deadline is not exceeded
+ */
+public class RetryPolicy {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RetryPolicy.class);
+
+    /*Returned instead of a delay if the request is not retried*/
+    public static final long NO_RETRY = -1;
+
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private final ServiceRequestType serviceRequestType;
+
+    private final int maxAttempts;
+
+    private final long initialBackoff;
+
+    private final long maxBackoff;
+
+    private final long maxRetryAfter;
+
+    private final Set<Integer> retryableStatusCodes;
+
+    private final RetryBudget retryBudget;
+
+    private final ScheduledExecutorService retryScheduler;
+
+    /**
+     * @param serviceRequestType    Service whose requests are retried
+     * @param maxAttempts           Max attempts including the first one
+     * @param config                Retry configuration
+     * @param retryableStatusCodes  Response status codes which are retried
+     * @param retryBudget           Retry budget shared by all services
+     * @param retryScheduler        Scheduler delayed retries of the non blocking client and the service executor are dispatched on
+     */
+    public RetryPolicy(ServiceRequestType serviceRequestType, int maxAttempts, RetryRegistry.Config config,
+                       Set<Integer> retryableStatusCodes, RetryBudget retryBudget, ScheduledExecutorService retryScheduler) {
+        this.serviceRequestType = serviceRequestType;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = Math.max(1, config.initialBackoff());
+        this.maxBackoff = Math.max(this.initialBackoff, config.maxBackoff());
+        this.maxRetryAfter = config.maxRetryAfter();
+        this.retryableStatusCodes = retryableStatusCodes;
+        this.retryBudget = retryBudget;
+        this.retryScheduler = retryScheduler;
+    }
+
+    public ServiceRequestType getServiceRequestType() {
+        return serviceRequestType;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Deposits the share of a retry token a request earns, must be called once per request and not per attempt
+     */
+    public void onRequest() {
+        retryBudget.onRequest();
+    }
+
+    /**
+     * @param request   Request which failed
+     * @param attempts  Number of attempts made so far
+     * @param response  Response with unexpected status, null if request failed with an exception
+     * @param failure   Exception request failed with, null if a response was received
+     * @param deadline  Request deadline
+     * @return          Time in milliseconds to wait before the request is retried, or {@link #NO_RETRY}
+     */
+    public long getRetryDelay(HttpUriRequest request, int attempts, HttpResponse response, Exception failure, RequestDeadline deadline) {
+        if (attempts >= maxAttempts) {
+            return NO_RETRY;
+        }
+        boolean idempotent = isIdempotent(request);
+        long delay;
+        if (response != null) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (!retryableStatusCodes.contains(statusCode) || (!idempotent && !isRejected(statusCode))) {
+                return NO_RETRY;
+            }
+            long retryAfter = getRetryAfter(response);
+            if (retryAfter > maxRetryAfter) {
+                return NO_RETRY;
+            }
+            delay = retryAfter >= 0 ? retryAfter : getBackoff(attempts);
+        } else if (isRetryable(failure, idempotent)) {
+            delay = getBackoff(attempts);
+        } else {
+            return NO_RETRY;
+        }
+        if (deadline != null && delay >= deadline.remainingMillis()) {
+            return NO_RETRY;
+        }
+        /*Budget is checked last, so that tokens are only spent on retries which are actually made*/
+        if (!retryBudget.tryAcquire()) {
+            LOG.debug("retry budget exhausted, not retrying {} request", serviceRequestType);
+            return NO_RETRY;
+        }
+        return delay;
+    }
+
+    /**
+     * Schedules retry of a non blocking request
+     * @param retry     Dispatches the retry
+     * @param delay     Time in milliseconds to wait before the retry
+     * @return          Scheduled retry, or null if retry could not be scheduled
+     */
+    public ScheduledFuture<?> schedule(Runnable retry, long delay) {
+        try {
+            return retryScheduler.schedule(retry, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            /*Registry is deactivated*/
+            return null;
+        }
+    }
+
+    /**
+     * @param request   Request
+     * @return          true if sending the request twice has the same effect as sending it once
+     */
+    public static boolean isIdempotent(HttpUriRequest request) {
+        String method = request.getMethod();
+        return HttpGet.METHOD_NAME.equals(method) || HttpHead.METHOD_NAME.equals(method) || HttpOptions.METHOD_NAME.equals(method)
+                || HttpPut.METHOD_NAME.equals(method) || HttpDelete.METHOD_NAME.equals(method);
+    }
+
+    /**
+     * Full jitter backoff, uniformly distributed between 0 and the exponential backoff of the attempt
+     */
+    private long getBackoff(int attempts) {
+        long backoff = initialBackoff << Math.min(attempts - 1, 20);
+        return ThreadLocalRandom.current().nextLong(Math.min(backoff, maxBackoff) + 1);
+    }
+
+    /**
+     * @return  true if service rejected the request without processing it
+     */
+    private static boolean isRejected(int statusCode) {
+        return statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE || statusCode == SC_TOO_MANY_REQUESTS;
+    }
+
+    private static boolean isRetryable(Exception failure, boolean idempotent) {
+        if (failure instanceof ConnectException || failure instanceof ConnectTimeoutException
+                || failure instanceof ConnectionPoolTimeoutException) {
+            /*Request never left this host*/
+            return true;
+        }
+        if (failure instanceof SSLException) {
+            /*Handshake failures are not transient*/
+            return false;
+        }
+        return idempotent && failure instanceof IOException;
+    }
+
+    /**
+     * @return  Time in milliseconds defined by Retry-After header either as seconds or as date, or -1 if there is none
+     */
+    private static long getRetryAfter(HttpResponse response) {
+        Header retryAfter = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null || retryAfter.getValue() == null) {
+            return -1;
+        }
+        String value = retryAfter.getValue().trim();
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            Date retryAt = DateUtils.parseDate(value);
+            return retryAt != null ? Math.max(0, retryAt.getTime() - System.currentTimeMillis()) : -1;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.ServiceRequestType;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * {@code RetryRegistry} holds a {@code RetryPolicy} per {@code ServiceRequestType}, all policies share a single retry budget
+ */
+public interface RetryRegistry {
+
+    @ObjectClassDefinition(name = "Retry Registry", description = "Retry policies of third party services")
+    @interface Config {
+
+        @AttributeDefinition(name = "Max attempts", description = "Max attempts per service including the first one, in the format ZEROBOUNCE=3. "
+                + "Recaptcha tokens are single use, so a retried verification may be reported as duplicate")
+        String [] maxAttempts() default {"ZEROBOUNCE=3", "RECAPTCHA=1", "AUTH_TOKEN=3", "LEAD_SUBMISSION=3"};
+
+        @AttributeDefinition(name = "Initial backoff", description = "Time in milliseconds the first retry is delayed at most, doubled for every further retry")
+        long initialBackoff() default 100;
+
+        @AttributeDefinition(name = "Max backoff", description = "Time in milliseconds a retry is delayed at most")
+        long maxBackoff() default 2000;
+
+        @AttributeDefinition(name = "Retryable status codes", description = "Response status codes which are retried. "
+                + "Requests which are not idempotent are only retried on 429 and 503, as the service did not process them")
+        int [] retryableStatusCodes() default {429, 502, 503, 504};
+
+        @AttributeDefinition(name = "Max Retry-After", description = "Time in milliseconds of Retry-After header above which the request is not retried")
+        long maxRetryAfter() default 5000;
+
+        @AttributeDefinition(name = "Retry budget", description = "Max retries in percent of requests across all services")
+        int retryBudget() default 10;
+
+        @AttributeDefinition(name = "Retry budget capacity", description = "Max retries which can be saved up for a burst")
+        int retryBudgetCapacity() default 20;
+    }
+
+    /**
+     * Get retry policy of supplied service
+     */
+    RetryPolicy getRetryPolicy(ServiceRequestType serviceRequestType);
+}
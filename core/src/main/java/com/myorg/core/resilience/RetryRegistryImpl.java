@@ -0,0 +1,62 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.ServiceRequestType;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.Designate;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+@Component(immediate = true, service = RetryRegistry.class)
+@Designate(ocd = RetryRegistry.Config.class)
+public class RetryRegistryImpl implements RetryRegistry {
+
+    private Map<ServiceRequestType, RetryPolicy> retryPolicies;
+
+    private ScheduledExecutorService retryScheduler;
+
+    @Activate
+    public void activate(final Config config) {
+        /*Scheduled retries of the non blocking client and of the service executor only dispatch the next attempt,
+        which is executed by the I/O dispatcher or the worker pool, a single thread is sufficient*/
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "request-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<ServiceRequestType, Integer> maxAttempts = ServiceRequestTypes.parseOverrides(config.maxAttempts(), Integer::valueOf,
+                "max attempts mapping");
+        Set<Integer> retryableStatusCodes = new HashSet<>();
+        for (int statusCode : Optional.ofNullable(config.retryableStatusCodes()).orElse(new int[0])) {
+            retryableStatusCodes.add(statusCode);
+        }
+        RetryBudget retryBudget = new RetryBudget(config.retryBudget(), config.retryBudgetCapacity());
+        retryPolicies = new EnumMap<>(ServiceRequestType.class);
+        for (ServiceRequestType serviceRequestType : ServiceRequestType.values()) {
+            retryPolicies.put(serviceRequestType, new RetryPolicy(serviceRequestType, maxAttempts.getOrDefault(serviceRequestType, 1),
+                    config, retryableStatusCodes, retryBudget, retryScheduler));
+        }
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RetryPolicy getRetryPolicy(ServiceRequestType serviceRequestType) {
+        return retryPolicies.get(serviceRequestType);
+    }
+}
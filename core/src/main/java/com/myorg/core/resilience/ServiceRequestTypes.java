@@ -0,0 +1,51 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.ServiceRequestType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Parses the per service overrides of the resilience configurations, e.g. {@code ZEROBOUNCE=3}
+ */
+final class ServiceRequestTypes {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServiceRequestTypes.class);
+
+    private ServiceRequestTypes() {
+    }
+
+    /**
+     * @param name  Service name, case insensitive
+     * @return      Service of supplied name
+     * @throws IllegalArgumentException if there is no service of supplied name
+     */
+    static ServiceRequestType valueOf(String name) {
+        return ServiceRequestType.valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Parses overrides in the format NAME=VALUE, invalid overrides are logged and skipped
+     * @param overrides     Overrides, may be null
+     * @param valueParser   Parses the trimmed value, which is empty if an override has none
+     * @param description   Description of the overrides used in the log
+     * @return              Parsed value per service
+     */
+    static <T> Map<ServiceRequestType, T> parseOverrides(String[] overrides, Function<String, T> valueParser, String description) {
+        Map<ServiceRequestType, T> values = new EnumMap<>(ServiceRequestType.class);
+        for (String override : Optional.ofNullable(overrides).orElse(new String[0])) {
+            String[] mapping = override.split("=", 2);
+            try {
+                values.put(valueOf(mapping[0]), valueParser.apply(mapping.length == 2 ? mapping[1].trim() : ""));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("invalid {} {}", description, override);
+            }
+        }
+        return values;
+    }
+}
@@ -43,9 +43,9 @@ public interface GoogleReCaptchaService extends RestClientService<Boolean> {
                 type = AttributeType.STRING)
         String googleReCaptchaSiteKey() default "";
 
-        @AttributeDefinition(name = "Service timeout", description = "Recaptcha service timeout in seconds",
+        @AttributeDefinition(name = "Service timeout", description = "Recaptcha service timeout in milliseconds, capped by the time left of the request budget",
                 type = AttributeType.STRING)
-        long serviceTimeout() default 3;
+        long serviceTimeoutMillis() default 3000;
 
         @AttributeDefinition(name = "Cache age", description = "Recaptcha cache age in minutes",
                 type = AttributeType.STRING)
@@ -54,10 +54,6 @@ public interface GoogleReCaptchaService extends RestClientService<Boolean> {
         @AttributeDefinition(name = "Max size", description = "Maximum no. of objects to be cached",
                 type = AttributeType.STRING)
         long cacheMaxSize() default 5000;
-
-        @AttributeDefinition(name = "Print cache size", description = "Logs the information about Recaptcha cache size if enabled",
-                type = AttributeType.BOOLEAN)
-        boolean printCacheSize() default false;
     }
 
     /**
@@ -0,0 +1,99 @@
+package com.myorg.core.services;
+
+import com.myorg.core.beans.RequestDeadline;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * This service owns the long lived, pooled HTTP clients shared by all third party
+ * integrations. Consumers must never close the borrowed clients, only the responses
+ * they receive from them, so that connections are returned to the pool
+ */
+public interface HttpClientProvider {
+
+    @ObjectClassDefinition(
+            name = "HTTP Client Provider Configuration",
+            description = "Connection pool configuration for outbound HTTP calls")
+    @interface Config {
+
+        @AttributeDefinition(
+                name = "Max total connections",
+                description = "Maximum number of connections in the pool across all routes",
+                type = AttributeType.INTEGER)
+        int maxTotalConnections() default 200;
+
+        @AttributeDefinition(
+                name = "Max connections per route",
+                description = "Maximum number of connections per route i.e. per third party host",
+                type = AttributeType.INTEGER)
+        int maxConnectionsPerRoute() default 50;
+
+        @AttributeDefinition(
+                name = "Validate after inactivity",
+                description = "Period of inactivity in milliseconds after which pooled connections are re-validated before being leased",
+                type = AttributeType.INTEGER)
+        int validateAfterInactivity() default 2000;
+
+        @AttributeDefinition(
+                name = "Keep alive duration",
+                description = "Keep alive duration in seconds used when server does not send Keep-Alive header",
+                type = AttributeType.LONG)
+        long keepAliveDuration() default 30;
+
+        @AttributeDefinition(
+                name = "Max idle time",
+                description = "Idle connections are evicted from the pool after defined time in seconds",
+                type = AttributeType.LONG)
+        long maxIdleTime() default 60;
+
+        @AttributeDefinition(
+                name = "Eviction interval",
+                description = "Interval in seconds at which expired and idle connections are evicted",
+                type = AttributeType.LONG)
+        long evictionInterval() default 10;
+
+        @AttributeDefinition(
+                name = "I/O thread count",
+                description = "Number of I/O dispatcher threads of the non blocking HTTP client",
+                type = AttributeType.INTEGER)
+        int ioThreadCount() default 2;
+
+        @AttributeDefinition(
+                name = "Connect timeout",
+                description = "Max time in milliseconds to establish a connection to third party host",
+                type = AttributeType.INTEGER)
+        int connectTimeout() default 1000;
+
+        @AttributeDefinition(
+                name = "Connection request timeout",
+                description = "Max time in milliseconds to wait for a connection to be leased from the pool",
+                type = AttributeType.INTEGER)
+        int connectionRequestTimeout() default 500;
+    }
+
+    /**
+     * Returns the shared pooled HTTP client
+     * @return  HTTP client
+     */
+    CloseableHttpClient getHttpClient();
+
+    /**
+     * Returns the shared pooled non blocking HTTP client. Requests executed through it
+     * do not occupy a thread while waiting for the response
+     * @return  Non blocking HTTP client
+     */
+    CloseableHttpAsyncClient getHttpAsyncClient();
+
+    /**
+     * Returns request configuration with connect, connection lease and socket timeouts in milliseconds,
+     * each capped by the time left until the request deadline
+     * @param deadline      Request deadline
+     * @param socketTimeout Max time in milliseconds to wait for data
+     * @return              Request configuration
+     */
+    RequestConfig getRequestConfig(RequestDeadline deadline, long socketTimeout);
+}
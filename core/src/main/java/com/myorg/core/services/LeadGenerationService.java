@@ -1,10 +1,13 @@
 package com.myorg.core.services;
 
+import com.myorg.core.beans.RequestDeadline;
 import com.myorg.core.beans.leadgeneration.FormSubmissionResponse;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.AttributeType;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
+import java.util.List;
+
 /**
  * 
  * This is a service used to submit lead generation request
@@ -22,6 +25,13 @@ public interface LeadGenerationService extends RestClientService<String> {
                 type = AttributeType.STRING)
         String formLeadApiEndPoint();
 
+        @AttributeDefinition(
+                name = "Form Lead Composite API End Point",
+                description = "sObject collections end point leads are created in bulk with, e.g. https://instance/services/data/v52.0/composite/sobjects. "
+                        + "If empty, leads of a batch are posted one by one to Form Lead API End Point",
+                type = AttributeType.STRING)
+        String compositeApiEndPoint() default "";
+
         @AttributeDefinition(
                 name = "Form Lead Client_ID",
                 description = "Form Lead Client_ID",
@@ -72,29 +82,40 @@ public interface LeadGenerationService extends RestClientService<String> {
 
         @AttributeDefinition(
                 name = "Service timeout",
-                description = "Leadgeneration service timeout",
+                description = "Leadgeneration service timeout in milliseconds",
                 type = AttributeType.STRING)
-        long serviceTimeout() default 5;
+        long serviceTimeoutMillis() default 5000;
 
         @AttributeDefinition(
                 name = "Cache age",
-                description = "token cache age",
+                description = "token lifetime in minutes, used if token response does not define expires_in",
                 type = AttributeType.STRING)
         long cacheTTL() default 14;
 
         @AttributeDefinition(
-                name = "Max size",
-                description = "Maximum objects for token cache",
-                type = AttributeType.STRING)
-        long cacheMaxSize() default 10;
-
-        @AttributeDefinition(name = "Print cache size",
-                description = "Logs the information about token cache size if enabled",
-                type = AttributeType.BOOLEAN)
-        boolean printCacheSize() default false;
+                name = "Token refresh fraction",
+                description = "token is refreshed in the background once defined fraction of its lifetime has elapsed",
+                type = AttributeType.DOUBLE)
+        double tokenRefreshFraction() default 0.75;
     }
 
-    FormSubmissionResponse submitLeadGeneration(String leadGenerationRequest, String token);
+    /**
+     * Submits lead
+     * @param leadGenerationRequest     Lead generation request json
+     * @param token                     Access token
+     * @param deadline                  Deadline of the form submission, timeouts and retries of all attempts are capped by it
+     * @return                          Lead generation response
+     */
+    FormSubmissionResponse submitLeadGeneration(String leadGenerationRequest, String token, RequestDeadline deadline);
+
+    /**
+     * Submits leads in a single composite request
+     * @param leadGenerationRequests    Lead generation request jsons
+     * @param token                     Access token
+     * @param deadline                  Deadline of the most urgent lead of the batch
+     * @return                          Response per lead, in the order of the supplied requests
+     */
+    List<FormSubmissionResponse> submitLeadGenerations(List<String> leadGenerationRequests, String token, RequestDeadline deadline);
 
     String getRecordTypeId();
 
@@ -3,6 +3,7 @@ package com.myorg.core.services;
 import com.myorg.core.beans.ServiceWorker;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This interface defines the service contract for all third party
@@ -31,6 +32,16 @@ public interface RestClientService<T> {
      */
     T getCacheData(ServiceWorker serviceWorker);
 
+    /**
+     * Get service data without blocking the caller. Service worker which is not yet
+     * dispatched is executed through non blocking HTTP client, returned future is completed
+     * with the same data {@link #getCacheData(ServiceWorker)} would return. Data of a dispatched
+     * service worker is read on the service executor worker pool
+     * @param serviceWorker Service worker
+     * @return  Future completed with service data
+     */
+    CompletableFuture<T> getServiceDataAsync(ServiceWorker serviceWorker);
+
     /**
      * Returns service worker which is responsible for defining request payload
      * @param inputParameters Input Parameters
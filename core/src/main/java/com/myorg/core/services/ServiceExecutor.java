@@ -0,0 +1,80 @@
+package com.myorg.core.services;
+
+import com.myorg.core.beans.ServiceWorker;
+import org.apache.http.impl.client.FutureRequestExecutionMetrics;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * This service executes service worker requests on a bounded, long lived worker pool
+ * which caps the number of concurrent outbound calls across all form submissions
+ */
+public interface ServiceExecutor {
+
+    @ObjectClassDefinition(
+            name = "Service Executor Configuration",
+            description = "Worker pool configuration for outbound service requests")
+    @interface Config {
+
+        @AttributeDefinition(
+                name = "Pool size",
+                description = "Number of worker threads executing service requests",
+                type = AttributeType.INTEGER)
+        int poolSize() default 30;
+
+        @AttributeDefinition(
+                name = "Queue size",
+                description = "Maximum number of service requests waiting for a worker thread. Requests beyond this are rejected",
+                type = AttributeType.INTEGER)
+        int queueSize() default 100;
+
+        @AttributeDefinition(
+                name = "Keep alive time",
+                description = "Time in seconds for which idle worker threads are kept alive",
+                type = AttributeType.LONG)
+        long keepAliveTime() default 60;
+    }
+
+    /**
+     * Executes request payload of service worker on the worker pool and sets the resulting
+     * future task on the service worker. This is the blocking alternative to the non blocking
+     * HTTP client, each request occupies a worker thread until response is received
+     * @param serviceWorker Service worker
+     * @throws RejectedExecutionException   Thrown in case worker pool and its queue are saturated
+     */
+    void execute(ServiceWorker serviceWorker);
+
+    /**
+     * Runs supplied task on the worker pool
+     * @param task  Task to run
+     * @param <T>   Task result type
+     * @return      Future completed with task result
+     * @throws RejectedExecutionException   Thrown in case worker pool and its queue are saturated
+     */
+    <T> CompletableFuture<T> submit(Supplier<T> task);
+
+    /**
+     * @return  Number of requests waiting in the queue
+     */
+    int getQueueDepth();
+
+    /**
+     * @return  Number of threads actively executing requests
+     */
+    int getActiveCount();
+
+    /**
+     * @return  Current number of threads in the pool
+     */
+    int getPoolSize();
+
+    /**
+     * @return  Request execution metrics i.e. active, successful and failed connections
+     */
+    FutureRequestExecutionMetrics getMetrics();
+}
@@ -0,0 +1,39 @@
+package com.myorg.core.services;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+/**
+ * Saturation of the {@code ServiceExecutor} worker pool and metrics of the requests it executes
+ */
+@Description("Service executor statistics")
+public interface ServiceExecutorMBean {
+
+    String OBJECT_NAME = "com.myorg.core:type=ServiceExecutor";
+
+    @Description("Number of requests waiting in the queue for a worker thread")
+    int getQueueDepth();
+
+    @Description("Number of threads actively executing requests")
+    int getActiveCount();
+
+    @Description("Current number of threads in the pool")
+    int getPoolSize();
+
+    @Description("Number of requests being executed")
+    long getActiveConnectionCount();
+
+    @Description("Number of requests scheduled for execution")
+    long getScheduledConnectionCount();
+
+    @Description("Number of requests which completed with a response")
+    long getSuccessfulConnectionCount();
+
+    @Description("Average duration in milliseconds of requests which completed with a response")
+    long getSuccessfulConnectionAverageDuration();
+
+    @Description("Number of requests which failed")
+    long getFailedConnectionCount();
+
+    @Description("Average duration in milliseconds of requests which failed")
+    long getFailedConnectionAverageDuration();
+}
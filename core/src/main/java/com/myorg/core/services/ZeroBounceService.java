@@ -24,10 +24,10 @@ public interface ZeroBounceService extends RestClientService<Boolean> {
         String zerobounceAPIKey();
 
         @AttributeDefinition(
-                name = "Service timeout in seconds",
-                description = "Zeroubounce service timeout",
+                name = "Service timeout in milliseconds",
+                description = "Zeroubounce service timeout, capped by the time left of the request budget",
                 type = AttributeType.STRING)
-        long serviceTimeout() default 3;
+        long serviceTimeoutMillis() default 3000;
 
         @AttributeDefinition(
                 name = "Cache age",
@@ -35,15 +35,25 @@ public interface ZeroBounceService extends RestClientService<Boolean> {
                 type = AttributeType.STRING)
         long cacheTTL() default 43200;
 
+        @AttributeDefinition(
+                name = "Cache reload time",
+                description = "Verdicts requested again after defined time in minutes are re-validated in the background while the cached verdict "
+                        + "is served. Every reload costs a Zerobounce credit and keeps the e-mail address of the verdict in memory until it expires. "
+                        + "0 disables reload",
+                type = AttributeType.STRING)
+        long cacheRefreshTime() default 0;
+
         @AttributeDefinition(
                 name = "Max size",
                 description = "Max no. of objects in cache",
                 type = AttributeType.STRING)
         long cacheMaxSize() default 10000;
 
-        @AttributeDefinition(name = "Print cache size",
-                description = "Logs the information about Zerobounce cache size if enabled",
-                type = AttributeType.BOOLEAN)
-        boolean printCacheSize() default false;
+        @AttributeDefinition(
+                name = "Status policy",
+                description = "Overrides whether emails of a status are allowed, in the format status=true|false for all sub statuses "
+                        + "of a status or status:sub_status=true|false for a single sub status, e.g. catch-all=false",
+                type = AttributeType.STRING)
+        String[] statusPolicy() default {};
     }
 }
@@ -0,0 +1,158 @@
+package com.myorg.core.services.impl;
+
+import com.myorg.core.beans.AccessToken;
+import com.myorg.core.beans.ServiceWorker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Holds the current access token and refreshes it in the background once the configured fraction of its
+ * lifetime has elapsed, so that token acquisition normally never happens on a user request. Reading the
+ * token does not lock, refreshes are serialized so that concurrent callers share a single token request.
+ */
+public class AccessTokenManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AccessTokenManager.class);
+
+    /*Delay in seconds before a failed background refresh is retried*/
+    private static final long REFRESH_RETRY_DELAY = 30;
+
+    private final AtomicReference<AccessToken> currentToken = new AtomicReference<>();
+
+    private final AtomicReference<CompletableFuture<String>> pendingAcquisition = new AtomicReference<>();
+
+    private final Object refreshLock = new Object();
+
+    private final Supplier<AccessToken> tokenLoader;
+
+    private final double refreshFraction;
+
+    private final long acquisitionTimeout;
+
+    private final ScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> scheduledRefresh;
+
+    /**
+     * @param tokenLoader           Requests a new token from OAuth endpoint, returns null on failure
+     * @param refreshFraction       Fraction of token lifetime after which token is refreshed in the background
+     * @param acquisitionTimeout    Time in milliseconds after which a token request in flight is no longer shared
+     */
+    public AccessTokenManager(Supplier<AccessToken> tokenLoader, double refreshFraction, long acquisitionTimeout) {
+        this.tokenLoader = tokenLoader;
+        this.refreshFraction = refreshFraction;
+        this.acquisitionTimeout = acquisitionTimeout;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "access-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return  Current access token, or null if there is no valid token
+     */
+    public String getToken() {
+        AccessToken token = currentToken.get();
+        return token != null && !token.isExpired() ? token.getValue() : null;
+    }
+
+    /**
+     * Sets token received through a token request and schedules its background refresh
+     * @param token Access token
+     */
+    public void update(AccessToken token) {
+        AccessToken previous = currentToken.getAndSet(token);
+        if (previous != null && previous.getValue().equals(token.getValue())) {
+            /*Same response read by coalesced service workers, refresh is already scheduled*/
+            return;
+        }
+        LOG.debug("access token updated {}", token);
+        scheduleRefresh(Math.max(0, token.getRefreshAt(refreshFraction) - System.currentTimeMillis()));
+    }
+
+    /**
+     * Coalesce token request with the token request already in flight, so that concurrent requests
+     * without valid token result in a single call to OAuth endpoint
+     * @param serviceWorker Service worker with token request payload
+     * @return              Service worker to dispatch, or service worker attached to token request in flight
+     */
+    public ServiceWorker coalesce(ServiceWorker serviceWorker) {
+        CompletableFuture<String> sharedTask = new CompletableFuture<>();
+        while (true) {
+            CompletableFuture<String> inFlightTask = pendingAcquisition.get();
+            if (inFlightTask != null && !inFlightTask.isDone()) {
+                return new ServiceWorker(serviceWorker, inFlightTask);
+            }
+            if (pendingAcquisition.compareAndSet(inFlightTask, sharedTask)) {
+                /*Token request which is never dispatched must not block acquisition forever*/
+                scheduler.schedule(() -> sharedTask.cancel(false), acquisitionTimeout, TimeUnit.MILLISECONDS);
+                serviceWorker.setSharedTask(sharedTask);
+                return serviceWorker;
+            }
+        }
+    }
+
+    /**
+     * Refreshes token which was rejected by the endpoint. Concurrent callers rejected with the same token
+     * share a single refresh, callers arriving after the refresh receive the refreshed token
+     * @param rejectedToken Token rejected by the endpoint
+     * @return              Refreshed token, or null if token could not be refreshed
+     */
+    public String refresh(String rejectedToken) {
+        return refresh(rejectedToken, true);
+    }
+
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private String refresh(String staleToken, boolean rejected) {
+        synchronized (refreshLock) {
+            AccessToken token = currentToken.get();
+            if (token != null && !token.isExpired() && !token.getValue().equals(staleToken)) {
+                return token.getValue();
+            }
+            AccessToken refreshedToken = tokenLoader.get();
+            if (refreshedToken == null) {
+                if (rejected && token != null && token.getValue().equals(staleToken)) {
+                    /*Rejected token must not be handed out any more*/
+                    currentToken.compareAndSet(token, null);
+                }
+                return null;
+            }
+            update(refreshedToken);
+            return refreshedToken.getValue();
+        }
+    }
+
+    private void refreshInBackground() {
+        AccessToken token = currentToken.get();
+        if (token == null) {
+            return;
+        }
+        if (refresh(token.getValue(), false) == null) {
+            LOG.warn("unable to refresh access token in the background");
+            if (!token.isExpired()) {
+                scheduleRefresh(TimeUnit.SECONDS.toMillis(REFRESH_RETRY_DELAY));
+            }
+        }
+    }
+
+    private synchronized void scheduleRefresh(long delay) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        if (!scheduler.isShutdown()) {
+            scheduledRefresh = scheduler.schedule(this::refreshInBackground, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -1,16 +1,20 @@
 package com.myorg.core.services.impl;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
 import com.myorg.core.beans.ServiceRequestType;
 import com.myorg.core.beans.ServiceWorker;
 import com.myorg.core.cache.CacheRegistry;
 import com.myorg.core.exception.CacheException;
 import com.myorg.core.exception.ConnectionException;
+import com.myorg.core.resilience.CircuitBreakerRegistry;
+import com.myorg.core.resilience.HedgingRegistry;
+import com.myorg.core.resilience.RetryRegistry;
 import com.myorg.core.services.GoogleReCaptchaService;
+import com.myorg.core.services.HttpClientProvider;
 import com.myorg.core.services.RestClientService;
+import com.myorg.core.services.ServiceExecutor;
 import com.myorg.core.utils.CacheUtils;
 import com.myorg.core.utils.HttpClientUtils;
+import com.myorg.core.utils.JsonUtils;
 import org.apache.http.client.methods.HttpGet;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -22,6 +26,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.UnaryOperator;
 
 import static com.myorg.core.constants.GenericConstants.CACHE_RECAPTCHA_RESPONSE;
@@ -47,16 +52,31 @@ public class GoogleReCaptchaServiceImpl implements GoogleReCaptchaService {
     @Reference
     private CacheRegistry cacheRegistry;
 
+    @Reference
+    private HttpClientProvider httpClientProvider;
+
+    @Reference
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Reference
+    private HedgingRegistry hedgingRegistry;
+
+    @Reference
+    private RetryRegistry retryRegistry;
+
+    @Reference
+    private ServiceExecutor serviceExecutor;
+
     @Activate
     protected final void activate(final Config config) {
         this.config = config;
-        loaderFunction = key -> getServiceData((ServiceWorker) key);
+        loaderFunction = CacheUtils.getVerdictLoader(this::getServiceData);
         CacheUtils.initializeCache(cacheRegistry, CACHE_RECAPTCHA_RESPONSE, loaderFunction, config.cacheTTL(), config.cacheMaxSize());
     }
 
     @Deactivate
     protected void deactivate() {
-        cacheRegistry.invalidateAll(CACHE_RECAPTCHA_RESPONSE);
+        cacheRegistry.evictAll(CACHE_RECAPTCHA_RESPONSE);
     }
 
     /**
@@ -74,11 +94,11 @@ public class GoogleReCaptchaServiceImpl implements GoogleReCaptchaService {
     @Override
     public Boolean getServiceData(ServiceWorker serviceWorker) {
         try {
-            String serviceResponse = HttpClientUtils.getServiceResponse(serviceWorker, config.serviceTimeout());
+            String serviceResponse = HttpClientUtils.getServiceResponse(serviceWorker, config.serviceTimeoutMillis());
             if (null != serviceResponse) {
-                JsonObject responseJsonObject = new Gson().fromJson(serviceResponse, JsonObject.class);
-                if (responseJsonObject.get(SUCCESS) != null) {
-                    return responseJsonObject.get(SUCCESS).getAsBoolean();
+                String success = JsonUtils.extractFields(serviceResponse, SUCCESS)[0];
+                if (success != null) {
+                    return Boolean.valueOf(success);
                 } else {
                     LOG.error("No Re-Captcha Status found in the response");
                     return null;
@@ -95,27 +115,35 @@ public class GoogleReCaptchaServiceImpl implements GoogleReCaptchaService {
 
     /**
      * {@inheritDoc}
+     * Configured fallback verdict is returned if there is no verdict, e.g. because circuit breaker is open.
      * @return
      */
     @Override
     public Boolean getCacheData(ServiceWorker serviceWorker) {
         LOG.debug("Getting cache data for {}", serviceWorker);
-        if (config.printCacheSize()) {
-            cacheRegistry.printCacheSize(CACHE_RECAPTCHA_RESPONSE);
-        }
         try{
             if (serviceWorker.getId() == null) {
                 return true;
             }
             Object cacheData = CacheUtils.getCacheData(CACHE_RECAPTCHA_RESPONSE,
-                    serviceWorker, loaderFunction, cacheRegistry);
+                    serviceWorker.getCacheKey(), serviceWorker, loaderFunction, cacheRegistry);
             if (cacheData instanceof Boolean) {
                 return (Boolean) cacheData;
             }
         } catch (CacheException e){
             LOG.debug("unable to get cached data for : {}", serviceWorker, e);
         }
-        return false;
+        return circuitBreakerRegistry.getFallbackVerdict(ServiceRequestType.RECAPTCHA);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<Boolean> getServiceDataAsync(ServiceWorker serviceWorker) {
+        return HttpClientUtils.getServiceDataAsync(httpClientProvider, serviceExecutor, serviceWorker, config.serviceTimeoutMillis(),
+                hedgingRegistry.getRequestHedger(ServiceRequestType.RECAPTCHA), retryRegistry.getRetryPolicy(ServiceRequestType.RECAPTCHA),
+                this::getCacheData);
     }
 
     /**
@@ -124,8 +152,8 @@ public class GoogleReCaptchaServiceImpl implements GoogleReCaptchaService {
     @Override
     public ServiceWorker getServiceWorker(Map<String, String> inputParameters) {
         try {
-            ServiceWorker cacheWorker = new ServiceWorker(inputParameters.get(RESPONSE));
-            if (cacheWorker.getId() == null || CacheUtils.isCached(CACHE_RECAPTCHA_RESPONSE, cacheWorker, cacheRegistry)) {
+            ServiceWorker cacheWorker = new ServiceWorker(inputParameters.get(RESPONSE), ServiceRequestType.RECAPTCHA);
+            if (cacheWorker.getId() == null || CacheUtils.isCached(CACHE_RECAPTCHA_RESPONSE, cacheWorker.getCacheKey(), cacheRegistry)) {
                 return cacheWorker;
             }
         } catch (CacheException e) {
@@ -133,8 +161,12 @@ public class GoogleReCaptchaServiceImpl implements GoogleReCaptchaService {
         }
         Map<String, String> params = new HashMap<>(inputParameters);
         params.put("secret", config.googleReCaptchaSecretKey());
-        return new ServiceWorker(inputParameters.get(RESPONSE), ServiceRequestType.RECAPTCHA,
+        ServiceWorker recaptchaWorker = new ServiceWorker(inputParameters.get(RESPONSE), ServiceRequestType.RECAPTCHA,
                 HttpClientUtils.getPayload(config.googleReCaptchaEndPoint(), params, HttpGet.METHOD_NAME));
+        recaptchaWorker.setTimeout(config.serviceTimeoutMillis());
+        /*Concurrent requests for the same key share a single upstream call*/
+        ServiceWorker serviceWorker = CacheUtils.coalesce(CACHE_RECAPTCHA_RESPONSE, recaptchaWorker, cacheRegistry);
+        return CacheUtils.guard(serviceWorker, circuitBreakerRegistry.getCircuitBreaker(ServiceRequestType.RECAPTCHA));
     }
 
 }
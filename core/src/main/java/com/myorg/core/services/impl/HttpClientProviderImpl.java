@@ -0,0 +1,182 @@
+package com.myorg.core.services.impl;
+
+import com.myorg.core.beans.RequestDeadline;
+import com.myorg.core.services.HttpClientProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.Designate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This service builds a single pooled blocking and non blocking HTTP client on activation
+ * so that TCP and TLS connections to third party endpoints are reused across form submissions.
+ */
+@Component(service = HttpClientProvider.class, immediate = true)
+@Designate(ocd = HttpClientProvider.Config.class)
+public class HttpClientProviderImpl implements HttpClientProvider {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpClientProviderImpl.class);
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private PoolingNHttpClientConnectionManager asyncConnectionManager;
+
+    private ScheduledExecutorService connectionEvictor;
+
+    private CloseableHttpClient httpClient;
+
+    private CloseableHttpAsyncClient httpAsyncClient;
+
+    private Config config;
+
+    @Activate
+    protected final void activate(final Config config) throws IOReactorException {
+        this.config = config;
+        ConnectionKeepAliveStrategy keepAliveStrategy = getKeepAliveStrategy(config.keepAliveDuration());
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.maxTotalConnections());
+        connectionManager.setDefaultMaxPerRoute(config.maxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity(config.validateAfterInactivity());
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setConnectionManagerShared(true)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .build();
+
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom().setIoThreadCount(config.ioThreadCount()).build();
+        asyncConnectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        asyncConnectionManager.setMaxTotal(config.maxTotalConnections());
+        asyncConnectionManager.setDefaultMaxPerRoute(config.maxConnectionsPerRoute());
+        httpAsyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(asyncConnectionManager)
+                .setConnectionManagerShared(true)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .build();
+        httpAsyncClient.start();
+
+        connectionEvictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        connectionEvictor.scheduleWithFixedDelay(() -> evictConnections(config.maxIdleTime()),
+                config.evictionInterval(), config.evictionInterval(), TimeUnit.SECONDS);
+        LOG.info("HTTP connection pools initialized with max total {} and max per route {}",
+                config.maxTotalConnections(), config.maxConnectionsPerRoute());
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (connectionEvictor != null) {
+            connectionEvictor.shutdownNow();
+        }
+        close(httpClient);
+        close(httpAsyncClient);
+        if (connectionManager != null) {
+            connectionManager.shutdown();
+        }
+        if (asyncConnectionManager != null) {
+            try {
+                asyncConnectionManager.shutdown();
+            } catch (IOException e) {
+                LOG.error("error while shutting down async connection manager", e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloseableHttpAsyncClient getHttpAsyncClient() {
+        return httpAsyncClient;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RequestConfig getRequestConfig(RequestDeadline deadline, long socketTimeout) {
+        return RequestConfig.custom()
+                .setConnectTimeout(toTimeout(deadline.cap(config.connectTimeout())))
+                .setConnectionRequestTimeout(toTimeout(deadline.cap(config.connectionRequestTimeout())))
+                .setSocketTimeout(toTimeout(deadline.cap(socketTimeout)))
+                .build();
+    }
+
+    /**
+     * HTTP client treats 0 as infinite timeout, hence an exhausted budget still results in the shortest timeout
+     * @param timeout   Timeout in milliseconds
+     * @return          Timeout in milliseconds between 1 and {@link Integer#MAX_VALUE}
+     */
+    private static int toTimeout(long timeout) {
+        return (int) Math.max(1, Math.min(timeout, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Closes expired connections and connections idle for longer than max idle time in both pools
+     * @param maxIdleTime   Max idle time in seconds
+     */
+    private void evictConnections(final long maxIdleTime) {
+        try {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(maxIdleTime, TimeUnit.SECONDS);
+            asyncConnectionManager.closeExpiredConnections();
+            asyncConnectionManager.closeIdleConnections(maxIdleTime, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            LOG.warn("error while evicting idle connections", e);
+        }
+    }
+
+    private static void close(final Closeable client) {
+        if (client != null) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                LOG.error("error while closing http client", e);
+            }
+        }
+    }
+
+    /**
+     * Keep alive strategy which honours Keep-Alive header sent by server and falls back
+     * to configured duration otherwise, so that pooled connections are never kept indefinitely
+     * @param keepAliveDuration Default keep alive duration in seconds
+     * @return                  Keep alive strategy
+     */
+    private static ConnectionKeepAliveStrategy getKeepAliveStrategy(final long keepAliveDuration) {
+        return (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : TimeUnit.SECONDS.toMillis(keepAliveDuration);
+        };
+    }
+}
@@ -2,27 +2,31 @@ package com.myorg.core.services.impl;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
+import com.myorg.core.beans.AccessToken;
+import com.myorg.core.beans.RequestDeadline;
 import com.myorg.core.beans.ServiceRequestType;
 import com.myorg.core.beans.ServiceWorker;
 import com.myorg.core.beans.leadgeneration.FormSubmissionResponse;
-import com.myorg.core.cache.CacheRegistry;
 import com.myorg.core.constants.GenericConstants;
-import com.myorg.core.exception.CacheException;
 import com.myorg.core.exception.ConnectionException;
+import com.myorg.core.resilience.RetryRegistry;
+import com.myorg.core.services.HttpClientProvider;
 import com.myorg.core.services.LeadGenerationService;
-import com.myorg.core.utils.CacheUtils;
+import com.myorg.core.services.ServiceExecutor;
 import com.myorg.core.utils.HttpClientUtils;
+import com.myorg.core.utils.JsonUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpHeaders;
-import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -34,12 +38,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.function.UnaryOperator;
-
-import static com.myorg.core.constants.GenericConstants.CACHE_TOKEN_RESPONSE;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -56,24 +60,57 @@ public class LeadGenerationServiceImpl implements LeadGenerationService {
 
     private static final String ACCESS_TOKEN = "access_token";
 
+    private static final String EXPIRES_IN = "expires_in";
+
+    private static final String ISSUED_AT = "issued_at";
+
+    private static final Type ERROR_LIST_TYPE = new TypeToken<List<FormSubmissionResponse.Error>>() {}.getType();
+
+    private static final String LEAD = "Lead";
+
+    private static final String ATTRIBUTES = "attributes";
+
+    private static final String TYPE = "type";
+
+    private static final String ALL_OR_NONE = "allOrNone";
+
+    private static final String RECORDS = "records";
+
+    private static final String ID = "id";
+
+    private static final String SUCCESS = "success";
+
+    private static final String ERRORS = "errors";
+
+    private static final String STATUS_CODE = "statusCode";
+
+    private static final String MESSAGE = "message";
+
+    private static final String FIELDS = "fields";
+
     private Config config;
 
-    private UnaryOperator<Object> loaderFunction;
+    private AccessTokenManager tokenManager;
+
+    @Reference
+    private HttpClientProvider httpClientProvider;
+
+    @Reference
+    private RetryRegistry retryRegistry;
 
     @Reference
-    private CacheRegistry cacheRegistry;
+    private ServiceExecutor serviceExecutor;
 
 
     @Activate
     protected final void activate(final Config config) {
         this.config = config;
-        loaderFunction = key -> getServiceData((ServiceWorker) key);
-        CacheUtils.initializeCache(cacheRegistry, CACHE_TOKEN_RESPONSE, loaderFunction, config.cacheTTL(), config.cacheMaxSize());
+        tokenManager = new AccessTokenManager(this::requestAccessToken, config.tokenRefreshFraction(), config.serviceTimeoutMillis());
     }
 
     @Deactivate
     protected void deactivate() {
-        cacheRegistry.invalidateAll(CACHE_TOKEN_RESPONSE);
+        tokenManager.close();
     }
 
     public String getRecordTypeId() {
@@ -90,34 +127,55 @@ public class LeadGenerationServiceImpl implements LeadGenerationService {
 
     /**
      * This method takes the lead generation request json string and submits the same to lead generation API.
+     * If the token is rejected, it is refreshed once and the submission is retried with the refreshed token.
      *
      * @param leadGenerationRequest
      * @param acctoken
+     * @param deadline
      * @return
      */
     @Override
-    public FormSubmissionResponse submitLeadGeneration(String leadGenerationRequest, String acctoken) {
+    public FormSubmissionResponse submitLeadGeneration(String leadGenerationRequest, String acctoken, RequestDeadline deadline) {
 
         if (StringUtils.isEmpty(acctoken)) {
             return new FormSubmissionResponse(false, GenericConstants.ERROR_CODE_INVALID_AUTH_HEADER, "token is empty", Collections.emptyList());
         }
+        FormSubmissionResponse formSubmissionResponse = postLead(leadGenerationRequest, acctoken, deadline);
+        if (formSubmissionResponse.getStatusCode() == HttpStatus.SC_UNAUTHORIZED) {
+            String refreshedToken = tokenManager.refresh(acctoken);
+            if (StringUtils.isNotEmpty(refreshedToken) && !refreshedToken.equals(acctoken)) {
+                LOG.info("token rejected by lead generation API, retrying with refreshed token");
+                formSubmissionResponse = postLead(leadGenerationRequest, refreshedToken, deadline);
+            }
+        }
+        return formSubmissionResponse;
+    }
+
+    /**
+     * Posts lead generation request to lead generation API
+     * @param leadGenerationRequest Lead generation request json
+     * @param acctoken              Access token
+     * @param deadline              Deadline of the form submission
+     * @return                      Lead generation response
+     */
+    private FormSubmissionResponse postLead(String leadGenerationRequest, String acctoken, RequestDeadline deadline) {
         HttpPost post = new HttpPost(config.formLeadApiEndPoint());
         post.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + acctoken);
         post.setHeader(HttpHeaders.CONTENT_TYPE, GenericConstants.APPLICATION_JSON_CONTENT_TYPE);
         post.setEntity(new StringEntity(leadGenerationRequest, ContentType.APPLICATION_JSON));
-        try(CloseableHttpClient httpClient = HttpClients.createDefault()){
-            HttpResponse response = httpClient.execute(post);
+        post.setConfig(httpClientProvider.getRequestConfig(deadline, config.serviceTimeoutMillis()));
+        /*Lead is only posted again if it did not reach the API or was rejected unprocessed, so that no lead is created twice*/
+        try(CloseableHttpResponse response = HttpClientUtils.executeWithRetry(httpClientProvider.getHttpClient(), post,
+                retryRegistry.getRetryPolicy(ServiceRequestType.LEAD_SUBMISSION), deadline)){
             String responseStr = EntityUtils.toString(response.getEntity());
-            Gson gson = new Gson();
             FormSubmissionResponse formSubmissionResponse;
             if (response.getStatusLine().getStatusCode() == HttpStatus.SC_CREATED) {
-                formSubmissionResponse = gson.fromJson(responseStr, FormSubmissionResponse.class);
+                formSubmissionResponse = getCreatedResponse(responseStr);
             } else {
                 formSubmissionResponse = new FormSubmissionResponse();
                 formSubmissionResponse.setSuccess(false);
                 formSubmissionResponse.setStatusCode(HttpStatus.SC_BAD_REQUEST);
-                Type listType = new TypeToken<List<FormSubmissionResponse.Error>>() {}.getType();
-                List<FormSubmissionResponse.Error> error = gson.fromJson(responseStr, listType);
+                List<FormSubmissionResponse.Error> error = JsonUtils.GSON.fromJson(responseStr, ERROR_LIST_TYPE);
                 formSubmissionResponse.setErrors(error);
                 formSubmissionResponse.setStatusCode(response.getStatusLine().getStatusCode());
             }
@@ -131,25 +189,165 @@ public class LeadGenerationServiceImpl implements LeadGenerationService {
 
     }
 
+    /**
+     * Lead is created, only id and success are read from the response of lead generation API
+     * @param responseStr   Response of lead generation API
+     * @return              Lead generation response
+     */
+    private static FormSubmissionResponse getCreatedResponse(String responseStr) {
+        FormSubmissionResponse formSubmissionResponse = new FormSubmissionResponse();
+        formSubmissionResponse.setSuccess(true);
+        formSubmissionResponse.setErrors(Collections.emptyList());
+        try {
+            String[] fields = JsonUtils.extractFields(responseStr, ID, SUCCESS);
+            formSubmissionResponse.setId(fields[0]);
+            if (fields[1] != null) {
+                formSubmissionResponse.setSuccess(Boolean.parseBoolean(fields[1]));
+            }
+        } catch (JsonParseException e) {
+            LOG.warn("unable to parse response of created lead", e);
+        }
+        return formSubmissionResponse;
+    }
+
     /**
      * {@inheritDoc}
+     * Leads are created through sObject collections end point without allOrNone, so that a rejected lead does not fail
+     * the other leads of the batch. If the token is rejected, it is refreshed once and the batch is retried.
+     */
+    @Override
+    public List<FormSubmissionResponse> submitLeadGenerations(List<String> leadGenerationRequests, String acctoken, RequestDeadline deadline) {
+        if (leadGenerationRequests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (StringUtils.isBlank(config.compositeApiEndPoint())) {
+            List<FormSubmissionResponse> formSubmissionResponses = new ArrayList<>(leadGenerationRequests.size());
+            leadGenerationRequests.forEach(leadGenerationRequest -> formSubmissionResponses.add(submitLeadGeneration(leadGenerationRequest, acctoken, deadline)));
+            return formSubmissionResponses;
+        }
+        if (StringUtils.isEmpty(acctoken)) {
+            return getBatchResponses(leadGenerationRequests.size(), HttpStatus.SC_BAD_REQUEST, GenericConstants.ERROR_CODE_INVALID_AUTH_HEADER, "token is empty");
+        }
+        List<FormSubmissionResponse> formSubmissionResponses = postLeads(leadGenerationRequests, acctoken, deadline);
+        if (formSubmissionResponses.get(0).getStatusCode() == HttpStatus.SC_UNAUTHORIZED) {
+            String refreshedToken = tokenManager.refresh(acctoken);
+            if (StringUtils.isNotEmpty(refreshedToken) && !refreshedToken.equals(acctoken)) {
+                LOG.info("token rejected by composite API, retrying batch of {} leads with refreshed token", leadGenerationRequests.size());
+                formSubmissionResponses = postLeads(leadGenerationRequests, refreshedToken, deadline);
+            }
+        }
+        return formSubmissionResponses;
+    }
+
+    /**
+     * Posts leads in a single request to composite API and maps result of each record to its lead
+     * @param leadGenerationRequests    Lead generation request jsons
+     * @param acctoken                  Access token
+     * @param deadline                  Deadline of the most urgent lead of the batch
+     * @return                          Response per lead
+     */
+    private List<FormSubmissionResponse> postLeads(List<String> leadGenerationRequests, String acctoken, RequestDeadline deadline) {
+        Gson gson = JsonUtils.GSON;
+        JsonObject attributes = new JsonObject();
+        attributes.addProperty(TYPE, LEAD);
+        JsonArray records = new JsonArray();
+        for (String leadGenerationRequest : leadGenerationRequests) {
+            JsonObject record = gson.fromJson(leadGenerationRequest, JsonObject.class);
+            record.add(ATTRIBUTES, attributes);
+            records.add(record);
+        }
+        JsonObject compositeRequest = new JsonObject();
+        compositeRequest.addProperty(ALL_OR_NONE, false);
+        compositeRequest.add(RECORDS, records);
+        HttpPost post = new HttpPost(config.compositeApiEndPoint());
+        post.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + acctoken);
+        post.setHeader(HttpHeaders.CONTENT_TYPE, GenericConstants.APPLICATION_JSON_CONTENT_TYPE);
+        post.setEntity(new StringEntity(gson.toJson(compositeRequest), ContentType.APPLICATION_JSON));
+        post.setConfig(httpClientProvider.getRequestConfig(deadline, config.serviceTimeoutMillis()));
+        try(CloseableHttpResponse response = HttpClientUtils.executeWithRetry(httpClientProvider.getHttpClient(), post,
+                retryRegistry.getRetryPolicy(ServiceRequestType.LEAD_SUBMISSION), deadline)){
+            String responseStr = EntityUtils.toString(response.getEntity());
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode != HttpStatus.SC_OK) {
+                LOG.error("composite API rejected batch of {} leads with status {}", leadGenerationRequests.size(), statusCode);
+                return getBatchResponses(leadGenerationRequests.size(), statusCode, "BATCH_REJECTED", "Lead batch rejected");
+            }
+            JsonArray results = gson.fromJson(responseStr, JsonArray.class);
+            if (results == null || results.size() != leadGenerationRequests.size()) {
+                LOG.error("composite API returned {} results for batch of {} leads", results != null ? results.size() : 0, leadGenerationRequests.size());
+                return getBatchResponses(leadGenerationRequests.size(), HttpStatus.SC_BAD_GATEWAY, "SERVER_ERROR", "Internal Server Error");
+            }
+            List<FormSubmissionResponse> formSubmissionResponses = new ArrayList<>(results.size());
+            for (JsonElement result : results) {
+                formSubmissionResponses.add(getRecordResponse(result.getAsJsonObject()));
+            }
+            return formSubmissionResponses;
+        } catch (IOException | RuntimeException e){
+            LOG.error("error while submitting batch of {} leads", leadGenerationRequests.size(), e);
+            return getBatchResponses(leadGenerationRequests.size(), HttpStatus.SC_INTERNAL_SERVER_ERROR, "SERVER_ERROR", "Internal Server Error");
+        }
+    }
+
+    /**
+     * @param result    Result of a single record of composite response
+     * @return          Lead generation response of the record
+     */
+    private static FormSubmissionResponse getRecordResponse(JsonObject result) {
+        FormSubmissionResponse formSubmissionResponse = new FormSubmissionResponse();
+        if (result.has(SUCCESS) && result.get(SUCCESS).getAsBoolean()) {
+            formSubmissionResponse.setSuccess(true);
+            formSubmissionResponse.setId(result.has(ID) && !result.get(ID).isJsonNull() ? result.get(ID).getAsString() : null);
+            return formSubmissionResponse;
+        }
+        formSubmissionResponse.setSuccess(false);
+        formSubmissionResponse.setStatusCode(HttpStatus.SC_BAD_REQUEST);
+        List<FormSubmissionResponse.Error> errors = new ArrayList<>();
+        if (result.has(ERRORS) && result.get(ERRORS).isJsonArray()) {
+            for (JsonElement element : result.getAsJsonArray(ERRORS)) {
+                JsonObject error = element.getAsJsonObject();
+                List<String> fields = new ArrayList<>();
+                if (error.has(FIELDS) && error.get(FIELDS).isJsonArray()) {
+                    error.getAsJsonArray(FIELDS).forEach(field -> fields.add(field.getAsString()));
+                }
+                errors.add(formSubmissionResponse.new Error(getString(error, STATUS_CODE), getString(error, MESSAGE), fields));
+            }
+        }
+        formSubmissionResponse.setErrors(errors);
+        return formSubmissionResponse;
+    }
+
+    private static String getString(JsonObject jsonObject, String member) {
+        return jsonObject.has(member) && !jsonObject.get(member).isJsonNull() ? jsonObject.get(member).getAsString() : null;
+    }
+
+    /**
+     * @return  Error response per lead of a batch which failed as a whole
+     */
+    private static List<FormSubmissionResponse> getBatchResponses(int count, int statusCode, String errorCode, String errorMessage) {
+        List<FormSubmissionResponse> formSubmissionResponses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            FormSubmissionResponse formSubmissionResponse = new FormSubmissionResponse(false, errorCode, errorMessage, Collections.emptyList());
+            formSubmissionResponse.setStatusCode(statusCode);
+            formSubmissionResponses.add(formSubmissionResponse);
+        }
+        return formSubmissionResponses;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Token is held by token manager, service worker which requested a token updates it.
      * @return
      */
     @Override
     public String getCacheData(ServiceWorker serviceWorker) {
-        LOG.debug("Getting cache data for {}", serviceWorker);
-        if (config.printCacheSize()) {
-            cacheRegistry.printCacheSize(CACHE_TOKEN_RESPONSE);
-        }
-        try{
-            Object cacheData = CacheUtils.getCacheData(CACHE_TOKEN_RESPONSE, serviceWorker, loaderFunction, cacheRegistry);
-            if (cacheData instanceof String) {
-                return (String) cacheData;
+        LOG.debug("Getting token for {}", serviceWorker);
+        if (serviceWorker.getServiceTask() != null) {
+            String token = getServiceData(serviceWorker);
+            if (token != null) {
+                return token;
             }
-        } catch (CacheException e){
-            LOG.debug("unable to find cached data for auth token", e);
         }
-        return StringUtils.EMPTY;
+        return StringUtils.defaultString(tokenManager.getToken());
     }
 
     /**
@@ -158,12 +356,36 @@ public class LeadGenerationServiceImpl implements LeadGenerationService {
      */
     @Override
     public String getServiceData(ServiceWorker serviceWorker) {
+        AccessToken accessToken = getAccessToken(serviceWorker);
+        if (accessToken == null) {
+            return null;
+        }
+        tokenManager.update(accessToken);
+        return accessToken.getValue();
+    }
+
+    /**
+     * Parses access token along with its lifetime from token response. Lifetime is read from expires_in,
+     * configured token lifetime is used if response does not define it. issued_at is honoured unless it
+     * is off by more than the lifetime, which indicates clock skew
+     * @param serviceWorker Service worker which requested the token
+     * @return              Access token, or null if token could not be retrieved
+     */
+    private AccessToken getAccessToken(ServiceWorker serviceWorker) {
         try {
-            String sessionIdResponse = HttpClientUtils.getServiceResponse(serviceWorker, config.serviceTimeout());
+            String sessionIdResponse = HttpClientUtils.getServiceResponse(serviceWorker, config.serviceTimeoutMillis());
             if (null != sessionIdResponse) {
-                JsonObject responseJsonObject = new Gson().fromJson(sessionIdResponse, JsonObject.class);
-                if (responseJsonObject.get(ACCESS_TOKEN) != null) {
-                    return responseJsonObject.get(ACCESS_TOKEN).getAsString();
+                String[] tokenFields = JsonUtils.extractFields(sessionIdResponse, ACCESS_TOKEN, EXPIRES_IN, ISSUED_AT);
+                if (tokenFields[0] != null) {
+                    long now = System.currentTimeMillis();
+                    long lifetime = tokenFields[1] != null
+                            ? TimeUnit.SECONDS.toMillis(Long.parseLong(tokenFields[1]))
+                            : TimeUnit.MINUTES.toMillis(config.cacheTTL());
+                    long issuedAt = tokenFields[2] != null ? Long.parseLong(tokenFields[2]) : now;
+                    if (issuedAt > now || issuedAt <= now - lifetime) {
+                        issuedAt = now;
+                    }
+                    return new AccessToken(tokenFields[0], issuedAt, lifetime);
                 } else {
                     LOG.error("Session ID not found in the response");
                     return null;
@@ -174,22 +396,48 @@ public class LeadGenerationServiceImpl implements LeadGenerationService {
             }
         } catch (ConnectionException e) {
             return null;
+        } catch (RuntimeException e) {
+            LOG.error("Could not parse session ID response", e);
+            return null;
         }
     }
 
+    /**
+     * Requests a new access token from OAuth endpoint on the calling thread. All attempts share a deadline of
+     * the service timeout, a rejected submission waiting for the refresh is not held up longer than that
+     * @return  Access token, or null if token could not be retrieved
+     */
+    private AccessToken requestAccessToken() {
+        ServiceWorker tokenServiceWorker = getTokenServiceWorker();
+        tokenServiceWorker.setDeadline(RequestDeadline.after(config.serviceTimeoutMillis()));
+        ServiceWorker serviceWorker = HttpClientUtils.reload(httpClientProvider.getHttpClient(), tokenServiceWorker,
+                httpClientProvider.getRequestConfig(tokenServiceWorker.getDeadline(), config.serviceTimeoutMillis()),
+                retryRegistry.getRetryPolicy(ServiceRequestType.AUTH_TOKEN));
+        return serviceWorker != null ? getAccessToken(serviceWorker) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<String> getServiceDataAsync(ServiceWorker serviceWorker) {
+        return HttpClientUtils.getServiceDataAsync(httpClientProvider, serviceExecutor, serviceWorker, config.serviceTimeoutMillis(),
+                null, retryRegistry.getRetryPolicy(ServiceRequestType.AUTH_TOKEN), this::getCacheData);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public ServiceWorker getServiceWorker(Map<String, String> inputParameters) {
-        try {
-            ServiceWorker cacheWorker = new ServiceWorker(config.userName());
-            if (CacheUtils.isCached(CACHE_TOKEN_RESPONSE, cacheWorker, cacheRegistry)) {
-                return cacheWorker;
-            }
-        } catch (CacheException e) {
-            LOG.warn("error while retrieving token from cache", e);
+        if (tokenManager.getToken() != null) {
+            return new ServiceWorker(config.userName(), ServiceRequestType.AUTH_TOKEN);
         }
+        /*Concurrent requests without valid token share a single token request*/
+        return tokenManager.coalesce(getTokenServiceWorker());
+    }
+
+    private ServiceWorker getTokenServiceWorker() {
         Map<String, String> params = ImmutableMap.of(
                 "username", config.userName(),
                 "password", config.password(),
@@ -197,8 +445,10 @@ public class LeadGenerationServiceImpl implements LeadGenerationService {
                 "client_id", config.formLeadClientID(),
                 "client_secret", config.formLeadClientSecret()
         );
-        return new ServiceWorker(config.userName(), ServiceRequestType.AUTH_TOKEN, HttpClientUtils.getPayload(config.oauthUrl(),
+        ServiceWorker serviceWorker = new ServiceWorker(config.userName(), ServiceRequestType.AUTH_TOKEN, HttpClientUtils.getPayload(config.oauthUrl(),
                 params, HttpPost.METHOD_NAME));
+        serviceWorker.setTimeout(config.serviceTimeoutMillis());
+        return serviceWorker;
     }
 
 }
@@ -0,0 +1,281 @@
+package com.myorg.core.services.impl;
+
+import com.myorg.core.beans.RequestDeadline;
+import com.myorg.core.beans.ServiceWorker;
+import com.myorg.core.resilience.RetryPolicy;
+import com.myorg.core.resilience.RetryRegistry;
+import com.myorg.core.services.HttpClientProvider;
+import com.myorg.core.services.ServiceExecutor;
+import com.myorg.core.services.ServiceExecutorMBean;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.client.BasicResponseHandler;
+import org.apache.http.impl.client.FutureRequestExecutionMetrics;
+import org.apache.http.impl.client.FutureRequestExecutionService;
+import org.apache.http.util.EntityUtils;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.Designate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.NotCompliantMBeanException;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * This service creates the worker pool and request execution service once on activation
+ * instead of creating a thread pool for every form submission.
+ */
+@Component(service = ServiceExecutor.class, immediate = true)
+@Designate(ocd = ServiceExecutor.Config.class)
+public class ServiceExecutorImpl implements ServiceExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServiceExecutorImpl.class);
+
+    private ThreadPoolExecutor executor;
+
+    private FutureRequestExecutionService requestExecService;
+
+    /*MBean registration, picked up by the JMX whiteboard*/
+    private ServiceRegistration<ServiceExecutorMBean> mbeanRegistration;
+
+    @Reference
+    private HttpClientProvider httpClientProvider;
+
+    @Reference
+    private RetryRegistry retryRegistry;
+
+    @Activate
+    protected final void activate(final Config config, final BundleContext bundleContext) {
+        executor = new ThreadPoolExecutor(config.poolSize(), config.poolSize(), config.keepAliveTime(), TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.queueSize()), new ServiceThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        requestExecService = new FutureRequestExecutionService(httpClientProvider.getHttpClient(), executor);
+        LOG.info("service executor initialized with pool size {} and queue size {}", config.poolSize(), config.queueSize());
+        registerMBean(bundleContext);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        unregisterMBean();
+        /*Request execution service is not closed as it would close the shared pooled http client*/
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Failed attempts are retried as decided by retry policy of the service.
+     */
+    @Override
+    public void execute(ServiceWorker serviceWorker) {
+        CompletableFuture<String> serviceTask = new CompletableFuture<>();
+        RetryPolicy retryPolicy = retryRegistry.getRetryPolicy(serviceWorker.getServiceRequest());
+        if (retryPolicy != null) {
+            retryPolicy.onRequest();
+        }
+        AtomicReference<Future<String>> attemptTask = new AtomicReference<>();
+        execute(serviceWorker, serviceWorker.getRequestPayload(), 1, retryPolicy, serviceTask, attemptTask);
+        /*Cancelling service task aborts the request, or skips it if not yet started*/
+        serviceTask.whenComplete((response, e) -> {
+            if (serviceTask.isCancelled()) {
+                attemptTask.get().cancel(true);
+            }
+        });
+        serviceWorker.setServiceTask(serviceTask);
+    }
+
+    /**
+     * Executes a single attempt of service worker request on the worker pool
+     * @param serviceWorker Service worker
+     * @param request       Request of this attempt
+     * @param attempts      Number of this attempt
+     * @param retryPolicy   Retry policy of the service, may be null
+     * @param serviceTask   Service task completed with response
+     * @param attemptTask   Holds the task of the current attempt
+     */
+    private void execute(ServiceWorker serviceWorker, HttpUriRequest request, int attempts, RetryPolicy retryPolicy,
+                         CompletableFuture<String> serviceTask, AtomicReference<Future<String>> attemptTask) {
+        /*Socket timeout of the service, capped by what is left of the request budget when the attempt is dispatched*/
+        HttpClientContext context = HttpClientContext.create();
+        RequestDeadline deadline = serviceWorker.getDeadline();
+        context.setRequestConfig(httpClientProvider.getRequestConfig(deadline, serviceWorker.getTimeout()));
+        ResponseHandler<String> responseHandler = response -> {
+            long delay = response.getStatusLine().getStatusCode() >= HttpStatus.SC_MULTIPLE_CHOICES && retryPolicy != null
+                    ? retryPolicy.getRetryDelay(request, attempts, response, null, deadline) : RetryPolicy.NO_RETRY;
+            if (delay >= 0) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new RetryException(response.getStatusLine().getStatusCode(), delay);
+            }
+            return new BasicResponseHandler().handleResponse(response);
+        };
+        attemptTask.set(requestExecService.execute(request, context, responseHandler,
+                new FutureCallback<String>() {
+                    @Override
+                    public void completed(String response) {
+                        serviceTask.complete(response);
+                    }
+
+                    @Override
+                    public void failed(Exception e) {
+                        long delay = RetryPolicy.NO_RETRY;
+                        if (e instanceof RetryException) {
+                            delay = ((RetryException) e).getDelay();
+                        } else if (retryPolicy != null && !serviceTask.isDone()) {
+                            delay = retryPolicy.getRetryDelay(request, attempts, null, e, deadline);
+                        }
+                        if (delay < 0 || !retry(serviceWorker, request, attempts, retryPolicy, serviceTask, attemptTask, delay)) {
+                            serviceTask.completeExceptionally(e);
+                        }
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        serviceTask.cancel(false);
+                    }
+                }));
+    }
+
+    /**
+     * Schedules next attempt of service worker request
+     * @return  true if next attempt is scheduled
+     */
+    private boolean retry(ServiceWorker serviceWorker, HttpUriRequest request, int attempts, RetryPolicy retryPolicy,
+                          CompletableFuture<String> serviceTask, AtomicReference<Future<String>> attemptTask, long delay) {
+        LOG.debug("retrying {} in {} ms after attempt {}", serviceWorker, delay, attempts);
+        return retryPolicy.schedule(() -> {
+            if (serviceTask.isDone()) {
+                return;
+            }
+            try {
+                execute(serviceWorker, RequestBuilder.copy(request).build(), attempts + 1, retryPolicy, serviceTask, attemptTask);
+                if (serviceTask.isCancelled()) {
+                    /*Cancelled while next attempt was dispatched*/
+                    attemptTask.get().cancel(true);
+                }
+            } catch (RejectedExecutionException e) {
+                serviceTask.completeExceptionally(e);
+            }
+        }, delay) != null;
+    }
+
+    /**
+     * Signals that response with unexpected status is retried
+     */
+    private static final class RetryException extends HttpResponseException {
+
+        private static final long serialVersionUID = 2516104335914183624L;
+
+        private final long delay;
+
+        private RetryException(int statusCode, long delay) {
+            super(statusCode, "retrying after " + delay + " ms");
+            this.delay = delay;
+        }
+
+        private long getDelay() {
+            return delay;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FutureRequestExecutionMetrics getMetrics() {
+        return requestExecService.metrics();
+    }
+
+    private void registerMBean(BundleContext bundleContext) {
+        if (bundleContext == null) {
+            return;
+        }
+        try {
+            Dictionary<String, Object> properties = new Hashtable<>();
+            properties.put("jmx.objectname", ServiceExecutorMBean.OBJECT_NAME);
+            mbeanRegistration = bundleContext.registerService(ServiceExecutorMBean.class, new ServiceExecutorMBeanImpl(this), properties);
+        } catch (NotCompliantMBeanException | RuntimeException e) {
+            LOG.warn("unable to publish statistics of service executor", e);
+        }
+    }
+
+    private void unregisterMBean() {
+        if (mbeanRegistration != null) {
+            try {
+                mbeanRegistration.unregister();
+            } catch (IllegalStateException e) {
+                /*Already unregistered, e.g. because bundle is stopping*/
+                LOG.debug("statistics of service executor already unpublished");
+            }
+            mbeanRegistration = null;
+        }
+    }
+
+    /**
+     * Names worker threads so that they can be identified in thread dumps
+     */
+    private static class ServiceThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "service-executor-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
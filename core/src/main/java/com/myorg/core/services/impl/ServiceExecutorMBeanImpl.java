@@ -0,0 +1,66 @@
+package com.myorg.core.services.impl;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import com.myorg.core.services.ServiceExecutor;
+import com.myorg.core.services.ServiceExecutorMBean;
+
+import javax.management.NotCompliantMBeanException;
+
+/**
+ * {@code ServiceExecutorMBean} of the {@code ServiceExecutor}. Every attribute is read from the executor
+ * when requested, so that the worker pool pays nothing for being published
+ */
+class ServiceExecutorMBeanImpl extends AnnotatedStandardMBean implements ServiceExecutorMBean {
+
+    private final ServiceExecutor serviceExecutor;
+
+    ServiceExecutorMBeanImpl(ServiceExecutor serviceExecutor) throws NotCompliantMBeanException {
+        super(ServiceExecutorMBean.class);
+        this.serviceExecutor = serviceExecutor;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return serviceExecutor.getQueueDepth();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return serviceExecutor.getActiveCount();
+    }
+
+    @Override
+    public int getPoolSize() {
+        return serviceExecutor.getPoolSize();
+    }
+
+    @Override
+    public long getActiveConnectionCount() {
+        return serviceExecutor.getMetrics().getActiveConnectionCount();
+    }
+
+    @Override
+    public long getScheduledConnectionCount() {
+        return serviceExecutor.getMetrics().getScheduledConnectionCount();
+    }
+
+    @Override
+    public long getSuccessfulConnectionCount() {
+        return serviceExecutor.getMetrics().getSuccessfulConnectionCount();
+    }
+
+    @Override
+    public long getSuccessfulConnectionAverageDuration() {
+        return serviceExecutor.getMetrics().getSuccessfulConnectionAverageDuration();
+    }
+
+    @Override
+    public long getFailedConnectionCount() {
+        return serviceExecutor.getMetrics().getFailedConnectionCount();
+    }
+
+    @Override
+    public long getFailedConnectionAverageDuration() {
+        return serviceExecutor.getMetrics().getFailedConnectionAverageDuration();
+    }
+}
@@ -1,17 +1,22 @@
 package com.myorg.core.services.impl;
 
-import com.google.gson.Gson;
 import com.myorg.core.beans.ServiceRequestType;
 import com.myorg.core.beans.ServiceWorker;
-import com.myorg.core.beans.leadgeneration.ZeroBounceResponse;
-import com.myorg.core.beans.leadgeneration.ZerobounceStatus;
+import com.myorg.core.beans.leadgeneration.ZerobouncePolicy;
 import com.myorg.core.cache.CacheRegistry;
 import com.myorg.core.constants.GenericConstants;
 import com.myorg.core.exception.CacheException;
 import com.myorg.core.exception.ConnectionException;
+import com.myorg.core.resilience.CircuitBreaker;
+import com.myorg.core.resilience.CircuitBreakerRegistry;
+import com.myorg.core.resilience.HedgingRegistry;
+import com.myorg.core.resilience.RetryRegistry;
+import com.myorg.core.services.HttpClientProvider;
+import com.myorg.core.services.ServiceExecutor;
 import com.myorg.core.services.ZeroBounceService;
 import com.myorg.core.utils.CacheUtils;
 import com.myorg.core.utils.HttpClientUtils;
+import com.myorg.core.utils.JsonUtils;
 import org.apache.http.client.methods.HttpGet;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -21,8 +26,10 @@ import org.osgi.service.metatype.annotations.Designate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.UnaryOperator;
 
 import static com.myorg.core.constants.GenericConstants.CACHE_ZEROBOUNCE_RESPONSE;
@@ -33,23 +40,47 @@ public class ZeroBounceServiceImpl implements ZeroBounceService {
 
 
     private static final Logger LOG = LoggerFactory.getLogger(ZeroBounceServiceImpl.class);
+
+    private static final String STATUS = "status";
+
+    private static final String SUB_STATUS = "sub_status";
     private UnaryOperator<Object> loaderFunction;
     private Config config;
 
+    /*Default until activated, overrides of configured status policy are applied on activation*/
+    private ZerobouncePolicy zerobouncePolicy = ZerobouncePolicy.DEFAULT;
+
     @Reference
     private CacheRegistry cacheRegistry;
 
+    @Reference
+    private HttpClientProvider httpClientProvider;
+
+    @Reference
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Reference
+    private HedgingRegistry hedgingRegistry;
+
+    @Reference
+    private RetryRegistry retryRegistry;
+
+    @Reference
+    private ServiceExecutor serviceExecutor;
+
 
     @Activate
     protected final void activate(final Config config) {
         this.config = config;
-        loaderFunction = key -> getServiceData((ServiceWorker) key);
-        CacheUtils.initializeCache(cacheRegistry, CACHE_ZEROBOUNCE_RESPONSE, loaderFunction, config.cacheTTL(), config.cacheMaxSize());
+        zerobouncePolicy = ZerobouncePolicy.of(config.statusPolicy());
+        loaderFunction = CacheUtils.getVerdictLoader(this::getServiceData);
+        CacheUtils.initializeCache(cacheRegistry, CACHE_ZEROBOUNCE_RESPONSE, loaderFunction,
+                CacheUtils.getVerdictReloader(this::reload, this::getServiceData), config.cacheTTL(), config.cacheRefreshTime(), config.cacheMaxSize());
     }
 
     @Deactivate
     protected void deactivate() {
-        cacheRegistry.invalidateAll(CACHE_ZEROBOUNCE_RESPONSE);
+        cacheRegistry.evictAll(CACHE_ZEROBOUNCE_RESPONSE);
     }
 
 
@@ -59,10 +90,14 @@ public class ZeroBounceServiceImpl implements ZeroBounceService {
     @Override
     public Boolean getServiceData(ServiceWorker serviceWorker) {
         try{
-            Gson gson = new Gson();
-            String zeroBounceResponseString = HttpClientUtils.getServiceResponse(serviceWorker, config.serviceTimeout());
-            ZeroBounceResponse zeroBounceResponse = gson.fromJson(zeroBounceResponseString, ZeroBounceResponse.class);
-            return ZerobounceStatus.of(zeroBounceResponse).isAllowed();
+            String zeroBounceResponseString = HttpClientUtils.getServiceResponse(serviceWorker, config.serviceTimeoutMillis());
+            if (zeroBounceResponseString == null) {
+                LOG.debug("no response from zerobounce service for : {}", serviceWorker);
+                return null;
+            }
+            /*Verdict only depends on status and sub status, remaining fields of the response are not parsed*/
+            String[] statusFields = JsonUtils.extractFields(zeroBounceResponseString, STATUS, SUB_STATUS);
+            return zerobouncePolicy.isAllowed(statusFields[0], statusFields[1]);
         } catch (ConnectionException e){
             LOG.debug("unable to get response from zerobounce service for : {}", serviceWorker, e);
             return null;
@@ -71,26 +106,34 @@ public class ZeroBounceServiceImpl implements ZeroBounceService {
 
     /**
      * {@inheritDoc}
+     * Configured fallback verdict is returned if there is no verdict, e.g. because circuit breaker is open.
      * @return
      */
     @Override
     public Boolean getCacheData(ServiceWorker serviceWorker) {
         LOG.debug("Getting cache data for {}", serviceWorker);
-        if (config.printCacheSize()) {
-            cacheRegistry.printCacheSize(CACHE_ZEROBOUNCE_RESPONSE);
-        }
         try{
             if (serviceWorker.getId() == null) {
                 return true;
             }
-            Object cacheData = CacheUtils.getCacheData(CACHE_ZEROBOUNCE_RESPONSE, serviceWorker, loaderFunction, cacheRegistry);
+            Object cacheData = CacheUtils.getCacheData(CACHE_ZEROBOUNCE_RESPONSE, serviceWorker.getCacheKey(), serviceWorker, loaderFunction, cacheRegistry);
             if (cacheData instanceof Boolean) {
                 return (Boolean) cacheData;
             }
         } catch (CacheException e){
             LOG.debug("unable to get cached data for : {}", serviceWorker, e);
         }
-        return true;
+        return circuitBreakerRegistry.getFallbackVerdict(ServiceRequestType.ZEROBOUNCE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<Boolean> getServiceDataAsync(ServiceWorker serviceWorker) {
+        return HttpClientUtils.getServiceDataAsync(httpClientProvider, serviceExecutor, serviceWorker, config.serviceTimeoutMillis(),
+                hedgingRegistry.getRequestHedger(ServiceRequestType.ZEROBOUNCE), retryRegistry.getRetryPolicy(ServiceRequestType.ZEROBOUNCE),
+                this::getCacheData);
     }
 
     /**
@@ -99,18 +142,47 @@ public class ZeroBounceServiceImpl implements ZeroBounceService {
     @Override
     public ServiceWorker getServiceWorker(Map<String, String> inputParameters) {
         try {
-            ServiceWorker cacheWorker = new ServiceWorker(inputParameters.get(GenericConstants.EMAIL));
-            if (cacheWorker.getId() == null || CacheUtils.isCached(CACHE_ZEROBOUNCE_RESPONSE, cacheWorker, cacheRegistry)) {
+            ServiceWorker cacheWorker = new ServiceWorker(inputParameters.get(GenericConstants.EMAIL), ServiceRequestType.ZEROBOUNCE);
+            if (cacheWorker.getId() == null || CacheUtils.isCached(CACHE_ZEROBOUNCE_RESPONSE, cacheWorker.getCacheKey(), cacheRegistry)) {
                 return cacheWorker;
             }
         } catch (CacheException e) {
             LOG.warn("error while getting zerobounce response from cache", e);
         }
+        ServiceWorker zeroBounceWorker = getRequestWorker(inputParameters);
+        /*Concurrent requests for the same key share a single upstream call*/
+        ServiceWorker serviceWorker = CacheUtils.coalesce(CACHE_ZEROBOUNCE_RESPONSE, zeroBounceWorker, cacheRegistry);
+        return CacheUtils.guard(serviceWorker, circuitBreakerRegistry.getCircuitBreaker(ServiceRequestType.ZEROBOUNCE));
+
+    }
+
+    /**
+     * Validates e-mail address again on the blocking client to reload its cached verdict in the background
+     * @param email E-mail address kept as reload context of the verdict
+     * @return      Service worker with completed service task, or null if there is no request or circuit breaker
+     *              does not permit the call
+     */
+    ServiceWorker reload(String email) {
+        ServiceWorker zeroBounceWorker = getRequestWorker(Collections.singletonMap(GenericConstants.EMAIL, email));
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.getCircuitBreaker(ServiceRequestType.ZEROBOUNCE);
+        if (zeroBounceWorker.getRequestPayload() == null || !circuitBreaker.tryAcquirePermission()) {
+            LOG.debug("zerobounce reload skipped, {}", circuitBreaker);
+            return null;
+        }
+        ServiceWorker reloadWorker = HttpClientUtils.reload(httpClientProvider.getHttpClient(), zeroBounceWorker,
+                httpClientProvider.getRequestConfig(zeroBounceWorker.getDeadline(), config.serviceTimeoutMillis()),
+                retryRegistry.getRetryPolicy(ServiceRequestType.ZEROBOUNCE));
+        circuitBreaker.monitor(reloadWorker.getServiceTask());
+        return reloadWorker;
+    }
+
+    private ServiceWorker getRequestWorker(Map<String, String> inputParameters) {
         Map<String, String> params = new HashMap<>(inputParameters);
         params.put("api_key", config.zerobounceAPIKey());
         params.put("ip_address", "");
-        return new ServiceWorker(inputParameters.get(GenericConstants.EMAIL), ServiceRequestType.ZEROBOUNCE,
+        ServiceWorker zeroBounceWorker = new ServiceWorker(inputParameters.get(GenericConstants.EMAIL), ServiceRequestType.ZEROBOUNCE,
                 HttpClientUtils.getPayload(config.zerobounceEndpoint(), params, HttpGet.METHOD_NAME));
-
+        zeroBounceWorker.setTimeout(config.serviceTimeoutMillis());
+        return zeroBounceWorker;
     }
 }
@@ -2,35 +2,50 @@ package com.myorg.core.servlets;
 
 import com.myorg.core.beans.leadgeneration.FormSubmissionRequest;
 import com.myorg.core.beans.leadgeneration.FormSubmissionResponse;
+import com.myorg.core.beans.RequestDeadline;
 import com.myorg.core.beans.ServiceWorker;
 import com.myorg.core.constants.FormConstants;
 import com.myorg.core.constants.GenericConstants;
+import com.myorg.core.outbox.LeadBatcher;
+import com.myorg.core.outbox.LeadOutbox;
 import com.myorg.core.services.GoogleReCaptchaService;
 import com.myorg.core.services.LeadGenerationService;
+import com.myorg.core.services.ServiceExecutor;
 import com.myorg.core.services.ZeroBounceService;
 import org.apache.http.HttpStatus;
-import org.apache.http.client.protocol.HttpClientContext;
-import org.apache.http.impl.client.BasicResponseHandler;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.FutureRequestExecutionService;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.impl.client.HttpRequestFutureTask;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
 import org.apache.sling.api.servlets.SlingAllMethodsServlet;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
  * This endpoint is used to consume the end user form data and submit the details to Lead Generation API.
@@ -39,8 +54,39 @@ import java.util.concurrent.Executors;
     immediate = true,
     service = Servlet.class,
     property = { "sling.servlet.methods=POST", "sling.servlet.paths=/services/leadgeneration" })
+@Designate(ocd = LeadGenerationServlet.Config.class)
 public class LeadGenerationServlet extends SlingAllMethodsServlet {
 
+    @ObjectClassDefinition(
+            name = "Lead Generation Servlet Configuration",
+            description = "Request processing configuration for lead generation endpoint")
+    public @interface Config {
+
+        @AttributeDefinition(
+                name = "Non blocking client",
+                description = "Execute service requests through non blocking HTTP client. If disabled, service requests are executed on service executor worker pool",
+                type = AttributeType.BOOLEAN)
+        boolean nonBlockingClient() default true;
+
+        @AttributeDefinition(
+                name = "Asynchronous processing",
+                description = "Release request thread while third party services are called and write response from completion callback. Only applies if container supports async requests",
+                type = AttributeType.BOOLEAN)
+        boolean asyncProcessing() default false;
+
+        @AttributeDefinition(
+                name = "Asynchronous timeout",
+                description = "Time in milliseconds after which asynchronous request is answered with gateway timeout",
+                type = AttributeType.LONG)
+        long asyncTimeout() default 15000;
+
+        @AttributeDefinition(
+                name = "Request budget",
+                description = "Time in milliseconds a form submission must be answered in. Connect, connection lease and socket timeouts of all service requests are capped by the time left of it",
+                type = AttributeType.LONG)
+        long requestBudget() default 10000;
+    }
+
     @Reference
     private transient LeadGenerationService leadGenerationService;
 
@@ -50,13 +96,30 @@ public class LeadGenerationServlet extends SlingAllMethodsServlet {
     @Reference
     private transient ZeroBounceService zeroBounceService;
 
+    @Reference
+    private transient ServiceExecutor serviceExecutor;
+
+    @Reference
+    private transient LeadOutbox leadOutbox;
+
+    @Reference
+    private transient LeadBatcher leadBatcher;
+
     private static final long serialVersionUID = 8498212471440488124L;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LeadGenerationServlet.class);
 
+    private transient Config config;
+
+    @Activate
+    protected void activate(final Config config) {
+        this.config = config;
+    }
+
     /**
      * This method creates the request from data and additional parameters, calls the lead generation service to submit
-     * lead generation request.
+     * lead generation request. If asynchronous processing is enabled and supported by container, request thread is
+     * released while third party services are called and response is written from completion callback.
      * 
      * @param request
      * @param resp
@@ -64,6 +127,7 @@ public class LeadGenerationServlet extends SlingAllMethodsServlet {
     @Override
     protected final void doPost(final SlingHttpServletRequest request, final SlingHttpServletResponse resp) throws IOException {
 
+        RequestDeadline deadline = RequestDeadline.after(config.requestBudget());
         List<ServiceWorker> serviceWorkers = new ArrayList<>();
 
         /*Initialize service worker for Google recaptcha service*/
@@ -74,51 +138,330 @@ public class LeadGenerationServlet extends SlingAllMethodsServlet {
         ServiceWorker zeroBounceServiceWorker = zeroBounceService.getServiceWorker(Collections.singletonMap(GenericConstants.EMAIL, request.getParameter(FormConstants.EMAIL)));
         serviceWorkers.add(zeroBounceServiceWorker);
 
-        /*Initialize service worker to get auth token. Since there is no user input required to for generating token, we send empty parameter map*/
-        ServiceWorker sfServiceWorker = leadGenerationService.getServiceWorker(Collections.emptyMap());
-        serviceWorkers.add(sfServiceWorker);
-
-        long workerCount = serviceWorkers.stream().filter(serviceWorker -> serviceWorker.getServiceRequest()!=null).count();
-        /*Worker pool must be initialized with spare thread to cover disruptions*/
-        ExecutorService execService = Executors.newFixedThreadPool(Math.toIntExact(workerCount)+1);
-        try (
-                CloseableHttpClient httpclient = HttpClients.createDefault();
-                FutureRequestExecutionService requestExecService = new FutureRequestExecutionService(httpclient, execService);
-        ) {
-            /*Eliminate cached service workers to avoid generating HTTP request. Filter:serviceworker.getServiceRequest()*/
-            serviceWorkers.stream().filter(serviceWorker -> serviceWorker.getServiceRequest()!=null).forEach(serviceWorker -> {
-                HttpRequestFutureTask<String> futureTask = requestExecService.execute(serviceWorker.getRequestPayload(), HttpClientContext.create(),
-                        new BasicResponseHandler());
-                serviceWorker.setServiceTask(futureTask);
-            });
-            /*If recaptcha response is invalid, then set error response and return*/
-            if (Boolean.FALSE.equals(googleReCaptchaService.getCacheData(recaptchaServiceWorker))) {
-                setResponse(resp, new FormSubmissionResponse(false, GenericConstants.ERROR_CODE_INVALID_RECAPTCHA, "Recaptcha is invalid", Collections.emptyList()));
+        /*Initialize service worker to get auth token. Since there is no user input required to for generating token, we send empty parameter map.
+        Leads accepted by the outbox are delivered in the background, which gets its own token*/
+        boolean outbox = leadOutbox.isEnabled();
+        ServiceWorker sfServiceWorker = null;
+        if (!outbox) {
+            sfServiceWorker = leadGenerationService.getServiceWorker(Collections.emptyMap());
+            serviceWorkers.add(sfServiceWorker);
+        }
+
+        /*All service requests share the budget of this request*/
+        serviceWorkers.forEach(serviceWorker -> serviceWorker.setDeadline(deadline));
+
+        if (!config.nonBlockingClient() && !dispatchServiceWorkers(serviceWorkers, resp)) {
+            return;
+        }
+        /*Form data is read upfront since request parameters must not be accessed after request thread is released*/
+        FormSubmissionRequest formSubmissionRequest = new FormSubmissionRequest(request, leadGenerationService.getCompany(),
+                leadGenerationService.getRecordTypeId(), leadGenerationService.getLeadSource() );
+        try {
+            /*Service requests are in flight, compose their results without waiting for each request in turn*/
+            CompletableFuture<FormSubmissionResponse> validationData = validate(recaptchaServiceWorker, zeroBounceServiceWorker);
+            CompletableFuture<String> sessionIdData = outbox ? CompletableFuture.completedFuture(null)
+                    : leadGenerationService.getServiceDataAsync(sfServiceWorker);
+            if (config.asyncProcessing() && request.isAsyncSupported()) {
+                processAsync(request, deadline, serviceWorkers, validationData, sessionIdData, formSubmissionRequest);
                 return;
             }
-            /*If zerobounce response is invalid for given email, then set error response and return*/
-            if (Boolean.FALSE.equals(zeroBounceService.getCacheData(zeroBounceServiceWorker))) {
-                setResponse(resp, new FormSubmissionResponse(false, GenericConstants.ERROR_CODE_INVALID_EMAIL,"Email is invalid", Collections.singletonList(FormConstants.EMAIL)));
+            FormSubmissionResponse validationResponse = validationData.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+            if (validationResponse != null) {
+                setResponse(resp, validationResponse);
                 return;
             }
-            String sessionId = leadGenerationService.getCacheData(sfServiceWorker);
             /*All validations successful, proceed with lead generation*/
-            FormSubmissionRequest formSubmissionRequest = new FormSubmissionRequest(request, leadGenerationService.getCompany(),
-                    leadGenerationService.getRecordTypeId(), leadGenerationService.getLeadSource() );
-            FormSubmissionResponse formSubmissionResponse = leadGenerationService.submitLeadGeneration(formSubmissionRequest.serialize(), sessionId);
+            String sessionId = sessionIdData.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+            FormSubmissionResponse formSubmissionResponse = isBatched()
+                    ? getBatchedLeadResponse(formSubmissionRequest, sessionId, deadline)
+                    : submitLead(formSubmissionRequest, sessionId, deadline);
             setResponse(resp, formSubmissionResponse);
+        } catch (TimeoutException e) {
+            LOGGER.warn("lead generation request exceeded its budget of {} ms", config.requestBudget());
+            serviceWorkers.forEach(ServiceWorker::cancel);
+            setResponse(resp, getTimeoutResponse());
         } catch (Exception e) {
             /*We don't want to send any exception back to the client instead send error response*/
             LOGGER.error("error while processing lead generation", e);
-            FormSubmissionResponse formSubmissionResponse =  new FormSubmissionResponse(false, "SERVER_ERROR", "Internal Server Error", Collections.emptyList());
-            formSubmissionResponse.setStatusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR);
-            setResponse(resp, formSubmissionResponse);
+            setResponse(resp, getErrorResponse(e));
+        }
+
+    }
+
+    /**
+     * Validates recaptcha and email in the order their service data becomes available. First definitive
+     * rejection completes the validation immediately and cancels the other in flight validation request.
+     * @param recaptchaServiceWorker    Recaptcha service worker
+     * @param zeroBounceServiceWorker   Zerobounce service worker
+     * @return  Future completed with error response in case validation fails, or null if validation is successful
+     */
+    private CompletableFuture<FormSubmissionResponse> validate(ServiceWorker recaptchaServiceWorker, ServiceWorker zeroBounceServiceWorker) {
+        CompletableFuture<FormSubmissionResponse> validationData = new CompletableFuture<>();
+        CompletableFuture<Boolean> recaptchaData = googleReCaptchaService.getServiceDataAsync(recaptchaServiceWorker);
+        CompletableFuture<Boolean> zeroBounceData = zeroBounceService.getServiceDataAsync(zeroBounceServiceWorker);
+        /*If recaptcha response is invalid, then set error response*/
+        recaptchaData.thenAccept(recaptchaValid -> {
+            if (Boolean.FALSE.equals(recaptchaValid)) {
+                reject(validationData, new FormSubmissionResponse(false, GenericConstants.ERROR_CODE_INVALID_RECAPTCHA, "Recaptcha is invalid", Collections.emptyList()),
+                        zeroBounceServiceWorker);
+            }
+        });
+        /*If zerobounce response is invalid for given email, then set error response*/
+        zeroBounceData.thenAccept(emailValid -> {
+            if (Boolean.FALSE.equals(emailValid)) {
+                reject(validationData, new FormSubmissionResponse(false, GenericConstants.ERROR_CODE_INVALID_EMAIL,"Email is invalid", Collections.singletonList(FormConstants.EMAIL)),
+                        recaptchaServiceWorker);
+            }
+        });
+        /*Validation is successful only if none of the validators rejected the submission*/
+        CompletableFuture.allOf(recaptchaData, zeroBounceData).whenComplete((result, e) -> {
+            if (e != null) {
+                validationData.completeExceptionally(e);
+            } else {
+                validationData.complete(null);
+            }
+        });
+        return validationData;
+    }
+
+    /**
+     * Completes validation with error response if it is not yet completed and cancels remaining
+     * validation request, since its result can no longer change the outcome
+     * @param validationData            Validation future
+     * @param validationResponse        Error response
+     * @param pendingServiceWorker      Service worker of other validator
+     */
+    private static void reject(CompletableFuture<FormSubmissionResponse> validationData, FormSubmissionResponse validationResponse,
+                               ServiceWorker pendingServiceWorker) {
+        if (validationData.complete(validationResponse) && pendingServiceWorker.getServiceTask() != null
+                && !pendingServiceWorker.getServiceTask().isDone()) {
+            LOGGER.debug("validation failed, cancelling {}", pendingServiceWorker);
+            pendingServiceWorker.cancel();
+        }
+    }
+
+    /**
+     * Submits validated lead. If outbox is enabled, lead is appended to its log and accepted with the submission id
+     * it is delivered under, else it is submitted to lead generation API right away
+     * @param formSubmissionRequest     Form data
+     * @param sessionId                 Auth token, null if outbox is enabled
+     * @param deadline                  Request deadline, bounds the submission to lead generation API
+     * @return                          Lead generation response
+     */
+    private FormSubmissionResponse submitLead(FormSubmissionRequest formSubmissionRequest, String sessionId, RequestDeadline deadline) {
+        if (!leadOutbox.isEnabled()) {
+            return leadGenerationService.submitLeadGeneration(formSubmissionRequest.serialize(), sessionId, deadline);
+        }
+        FormSubmissionResponse formSubmissionResponse;
+        try {
+            formSubmissionResponse = new FormSubmissionResponse();
+            formSubmissionResponse.setSuccess(true);
+            formSubmissionResponse.setSubmissionId(leadOutbox.submit(formSubmissionRequest.serialize()));
+            formSubmissionResponse.setStatusCode(HttpStatus.SC_ACCEPTED);
+        } catch (IOException e) {
+            /*Lead is not durable, client has to submit it again*/
+            LOGGER.error("unable to append lead to outbox", e);
+            formSubmissionResponse = new FormSubmissionResponse(false, GenericConstants.ERROR_CODE_SERVICE_UNAVAILABLE, "Service Unavailable", Collections.emptyList());
+            formSubmissionResponse.setStatusCode(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        }
+        return formSubmissionResponse;
+    }
+
+    /**
+     * Releases request thread and submits lead on service executor once validation completes. Response is
+     * written from completion callback through async context. On timeout or error of the async context, in flight
+     * service requests are cancelled and the lead is not submitted unless its submission has started already
+     * @param request                   Http Request
+     * @param deadline                  Request deadline
+     * @param serviceWorkers            Service workers of this request
+     * @param validationData            Future completed with validation error response or null
+     * @param sessionIdData             Future completed with auth token
+     * @param formSubmissionRequest     Form data
+     */
+    private void processAsync(SlingHttpServletRequest request, RequestDeadline deadline, List<ServiceWorker> serviceWorkers,
+                              CompletableFuture<FormSubmissionResponse> validationData, CompletableFuture<String> sessionIdData,
+                              FormSubmissionRequest formSubmissionRequest) {
+        AsyncContext asyncContext = request.startAsync();
+        long asyncTimeout = Math.max(1, deadline.cap(config.asyncTimeout()));
+        asyncContext.setTimeout(asyncTimeout);
+        AtomicBoolean completed = new AtomicBoolean();
+        AtomicReference<CompletableFuture<FormSubmissionResponse>> leadData = new AtomicReference<>();
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                LOGGER.warn("lead generation request timed out after {} ms", asyncTimeout);
+                completeAsync(asyncContext, completed, getTimeoutResponse());
+                cancel(serviceWorkers, leadData);
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+                /*Nothing to do*/
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                LOGGER.error("error while processing lead generation asynchronously", event.getThrowable());
+                completeAsync(asyncContext, completed, getErrorResponse(event.getThrowable()));
+                cancel(serviceWorkers, leadData);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+                /*Nothing to do*/
+            }
+        });
+        validationData.thenCombine(sessionIdData, (validationResponse, sessionId) -> {
+            if (validationResponse != null || completed.get()) {
+                /*Lead is not submitted if response is written already e.g. due to timeout*/
+                return CompletableFuture.completedFuture(validationResponse);
+            }
+            CompletableFuture<FormSubmissionResponse> submission = submitLeadAsync(formSubmissionRequest, sessionId, deadline);
+            leadData.set(submission);
+            if (completed.get()) {
+                /*Timed out while lead was handed over*/
+                submission.cancel(false);
+            }
+            return submission;
+        })
+                .thenCompose(Function.identity())
+                .whenComplete((formSubmissionResponse, e) -> {
+                    if (e == null) {
+                        completeAsync(asyncContext, completed, formSubmissionResponse);
+                    } else if (!completed.get()) {
+                        LOGGER.error("error while processing lead generation", e);
+                        completeAsync(asyncContext, completed, getErrorResponse(e));
+                    }
+                });
+    }
+
+    /**
+     * Cancels in flight service requests and lead submission of a request which is answered already. Cancelled lead
+     * submission is skipped by worker pool or left out of its batch, unless it has started already
+     * @param serviceWorkers    Service workers of the request
+     * @param leadData          Holds future of lead submission, if it was handed over
+     */
+    private static void cancel(List<ServiceWorker> serviceWorkers, AtomicReference<CompletableFuture<FormSubmissionResponse>> leadData) {
+        serviceWorkers.forEach(ServiceWorker::cancel);
+        CompletableFuture<FormSubmissionResponse> submission = leadData.get();
+        if (submission != null) {
+            submission.cancel(false);
+        }
+    }
+
+    /**
+     * Submits validated lead in the next batch and waits for its response
+     * @param formSubmissionRequest     Form data
+     * @param sessionId                 Auth token
+     * @param deadline                  Request deadline
+     * @return                          Lead generation response
+     * @throws TimeoutException         Thrown if batch was not sent within the deadline, lead is left out of its batch
+     *                                  unless the batch is already in flight
+     */
+    private FormSubmissionResponse getBatchedLeadResponse(FormSubmissionRequest formSubmissionRequest, String sessionId,
+                                                          RequestDeadline deadline) throws ExecutionException, InterruptedException, TimeoutException {
+        CompletableFuture<FormSubmissionResponse> batchedLead = leadBatcher.submit(formSubmissionRequest.serialize(), sessionId, deadline);
+        try {
+            return batchedLead.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            batchedLead.cancel(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Submits validated lead without blocking the calling thread
+     * @param formSubmissionRequest     Form data
+     * @param sessionId                 Auth token, null if outbox is enabled
+     * @param deadline                  Request deadline
+     * @return                          Future completed with lead generation response
+     */
+    private CompletableFuture<FormSubmissionResponse> submitLeadAsync(FormSubmissionRequest formSubmissionRequest, String sessionId,
+                                                                      RequestDeadline deadline) {
+        if (isBatched()) {
+            /*Batcher completes the lead from its sender thread, no worker is occupied while the batch lingers*/
+            return leadBatcher.submit(formSubmissionRequest.serialize(), sessionId, deadline);
+        }
+        /*Lead submission is blocking, hence it must not run on I/O dispatcher thread completing the validation*/
+        return serviceExecutor.submit(() -> submitLead(formSubmissionRequest, sessionId, deadline));
+    }
+
+    /**
+     * @return  true if lead is submitted in a batch while the form submission waits for it. Leads accepted by the
+     *          outbox are batched by the outbox itself
+     */
+    private boolean isBatched() {
+        return !leadOutbox.isEnabled() && leadBatcher.isEnabled();
+    }
+
+    /**
+     * Writes response through async context and completes it, unless it was already completed e.g. due to timeout
+     * @param asyncContext              Async context
+     * @param completed                 Flag indicating if async context is completed
+     * @param formSubmissionResponse    Lead generation response object
+     */
+    private void completeAsync(AsyncContext asyncContext, AtomicBoolean completed, FormSubmissionResponse formSubmissionResponse) {
+        if (!completed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            setResponse((HttpServletResponse) asyncContext.getResponse(), formSubmissionResponse);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("error while writing lead generation response", e);
         } finally {
-            execService.shutdown();
+            asyncContext.complete();
         }
+    }
+
+    /**
+     * @return  Gateway timeout response
+     */
+    private static FormSubmissionResponse getTimeoutResponse() {
+        FormSubmissionResponse formSubmissionResponse = new FormSubmissionResponse(false, GenericConstants.ERROR_CODE_TIMEOUT, "Gateway Timeout", Collections.emptyList());
+        formSubmissionResponse.setStatusCode(HttpStatus.SC_GATEWAY_TIMEOUT);
+        return formSubmissionResponse;
+    }
 
+    /**
+     * Get error response for supplied exception
+     * @param e Exception
+     * @return  Service unavailable response if worker pool is saturated, else internal server error response
+     */
+    private static FormSubmissionResponse getErrorResponse(Throwable e) {
+        Throwable cause = e instanceof CompletionException || e instanceof ExecutionException ? e.getCause() : e;
+        FormSubmissionResponse formSubmissionResponse;
+        if (cause instanceof RejectedExecutionException) {
+            formSubmissionResponse = new FormSubmissionResponse(false, GenericConstants.ERROR_CODE_SERVICE_UNAVAILABLE, "Service Unavailable", Collections.emptyList());
+            formSubmissionResponse.setStatusCode(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        } else {
+            formSubmissionResponse = new FormSubmissionResponse(false, "SERVER_ERROR", "Internal Server Error", Collections.emptyList());
+            formSubmissionResponse.setStatusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+        }
+        return formSubmissionResponse;
     }
 
+    /**
+     * Dispatch service requests of non cached service workers to service executor worker pool
+     * @param serviceWorkers    Service workers
+     * @param response          Http Response
+     * @return                  false if worker pool is saturated and service unavailable response is set
+     * @throws IOException      Thrown in case of error while writing response
+     */
+    private boolean dispatchServiceWorkers(List<ServiceWorker> serviceWorkers, SlingHttpServletResponse response) throws IOException {
+        try {
+            /*Eliminate cached service workers to avoid generating HTTP request. Filter:serviceworker.getServiceRequest()*/
+            serviceWorkers.stream().filter(serviceWorker -> serviceWorker.getServiceRequest()!=null).forEach(serviceExecutor::execute);
+            return true;
+        } catch (RejectedExecutionException e) {
+            /*Worker pool is saturated, release already dispatched requests and ask client to retry*/
+            LOGGER.warn("service executor saturated, queue depth {}, active threads {}", serviceExecutor.getQueueDepth(), serviceExecutor.getActiveCount());
+            serviceWorkers.forEach(ServiceWorker::cancel);
+            FormSubmissionResponse formSubmissionResponse = new FormSubmissionResponse(false, GenericConstants.ERROR_CODE_SERVICE_UNAVAILABLE, "Service Unavailable", Collections.emptyList());
+            formSubmissionResponse.setStatusCode(HttpStatus.SC_SERVICE_UNAVAILABLE);
+            setResponse(response, formSubmissionResponse);
+            return false;
+        }
+    }
 
     /**
      * Set lead generation response
@@ -126,12 +469,15 @@ public class LeadGenerationServlet extends SlingAllMethodsServlet {
      * @param formSubmissionResponse    Lead generation response object
      * @throws IOException              Thrown in case of error while writing response
      */
-    private void setResponse(SlingHttpServletResponse response, FormSubmissionResponse formSubmissionResponse) throws IOException {
-        response.getWriter().println(formSubmissionResponse.serialize());
+    private void setResponse(HttpServletResponse response, FormSubmissionResponse formSubmissionResponse) throws IOException {
+        /*Headers must be set before the body is streamed, as streaming may commit the response. Encoding is
+        also only applied to a writer obtained after it is set*/
+        response.setStatus(formSubmissionResponse.getStatusCode());
         response.setCharacterEncoding(StandardCharsets.UTF_8.name());
         response.setContentType(GenericConstants.APPLICATION_JSON_CONTENT_TYPE);
-        response.setStatus(formSubmissionResponse.getStatusCode());
-
+        PrintWriter writer = response.getWriter();
+        formSubmissionResponse.writeTo(writer);
+        writer.println();
     }
 
 }
@@ -1,12 +1,18 @@
 package com.myorg.core.utils;
 
+import com.myorg.core.beans.ServiceWorker;
 import com.myorg.core.cache.CacheRegistry;
+import com.myorg.core.cache.CacheReloader;
+import com.myorg.core.cache.LoadResult;
 import com.myorg.core.cache.ServiceCache;
 import com.myorg.core.exception.CacheException;
+import com.myorg.core.resilience.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 /**
  * This is utility class to provide various accessors, validators and initializers to cache
@@ -65,17 +71,47 @@ public class CacheUtils {
 
     }
 
+    /**
+     * Initialize cache with supplied cache configuration, whose entries are reloaded in the background
+     * through supplied reloader once they are requested after reload time
+     * @param cacheRegistry Cache Registry
+     * @param cacheName     Cache name
+     * @param loader        Loader function to use for getting data
+     * @param reloader      Reloader to use for getting fresh data in the background
+     * @param ttl           Expiry time in minutes
+     * @param refreshTime   Reload time in minutes, 0 disables background reload
+     * @param maxSize       Maximum number of entries
+     */
+    public static void initializeCache(CacheRegistry cacheRegistry, String cacheName, Function<Object, Object> loader,
+                                       CacheReloader reloader, long ttl, long refreshTime, long maxSize) {
+        try {
+            LOG.info("initialize cache {} cache..", cacheName);
+            ServiceCache serviceCache = cacheRegistry.registerCache(cacheName, ttl, refreshTime, maxSize);
+            if (serviceCache != null) {
+                LOG.info("{} cache exists..", cacheName);
+                serviceCache.init(loader, reloader);
+                LOG.info("{} cache initialized..", cacheName);
+            } else {
+                LOG.error("Unable to initializeCache: {}", cacheName);
+            }
+        } catch (Exception e) {
+            LOG.error("Exception occurred while initializing cache {}", e);
+        }
+
+    }
+
     /**
      * Get data from cache if present for supplied category and name
      * @param category          Cache category
      * @param cacheName         Cache name
      * @param key               Cache key
+     * @param loadContext       Context to load data with if not cached, not retained by the cache
      * @param loader            Loader function to initialize cache if not already initialized
      * @param cacheRegistry     Cache registry
      * @return                  Cache data
      * @throws CacheException   Exception while getting cache data
      */
-    public static Object getCacheData(String cacheName, Object key,
+    public static Object getCacheData(String cacheName, Object key, Object loadContext,
                                       Function<Object, Object> loader, CacheRegistry cacheRegistry) throws CacheException {
         ServiceCache serviceCache = cacheRegistry.getCache(cacheName);
         if (serviceCache == null || !serviceCache.isEnabled()) {
@@ -87,7 +123,7 @@ public class CacheUtils {
             LOG.debug("Cache {} initialized", cacheName);
         }
         LOG.debug("get from cache");
-        return serviceCache.getData(key);
+        return serviceCache.getData(key, loadContext);
     }
 
     /**
@@ -104,8 +140,96 @@ public class CacheUtils {
         if (serviceCache == null || !serviceCache.isEnabled()) {
             return false;
         }
-        return serviceCache.getCacheMap() != null && serviceCache.getCacheMap().containsKey(key);
+        return serviceCache.isCached(key);
+    }
+
+
+    /**
+     * Loader function for caches of verdicts, which caches a missing verdict as transient failure and a
+     * rejecting verdict as definitive negative. Service workers without service task did not request
+     * the verdict and service workers with cancelled service task gave up on it, nothing is cached for them
+     * @param serviceDataFunction   Function to get verdict from service response, returns null on failure
+     * @return                      Loader function applied to the service worker as load context
+     */
+    public static UnaryOperator<Object> getVerdictLoader(Function<ServiceWorker, Boolean> serviceDataFunction) {
+        return loadContext -> {
+            ServiceWorker serviceWorker = (ServiceWorker) loadContext;
+            if (serviceWorker.getServiceTask() == null || serviceWorker.getServiceTask().isCancelled()) {
+                return null;
+            }
+            return LoadResult.ofVerdict(serviceDataFunction.apply(serviceWorker));
+        };
+    }
+
+    /**
+     * Reloader for caches of verdicts loaded by {@link #getVerdictLoader(Function)}. The id of the service worker
+     * the verdict was loaded with, e.g. the e-mail address, is kept as reload context, since the cache key is only
+     * its hash. Reloaded verdicts are cached like loaded ones, a missing verdict keeps the stale one
+     * @param reloadFunction        Function to execute the request for an id again, returns service worker with
+     *                              completed service task or null if the request is not executed
+     * @param serviceDataFunction   Function to get verdict from service response, returns null on failure
+     * @return                      Reloader
+     */
+    public static CacheReloader getVerdictReloader(Function<String, ServiceWorker> reloadFunction,
+                                                   Function<ServiceWorker, Boolean> serviceDataFunction) {
+        return new CacheReloader() {
+            @Override
+            public Object getReloadContext(Object loadContext) {
+                return loadContext instanceof ServiceWorker ? ((ServiceWorker) loadContext).getId() : null;
+            }
+
+            @Override
+            public Object reload(Object reloadContext) {
+                ServiceWorker reloadWorker = reloadFunction.apply((String) reloadContext);
+                if (reloadWorker == null || reloadWorker.getServiceTask() == null) {
+                    return null;
+                }
+                return LoadResult.ofVerdict(serviceDataFunction.apply(reloadWorker));
+            }
+        };
+    }
+
+    /**
+     * Coalesce service worker with the load already in flight for the same key. If another request is
+     * already loading the key, a service worker attached to that load is returned so that no further
+     * HTTP request is issued. Otherwise supplied service worker is registered as the load in flight
+     * @param cacheName         Cache name
+     * @param serviceWorker     Service worker with request payload
+     * @param cacheRegistry     Cache registry
+     * @return                  Service worker to dispatch, or service worker attached to load in flight
+     */
+    public static ServiceWorker coalesce(String cacheName, ServiceWorker serviceWorker, CacheRegistry cacheRegistry) {
+        CompletableFuture<String> sharedTask = new CompletableFuture<>();
+        CompletableFuture<String> inFlightTask = cacheRegistry.registerInFlight(cacheName, serviceWorker.getCacheKey(), sharedTask);
+        if (inFlightTask != null) {
+            LOG.debug("attaching {} to load in flight", serviceWorker);
+            return new ServiceWorker(serviceWorker, inFlightTask);
+        }
+        serviceWorker.setSharedTask(sharedTask);
+        return serviceWorker;
     }
 
+    /**
+     * Guard service worker returned by {@link #coalesce(String, ServiceWorker, CacheRegistry)} with circuit breaker.
+     * Service worker which is going to be dispatched is monitored if the breaker permits the call, otherwise it is
+     * cancelled along with the service workers attached to it and a service worker which is never dispatched is
+     * returned, so that service answers with its fallback verdict without waiting for the upstream service
+     * @param serviceWorker     Service worker returned by coalesce
+     * @param circuitBreaker    Circuit breaker of the service
+     * @return                  Supplied service worker, or service worker which is never dispatched
+     */
+    public static ServiceWorker guard(ServiceWorker serviceWorker, CircuitBreaker circuitBreaker) {
+        if (serviceWorker.getServiceTask() != null || serviceWorker.getSharedTask() == null) {
+            /*Attached to load in flight, no upstream call of its own*/
+            return serviceWorker;
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            LOG.debug("{} not permitted by {}", serviceWorker, circuitBreaker);
+            serviceWorker.cancel();
+            return new ServiceWorker(serviceWorker.getId(), serviceWorker.getServiceRequest());
+        }
+        circuitBreaker.monitor(serviceWorker.getSharedTask());
+        return serviceWorker;
+    }
 
 }
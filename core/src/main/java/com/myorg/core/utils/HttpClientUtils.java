@@ -1,31 +1,53 @@
 package com.myorg.core.utils;
 
+import com.myorg.core.beans.RequestDeadline;
 import com.myorg.core.beans.ServiceWorker;
 import com.myorg.core.exception.ConnectionException;
+import com.myorg.core.resilience.RequestHedger;
+import com.myorg.core.resilience.RetryPolicy;
+import com.myorg.core.services.HttpClientProvider;
+import com.myorg.core.services.ServiceExecutor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.Configurable;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpOptions;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.client.BasicResponseHandler;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -44,14 +66,33 @@ public class HttpClientUtils {
      * @param httpClient Instance of @param lang Document Language
      * @param httpGet    Get Request
      * @param apiName    Name of API
+     * @param shouldCloseConnection Closes the client, must be false for shared pooled client
      * @return JSON String Response
      */
     public static String executeHTTPGetCall(final CloseableHttpClient httpClient, final HttpGet httpGet,
                                             final String apiName, final int expectedStatusCode, boolean shouldCloseConnection) {
+        return executeHTTPGetCall(httpClient, httpGet, apiName, expectedStatusCode, shouldCloseConnection, null, RequestDeadline.none());
+    }
+
+    /**
+     * This is the method used to execute HTTP Get method for REST API end point, retrying failed attempts as decided by
+     * supplied retry policy.
+     *
+     * @param httpClient Instance of CloseableHttpClient
+     * @param httpGet    Get Request
+     * @param apiName    Name of API
+     * @param shouldCloseConnection Closes the client, must be false for shared pooled client
+     * @param retryPolicy Retry policy of the service, null if request is not retried
+     * @param deadline   Request deadline, timeouts of every attempt are capped by it
+     * @return JSON String Response
+     */
+    public static String executeHTTPGetCall(final CloseableHttpClient httpClient, final HttpGet httpGet,
+                                            final String apiName, final int expectedStatusCode, boolean shouldCloseConnection,
+                                            final RetryPolicy retryPolicy, final RequestDeadline deadline) {
 
         String responseStr = null;
+        final CloseableHttpResponse response = getResponseFromHTTPGet(httpClient, httpGet, apiName, retryPolicy, deadline);
         try {
-            final CloseableHttpResponse response = getResponseFromHTTPGet(httpClient, httpGet, apiName);
             if (null != response && response.getStatusLine() != null
                     && response.getStatusLine().getStatusCode() == expectedStatusCode) {
                 responseStr = EntityUtils.toString(response.getEntity());
@@ -61,6 +102,8 @@ public class HttpClientUtils {
         } catch (final IOException ex) {
             LOGGER.error(":::: {} : executeHTTPGetCall IOException occured {} ", apiName, ex);
         } finally {
+            /*Closing the response releases the connection back to the pool*/
+            closeResponse(response, apiName);
             if (shouldCloseConnection) {
                 try {
                     httpClient.close();
@@ -74,6 +117,7 @@ public class HttpClientUtils {
     }
     /**
      * This method is used to execute HTTP Post method for REST API end point.
+     * The client is not closed as it is shared, only the response is closed.
      *
      * @param httpClient Instance of CloseableHttpClient
      * @param httpPost   Post Request
@@ -82,12 +126,28 @@ public class HttpClientUtils {
      */
     public static String executeHTTPPostCall(final CloseableHttpClient httpClient, final HttpPost httpPost,
                                              final String apiName, final int expectedStatusCode) {
+        return executeHTTPPostCall(httpClient, httpPost, apiName, expectedStatusCode, null, RequestDeadline.none());
+    }
+
+    /**
+     * This method is used to execute HTTP Post method for REST API end point, retrying failed attempts as decided by
+     * supplied retry policy. Post is not idempotent, hence it is only retried if it did not reach the service.
+     *
+     * @param httpClient Instance of CloseableHttpClient
+     * @param httpPost   Post Request
+     * @param apiName    Name of the client
+     * @param retryPolicy Retry policy of the service, null if request is not retried
+     * @param deadline   Request deadline, timeouts of every attempt are capped by it
+     * @return JSON String Response
+     */
+    public static String executeHTTPPostCall(final CloseableHttpClient httpClient, final HttpPost httpPost,
+                                             final String apiName, final int expectedStatusCode, final RetryPolicy retryPolicy,
+                                             final RequestDeadline deadline) {
 
         LOGGER.debug(":::: Inside executeHTTPPostCall for {} start ", apiName);
         String responseStr = null;
 
-        try {
-            final CloseableHttpResponse response = httpClient.execute(httpPost);
+        try (final CloseableHttpResponse response = executeWithRetry(httpClient, httpPost, retryPolicy, deadline)) {
             if (null != response && response.getStatusLine() != null
                     && response.getStatusLine().getStatusCode() == expectedStatusCode) {
                 responseStr = EntityUtils.toString(response.getEntity());
@@ -105,12 +165,6 @@ public class HttpClientUtils {
         } catch (final IOException ex) {
             LOGGER.error(":::: {} : executeHTTPPostCall IOException occured {} ", apiName, ex);
         } finally {
-            try {
-                httpClient.close();
-            } catch (final IOException e) {
-                LOGGER.error(":::: {} : executeHTTPPostCall IOException occured while closing httpclient {} ", apiName,
-                        e);
-            }
             httpPost.releaseConnection();
         }
         LOGGER.debug(":::: Inside executeHTTPPostCall for {} reposnseString {} end ", apiName, responseStr);
@@ -123,8 +177,18 @@ public class HttpClientUtils {
      */
     public static CloseableHttpResponse getResponseFromHTTPGet(final CloseableHttpClient httpClient,
                                                                final HttpGet httpGet, final String apiName) {
+        return getResponseFromHTTPGet(httpClient, httpGet, apiName, null, RequestDeadline.none());
+    }
+
+    /**
+     * This is the method will execute HTTP Get for REST API end point, retrying failed attempts as decided by supplied
+     * retry policy within supplied deadline, and will return the Response of the last attempt as it is.
+     */
+    public static CloseableHttpResponse getResponseFromHTTPGet(final CloseableHttpClient httpClient, final HttpGet httpGet,
+                                                               final String apiName, final RetryPolicy retryPolicy,
+                                                               final RequestDeadline deadline) {
         try {
-            return httpClient.execute(httpGet);
+            return executeWithRetry(httpClient, httpGet, retryPolicy, deadline);
         } catch (final ClientProtocolException ex) {
             LOGGER.error(":::: {} : getResponseFromHTTPGet ClientProtocolException occured {}  ", apiName, ex);
         } catch (final IOException ex) {
@@ -134,25 +198,439 @@ public class HttpClientUtils {
 
     }
 
+    /**
+     * Closes the response so that underlying connection is released back to the pool
+     * @param response  Http response
+     * @param apiName   Name of API
+     */
+    private static void closeResponse(final CloseableHttpResponse response, final String apiName) {
+        if (response != null) {
+            try {
+                response.close();
+            } catch (final IOException e) {
+                LOGGER.error(":::: {} : IOException occured while closing response", apiName, e);
+            }
+        }
+    }
+
+    /**
+     * Executes request on blocking HTTP client, retrying it as decided by supplied retry policy. Timeouts of every
+     * attempt are capped by what is left of the deadline when it is sent. Responses of attempts which are retried
+     * are consumed and closed, so that their connections are released to the pool
+     * @param httpClient    HTTP client
+     * @param request       Request
+     * @param retryPolicy   Retry policy of the service, null if request is not retried
+     * @param deadline      Request deadline, retries are not made once it would be exceeded
+     * @return              Response of the last attempt, must be closed by the caller
+     * @throws IOException  Thrown if last attempt failed
+     */
+    public static CloseableHttpResponse executeWithRetry(final CloseableHttpClient httpClient, final HttpUriRequest request,
+                                                         final RetryPolicy retryPolicy, final RequestDeadline deadline) throws IOException {
+        HttpUriRequest attemptRequest = withDeadline(request, deadline);
+        if (retryPolicy == null) {
+            return httpClient.execute(attemptRequest);
+        }
+        retryPolicy.onRequest();
+        for (int attempts = 1; ; attempts++) {
+            long delay;
+            try {
+                CloseableHttpResponse response = httpClient.execute(attemptRequest);
+                if (response.getStatusLine().getStatusCode() < HttpStatus.SC_MULTIPLE_CHOICES) {
+                    return response;
+                }
+                delay = retryPolicy.getRetryDelay(attemptRequest, attempts, response, null, deadline);
+                if (delay < 0) {
+                    return response;
+                }
+                EntityUtils.consumeQuietly(response.getEntity());
+                response.close();
+            } catch (IOException e) {
+                delay = retryPolicy.getRetryDelay(attemptRequest, attempts, null, e, deadline);
+                if (delay < 0) {
+                    throw e;
+                }
+            }
+            LOGGER.debug("retrying {} request in {} ms after attempt {}", retryPolicy.getServiceRequestType(), delay, attempts);
+            try {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for retry");
+            }
+            attemptRequest = withDeadline(RequestBuilder.copy(request).build(), deadline);
+        }
+    }
+
+    /**
+     * Caps timeouts of supplied request by what is left of the deadline. Request without own configuration gets
+     * one, so that it does not fall back to the infinite socket timeout of the client
+     * @param request   Request
+     * @param deadline  Request deadline
+     * @return          Supplied request
+     */
+    private static HttpUriRequest withDeadline(final HttpUriRequest request, final RequestDeadline deadline) {
+        if (deadline == null || deadline == RequestDeadline.none() || !(request instanceof HttpRequestBase)) {
+            return request;
+        }
+        HttpRequestBase requestBase = (HttpRequestBase) request;
+        requestBase.setConfig(withDeadline(requestBase.getConfig() != null ? requestBase.getConfig() : RequestConfig.DEFAULT, deadline));
+        return requestBase;
+    }
+
     /**
      * @param serviceWorker   Service worker contains future task
-     * @param timeout         Max time to get service response
+     * @param timeout         Max time in milliseconds to get service response, capped by deadline of service worker
      * @return                Service response
      * @throws ConnectionException In case task fails to get data before timeout
      */
     public static String getServiceResponse(final ServiceWorker serviceWorker, long timeout) throws ConnectionException {
         try {
-            return serviceWorker.getServiceTask().get(timeout, TimeUnit.SECONDS);
+            return serviceWorker.getServiceTask().get(serviceWorker.getDeadline().cap(timeout), TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
-            serviceWorker.getRequestPayload().abort();
+            serviceWorker.cancel();
             Thread.currentThread().interrupt();//NOSONAR
             throw new ConnectionException(e.getMessage());
         } catch (ExecutionException | IllegalStateException | TimeoutException e) {
-            serviceWorker.getRequestPayload().abort();
+            /*IllegalStateException covers CancellationException of a cancelled task*/
+            serviceWorker.cancel();
             throw new ConnectionException(e.getMessage());
         }
     }
 
+    /**
+     * Executes request payload of service worker through non blocking HTTP client and sets the
+     * resulting future task on the service worker. No thread is occupied while waiting for response,
+     * the future is completed by I/O dispatcher thread
+     * @param httpAsyncClient   Non blocking HTTP client
+     * @param serviceWorker     Service worker contains request payload
+     * @param requestConfig     Request configuration with connect, connection lease and socket timeouts
+     * @return                  Future task completed with service response
+     */
+    public static CompletableFuture<String> executeAsync(final CloseableHttpAsyncClient httpAsyncClient,
+                                                         final ServiceWorker serviceWorker, final RequestConfig requestConfig) {
+        return executeAsync(httpAsyncClient, serviceWorker, requestConfig, null, null);
+    }
+
+    /**
+     * Executes request payload of service worker through non blocking HTTP client like
+     * {@link #executeAsync(CloseableHttpAsyncClient, ServiceWorker, RequestConfig)}. If a request hedger is supplied
+     * and the request is safe, an identical request is sent once the request is outstanding for longer than
+     * the hedge delay. First response completes the future task, the other request is aborted. Failed requests are
+     * retried as decided by supplied retry policy, task fails only once all requests failed
+     * @param httpAsyncClient   Non blocking HTTP client
+     * @param serviceWorker     Service worker contains request payload
+     * @param requestConfig     Request configuration with connect, connection lease and socket timeouts
+     * @param requestHedger     Request hedger of the service, null if requests of the service are not hedged
+     * @param retryPolicy       Retry policy of the service, null if requests of the service are not retried
+     * @return                  Future task completed with service response
+     */
+    public static CompletableFuture<String> executeAsync(final CloseableHttpAsyncClient httpAsyncClient,
+                                                         final ServiceWorker serviceWorker, final RequestConfig requestConfig,
+                                                         final RequestHedger requestHedger, final RetryPolicy retryPolicy) {
+        HttpUriRequest requestPayload = serviceWorker.getRequestPayload();
+        if (requestPayload instanceof HttpRequestBase) {
+            ((HttpRequestBase) requestPayload).setConfig(requestConfig);
+        }
+        CompletableFuture<String> serviceTask = new CompletableFuture<>();
+        serviceWorker.setServiceTask(serviceTask);
+        if (retryPolicy != null) {
+            retryPolicy.onRequest();
+        }
+        AtomicInteger pendingExchanges = new AtomicInteger(1);
+        AsyncExchange exchange = new AsyncExchange(httpAsyncClient, serviceTask, pendingExchanges, serviceWorker.getDeadline(),
+                requestHedger, retryPolicy);
+        exchange.dispatch(requestPayload);
+        /*Completing or cancelling service task releases the connection of any request still outstanding*/
+        serviceTask.whenComplete((response, e) -> exchange.abort());
+        if (requestHedger != null && isSafe(requestPayload)) {
+            ScheduledFuture<?> scheduledHedge = requestHedger.scheduleHedge(() -> {
+                if (serviceTask.isDone()) {
+                    return;
+                }
+                pendingExchanges.incrementAndGet();
+                AsyncExchange hedge = new AsyncExchange(httpAsyncClient, serviceTask, pendingExchanges, serviceWorker.getDeadline(),
+                        requestHedger, retryPolicy);
+                hedge.dispatch(RequestBuilder.copy(requestPayload).build());
+                serviceTask.whenComplete((response, e) -> hedge.abort());
+            });
+            if (scheduledHedge != null) {
+                serviceTask.whenComplete((response, e) -> scheduledHedge.cancel(false));
+            }
+        }
+        return serviceTask;
+    }
+
+    /**
+     * A request dispatched through non blocking HTTP client along with its retries. Response completes service task
+     * unless it is already completed, failure which is not retried fails service task only if no other exchange for
+     * it is outstanding
+     */
+    private static final class AsyncExchange implements FutureCallback<HttpResponse> {
+
+        private final CloseableHttpAsyncClient httpAsyncClient;
+
+        private final CompletableFuture<String> serviceTask;
+
+        private final AtomicInteger pendingExchanges;
+
+        private final RequestDeadline deadline;
+
+        private final RequestHedger requestHedger;
+
+        private final RetryPolicy retryPolicy;
+
+        private volatile HttpUriRequest request;
+
+        private volatile Future<HttpResponse> responseFuture;
+
+        private volatile ScheduledFuture<?> scheduledRetry;
+
+        private volatile int attempts;
+
+        private volatile long dispatchedAt;
+
+        private AsyncExchange(CloseableHttpAsyncClient httpAsyncClient, CompletableFuture<String> serviceTask, AtomicInteger pendingExchanges,
+                              RequestDeadline deadline, RequestHedger requestHedger, RetryPolicy retryPolicy) {
+            this.httpAsyncClient = httpAsyncClient;
+            this.serviceTask = serviceTask;
+            this.pendingExchanges = pendingExchanges;
+            this.deadline = deadline;
+            this.requestHedger = requestHedger;
+            this.retryPolicy = retryPolicy;
+        }
+
+        private void dispatch(HttpUriRequest request) {
+            this.request = request;
+            attempts++;
+            dispatchedAt = System.nanoTime();
+            responseFuture = httpAsyncClient.execute(request, this);
+        }
+
+        @Override
+        public void completed(HttpResponse response) {
+            if (response.getStatusLine().getStatusCode() >= HttpStatus.SC_MULTIPLE_CHOICES
+                    && retry(getRetryDelay(response, null))) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                return;
+            }
+            try {
+                String responseStr = new BasicResponseHandler().handleResponse(response);
+                if (requestHedger != null) {
+                    requestHedger.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - dispatchedAt));
+                }
+                serviceTask.complete(responseStr);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void failed(Exception e) {
+            if (!retry(getRetryDelay(null, e))) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void cancelled() {
+            if (pendingExchanges.decrementAndGet() == 0) {
+                serviceTask.cancel(false);
+            }
+        }
+
+        /**
+         * Aborts outstanding request and pending retry
+         */
+        private void abort() {
+            ScheduledFuture<?> retry = scheduledRetry;
+            if (retry != null) {
+                retry.cancel(false);
+            }
+            Future<HttpResponse> future = responseFuture;
+            if (future != null && !future.isDone()) {
+                future.cancel(true);
+                request.abort();
+            }
+        }
+
+        private long getRetryDelay(HttpResponse response, Exception e) {
+            if (retryPolicy == null || serviceTask.isDone()) {
+                return RetryPolicy.NO_RETRY;
+            }
+            return retryPolicy.getRetryDelay(request, attempts, response, e, deadline);
+        }
+
+        /**
+         * Schedules retry with timeouts capped by what is left of the request deadline
+         * @param delay Time in milliseconds to wait before the retry
+         * @return      true if retry is scheduled
+         */
+        private boolean retry(long delay) {
+            if (delay < 0) {
+                return false;
+            }
+            LOGGER.debug("retrying {} request in {} ms after attempt {}", retryPolicy.getServiceRequestType(), delay, attempts);
+            HttpUriRequest failedRequest = request;
+            scheduledRetry = retryPolicy.schedule(() -> {
+                if (serviceTask.isDone()) {
+                    return;
+                }
+                RequestBuilder retryRequest = RequestBuilder.copy(failedRequest);
+                if (failedRequest instanceof Configurable && ((Configurable) failedRequest).getConfig() != null) {
+                    retryRequest.setConfig(withDeadline(((Configurable) failedRequest).getConfig(), deadline));
+                }
+                dispatch(retryRequest.build());
+                if (serviceTask.isDone()) {
+                    /*Completed while retry was dispatched*/
+                    abort();
+                }
+            }, delay);
+            return scheduledRetry != null;
+        }
+
+        private void fail(Exception e) {
+            if (pendingExchanges.decrementAndGet() == 0) {
+                serviceTask.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * @param requestConfig Request configuration
+     * @param deadline      Request deadline
+     * @return              Copy of request configuration with timeouts capped by what is left of the deadline
+     */
+    private static RequestConfig withDeadline(final RequestConfig requestConfig, final RequestDeadline deadline) {
+        return RequestConfig.copy(requestConfig)
+                .setConnectTimeout(capTimeout(requestConfig.getConnectTimeout(), deadline))
+                .setConnectionRequestTimeout(capTimeout(requestConfig.getConnectionRequestTimeout(), deadline))
+                .setSocketTimeout(capTimeout(requestConfig.getSocketTimeout(), deadline))
+                .build();
+    }
+
+    private static int capTimeout(final int timeout, final RequestDeadline deadline) {
+        /*0 and negative timeouts are infinite, exhausted budget must not turn into one*/
+        long cappedTimeout = deadline.cap(timeout > 0 ? timeout : Long.MAX_VALUE);
+        return (int) Math.max(1, Math.min(cappedTimeout, Integer.MAX_VALUE));
+    }
+
+    /**
+     * @param request   Request
+     * @return          true if request does not change state on the service, hence it can be hedged
+     */
+    private static boolean isSafe(final HttpUriRequest request) {
+        String method = request.getMethod();
+        return HttpGet.METHOD_NAME.equals(method) || HttpHead.METHOD_NAME.equals(method) || HttpOptions.METHOD_NAME.equals(method);
+    }
+
+    /**
+     * Executes a copy of request payload of service worker on blocking HTTP client, e.g. to refresh an access token
+     * in the background. Supplied service worker is left untouched, as its service task may still be read by others
+     * @param httpClient        HTTP client
+     * @param serviceWorker     Service worker whose request is executed again
+     * @param requestConfig     Request configuration with connect, connection lease and socket timeouts
+     * @return                  Service worker with completed service task, or null if service worker has no request payload
+     */
+    public static ServiceWorker reload(final CloseableHttpClient httpClient, final ServiceWorker serviceWorker,
+                                       final RequestConfig requestConfig) {
+        return reload(httpClient, serviceWorker, requestConfig, null);
+    }
+
+    /**
+     * Executes a copy of request payload of service worker on blocking HTTP client like
+     * {@link #reload(CloseableHttpClient, ServiceWorker, RequestConfig)}, retrying failed attempts as decided by supplied retry policy
+     * @param httpClient        HTTP client
+     * @param serviceWorker     Service worker whose request is executed again
+     * @param requestConfig     Request configuration with connect, connection lease and socket timeouts
+     * @param retryPolicy       Retry policy of the service, null if request is not retried
+     * @return                  Service worker with completed service task, or null if service worker has no request payload
+     */
+    public static ServiceWorker reload(final CloseableHttpClient httpClient, final ServiceWorker serviceWorker,
+                                       final RequestConfig requestConfig, final RetryPolicy retryPolicy) {
+        if (serviceWorker.getRequestPayload() == null) {
+            return null;
+        }
+        HttpUriRequest requestPayload = RequestBuilder.copy(serviceWorker.getRequestPayload()).setConfig(requestConfig).build();
+        ServiceWorker reloadWorker = new ServiceWorker(serviceWorker.getId(), serviceWorker.getServiceRequest(), requestPayload);
+        CompletableFuture<String> serviceTask = new CompletableFuture<>();
+        try (CloseableHttpResponse response = executeWithRetry(httpClient, requestPayload, retryPolicy, serviceWorker.getDeadline())) {
+            serviceTask.complete(new BasicResponseHandler().handleResponse(response));
+        } catch (IOException e) {
+            LOGGER.debug("error while reloading {}", serviceWorker, e);
+            serviceTask.completeExceptionally(e);
+        }
+        reloadWorker.setServiceTask(serviceTask);
+        return reloadWorker;
+    }
+
+    /**
+     * Get service data asynchronously. Service worker which is not yet dispatched is executed through
+     * non blocking HTTP client. Once the service task completes, data is read through supplied cache accessor
+     * so that response is parsed and cached exactly like in blocking flow. Cache accessor runs on the worker
+     * pool of supplied service executor, as it may block e.g. on cache loader or persisted verdicts and must not
+     * hold up the I/O dispatcher thread completing the service task. Timeouts are derived from the deadline of
+     * the service worker at the time it is dispatched.
+     * @param httpClientProvider    Provider of non blocking HTTP client and request configuration
+     * @param serviceExecutor       Service executor running the cache accessor once the service task completes
+     * @param serviceWorker         Service worker
+     * @param timeout               Max time in milliseconds to wait for data
+     * @param cacheAccessor         Function to get cached service data for service worker
+     * @param <T>                   Service data type
+     * @return                      Future completed with service data, failed with {@link java.util.concurrent.RejectedExecutionException}
+     *                              if worker pool is saturated, or cancelled if the service task is cancelled
+     */
+    public static <T> CompletableFuture<T> getServiceDataAsync(final HttpClientProvider httpClientProvider,
+                                                               final ServiceExecutor serviceExecutor,
+                                                               final ServiceWorker serviceWorker, long timeout,
+                                                               final Function<ServiceWorker, T> cacheAccessor) {
+        return getServiceDataAsync(httpClientProvider, serviceExecutor, serviceWorker, timeout, null, null, cacheAccessor);
+    }
+
+    /**
+     * Get service data asynchronously like {@link #getServiceDataAsync(HttpClientProvider, ServiceExecutor, ServiceWorker, long, Function)},
+     * hedging the request through supplied request hedger and retrying it as decided by supplied retry policy
+     * @param httpClientProvider    Provider of non blocking HTTP client and request configuration
+     * @param serviceExecutor       Service executor running the cache accessor once the service task completes
+     * @param serviceWorker         Service worker
+     * @param timeout               Max time in milliseconds to wait for data
+     * @param requestHedger         Request hedger of the service, null if requests of the service are not hedged
+     * @param retryPolicy           Retry policy of the service, null if requests of the service are not retried
+     * @param cacheAccessor         Function to get cached service data for service worker
+     * @param <T>                   Service data type
+     * @return                      Future completed with service data, failed with {@link java.util.concurrent.RejectedExecutionException}
+     *                              if worker pool is saturated, or cancelled if the service task is cancelled
+     */
+    public static <T> CompletableFuture<T> getServiceDataAsync(final HttpClientProvider httpClientProvider,
+                                                               final ServiceExecutor serviceExecutor,
+                                                               final ServiceWorker serviceWorker, long timeout,
+                                                               final RequestHedger requestHedger, final RetryPolicy retryPolicy,
+                                                               final Function<ServiceWorker, T> cacheAccessor) {
+        if (serviceWorker.getServiceTask() == null && serviceWorker.getServiceRequest() != null) {
+            executeAsync(httpClientProvider.getHttpAsyncClient(), serviceWorker,
+                    httpClientProvider.getRequestConfig(serviceWorker.getDeadline(), timeout), requestHedger, retryPolicy);
+        }
+        if (serviceWorker.getServiceTask() == null) {
+            /*Service worker is cached, there is nothing to wait for*/
+            return CompletableFuture.completedFuture(cacheAccessor.apply(serviceWorker));
+        }
+        /*Failures are handled by cache accessor itself as the completed task is read again by cache loader. Service task
+        is completed on I/O dispatcher thread, hence cache accessor is handed over to the worker pool. Cancelled task
+        has no outcome to cache, so that the key is requested again by the next lookup*/
+        return serviceWorker.getServiceTask().handle((response, e) -> serviceWorker)
+                .thenCompose(completedWorker -> completedWorker.getServiceTask().isCancelled()
+                        ? cancelled()
+                        : serviceExecutor.submit(() -> cacheAccessor.apply(completedWorker)));
+    }
+
+    /**
+     * @return  Future of service data which is already cancelled
+     */
+    private static <T> CompletableFuture<T> cancelled() {
+        CompletableFuture<T> cancelledData = new CompletableFuture<>();
+        cancelledData.cancel(false);
+        return cancelledData;
+    }
+
     /**
      * Get HTTP payload to be sent to service endpoint
      * @param endpointUrl   Endpoint URL
@@ -0,0 +1,98 @@
+package com.myorg.core.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.myorg.core.beans.leadgeneration.FormSubmissionRequest;
+import com.myorg.core.beans.leadgeneration.FormSubmissionRequestAdapter;
+import com.myorg.core.beans.leadgeneration.FormSubmissionResponse;
+import com.myorg.core.beans.leadgeneration.FormSubmissionResponseAdapter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * This is utility class to serialize form submissions and to read upstream responses without binding them to objects or building a json tree
+ */
+public class JsonUtils {
+
+    private JsonUtils() {
+    }
+
+    /*Gson is thread safe, a single instance is shared instead of creating one per request. Form submission
+    request and response are serialized on every submission, their adapters write fields without reflection*/
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(FormSubmissionRequest.class, new FormSubmissionRequestAdapter())
+            .registerTypeAdapter(FormSubmissionResponse.class, new FormSubmissionResponseAdapter())
+            .create();
+
+    /**
+     * Reads values of supplied top level fields of a json object. Values of other fields are skipped without being
+     * materialized and reading stops as soon as all supplied fields were read, so the remainder of the json is never parsed
+     * @param reader        Json, not closed by this method
+     * @param fields        Names of top level fields
+     * @return              Value per field in the order of supplied fields, string, number and boolean values are returned
+     *                      as string, values of absent fields, null fields and nested objects or arrays are null
+     * @throws IOException  Thrown if json could not be read or is malformed
+     */
+    public static String[] extractFields(Reader reader, String... fields) throws IOException {
+        String[] values = new String[fields.length];
+        int remaining = fields.length;
+        JsonReader jsonReader = new JsonReader(reader);
+        try {
+            jsonReader.beginObject();
+        } catch (IllegalStateException e) {
+            throw new IOException("json is not an object", e);
+        }
+        while (remaining > 0 && jsonReader.hasNext()) {
+            int index = indexOf(fields, jsonReader.nextName());
+            if (index < 0 || values[index] != null) {
+                jsonReader.skipValue();
+                continue;
+            }
+            JsonToken token = jsonReader.peek();
+            if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                values[index] = jsonReader.nextString();
+            } else if (token == JsonToken.BOOLEAN) {
+                values[index] = Boolean.toString(jsonReader.nextBoolean());
+            } else {
+                jsonReader.skipValue();
+            }
+            if (values[index] != null) {
+                remaining--;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Reads values of supplied top level fields of a json object
+     * @param json      Json, may be null
+     * @param fields    Names of top level fields
+     * @return          Value per field in the order of supplied fields, all values are null if json is null or empty
+     * @throws JsonParseException   Thrown if json is malformed
+     * @see #extractFields(Reader, String...)
+     */
+    public static String[] extractFields(String json, String... fields) {
+        if (json == null || json.isEmpty()) {
+            return new String[fields.length];
+        }
+        try {
+            return extractFields(new StringReader(json), fields);
+        } catch (IOException e) {
+            throw new JsonParseException("unable to parse json", e);
+        }
+    }
+
+    private static int indexOf(String[] fields, String name) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
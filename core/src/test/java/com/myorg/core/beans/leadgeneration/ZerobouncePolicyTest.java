@@ -0,0 +1,42 @@
+package com.myorg.core.beans.leadgeneration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZerobouncePolicyTest {
+
+    @Test
+    void testStatusLookup() {
+        assertEquals(ZerobounceStatus.CATCH_ALL, ZerobounceStatus.of("catch-all", ""));
+        assertEquals(ZerobounceStatus.INVALID01, ZerobounceStatus.of("invalid", "mailbox_quota_exceeded"));
+        /*Unknown sub status falls back to status without sub status*/
+        assertEquals(ZerobounceStatus.SPAMTRAP, ZerobounceStatus.of("spamtrap", "new_sub_status"));
+        assertEquals(ZerobounceStatus.DEFAULT, ZerobounceStatus.of("new_status", null));
+        assertEquals(ZerobounceStatus.DEFAULT, ZerobounceStatus.of((ZeroBounceResponse) null));
+    }
+
+    @Test
+    void testDefaultPolicy() {
+        assertSame(ZerobouncePolicy.DEFAULT, ZerobouncePolicy.of(new String[0]));
+        assertTrue(ZerobouncePolicy.DEFAULT.isAllowed("valid", ""));
+        assertFalse(ZerobouncePolicy.DEFAULT.isAllowed("spamtrap", null));
+        assertEquals(ZerobounceStatus.INVALID01.isAllowed(), ZerobouncePolicy.DEFAULT.isAllowed("invalid", "mailbox_quota_exceeded"));
+    }
+
+    @Test
+    void testPolicyOverrides() {
+        ZerobouncePolicy policy = ZerobouncePolicy.of(new String[] {"catch-all=false", "unknown=false",
+                "unknown:greylisted = TRUE", "spamtrap:=true", "invalid", "abuse=maybe"});
+        assertFalse(policy.isAllowed("catch-all", ""));
+        assertFalse(policy.isAllowed("unknown", "timeout_exceeded"));
+        assertTrue(policy.isAllowed("unknown", "greylisted"));
+        assertTrue(policy.isAllowed("spamtrap", ""));
+        /*Statuses without valid override keep their default verdict*/
+        assertEquals(ZerobounceStatus.ABUSE.isAllowed(), policy.isAllowed("abuse", ""));
+        assertTrue(policy.isAllowed("valid", ""));
+    }
+}
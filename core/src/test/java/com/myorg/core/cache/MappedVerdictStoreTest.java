@@ -0,0 +1,118 @@
+package com.myorg.core.cache;
+
+import com.myorg.core.beans.ServiceCacheKey;
+import com.myorg.core.beans.ServiceRequestType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedVerdictStoreTest {
+
+    private static final ServiceCacheKey VALID_KEY = new ServiceCacheKey("valid@example.com", ServiceRequestType.ZEROBOUNCE);
+
+    private static final ServiceCacheKey INVALID_KEY = new ServiceCacheKey("invalid@example.com", ServiceRequestType.ZEROBOUNCE);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testGetPutRemove() {
+        MappedVerdictStore store = new MappedVerdictStore(tempDir.resolve("test.verdicts"), 1024);
+        store.put(VALID_KEY, true, System.currentTimeMillis() + 60000);
+        store.put(INVALID_KEY, false, System.currentTimeMillis() + 60000);
+        store.flush();
+        assertEquals(Boolean.TRUE, store.get(VALID_KEY).getValue());
+        assertEquals(Boolean.FALSE, store.get(INVALID_KEY).getValue());
+        store.remove(VALID_KEY);
+        store.flush();
+        assertNull(store.get(VALID_KEY));
+        store.close();
+    }
+
+    @Test
+    void testExpiredVerdict() {
+        MappedVerdictStore store = new MappedVerdictStore(tempDir.resolve("test.verdicts"), 1024);
+        store.put(VALID_KEY, true, System.currentTimeMillis() - 1);
+        store.flush();
+        assertNull(store.get(VALID_KEY));
+        store.close();
+    }
+
+    @Test
+    void testVerdictsSurviveReopen() {
+        Path file = tempDir.resolve("test.verdicts");
+        MappedVerdictStore store = new MappedVerdictStore(file, 1024);
+        store.put(VALID_KEY, true, System.currentTimeMillis() + 60000);
+        store.close();
+
+        MappedVerdictStore reopened = new MappedVerdictStore(file, 1024);
+        reopened.flush();
+        assertEquals(Boolean.TRUE, reopened.get(VALID_KEY).getValue());
+        assertNull(reopened.get(INVALID_KEY));
+        reopened.close();
+    }
+
+    @Test
+    void testVerdictExpiresWithStoredExpiry() {
+        MappedVerdictStore store = new MappedVerdictStore(tempDir.resolve("test.verdicts"), 1024);
+        long expiresAt = System.currentTimeMillis() + 60000;
+        store.put(VALID_KEY, true, expiresAt);
+        store.put(INVALID_KEY, false, expiresAt);
+        store.flush();
+        assertEquals(LoadResult.Type.HIT, store.get(VALID_KEY).getType());
+        assertEquals(expiresAt, store.get(VALID_KEY).getExpiresAt());
+        assertEquals(LoadResult.Type.NEGATIVE, store.get(INVALID_KEY).getType());
+        store.close();
+    }
+
+    @Test
+    void testClear() {
+        Path file = tempDir.resolve("test.verdicts");
+        MappedVerdictStore store = new MappedVerdictStore(file, 1024);
+        store.put(VALID_KEY, true, System.currentTimeMillis() + 60000);
+        store.flush();
+        store.clear();
+        assertNull(store.get(VALID_KEY));
+        store.close();
+
+        MappedVerdictStore reopened = new MappedVerdictStore(file, 1024);
+        reopened.flush();
+        assertNull(reopened.get(VALID_KEY));
+        reopened.close();
+    }
+
+    @Test
+    void testCapacityRoundedUp() {
+        assertEquals(1024, MappedVerdictStore.capacity(1));
+        assertEquals(2048, MappedVerdictStore.capacity(1025));
+        assertEquals(1 << 20, MappedVerdictStore.capacity(1 << 20));
+        assertEquals(1 << 26, MappedVerdictStore.capacity(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testClose() {
+        MappedVerdictStore store = new MappedVerdictStore(tempDir.resolve("test.verdicts"), 1024);
+        store.put(VALID_KEY, true, System.currentTimeMillis() + 60000);
+        store.flush();
+        store.close();
+        assertNull(store.get(VALID_KEY));
+        store.put(INVALID_KEY, false, System.currentTimeMillis() + 60000);
+        assertEquals(0, store.getDroppedWrites());
+    }
+
+    @Test
+    void testDroppedWritesCounted() {
+        MappedVerdictStore store = new MappedVerdictStore(tempDir.resolve("test.verdicts"), 1024, 1);
+        long expiresAt = System.currentTimeMillis() + 60000;
+        for (int i = 0; i < 10000; i++) {
+            store.put(new ServiceCacheKey("user" + i + "@example.com", ServiceRequestType.ZEROBOUNCE), true, expiresAt);
+        }
+        assertTrue(store.getDroppedWrites() > 0);
+        store.close();
+    }
+}
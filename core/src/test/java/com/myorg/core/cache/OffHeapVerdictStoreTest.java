@@ -0,0 +1,74 @@
+package com.myorg.core.cache;
+
+import com.myorg.core.beans.ServiceCacheKey;
+import com.myorg.core.beans.ServiceRequestType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapVerdictStoreTest {
+
+    private static final ServiceCacheKey VALID_KEY = new ServiceCacheKey("valid-token", ServiceRequestType.RECAPTCHA);
+
+    private static final ServiceCacheKey INVALID_KEY = new ServiceCacheKey("invalid-token", ServiceRequestType.RECAPTCHA);
+
+    private final OffHeapVerdictStore store = new OffHeapVerdictStore(1024);
+
+    @Test
+    void testGetPutRemove() {
+        store.put(VALID_KEY, true, System.currentTimeMillis() + 60000);
+        store.put(INVALID_KEY, false, System.currentTimeMillis() + 60000);
+        assertEquals(Boolean.TRUE, store.get(VALID_KEY).getValue());
+        assertEquals(Boolean.FALSE, store.get(INVALID_KEY).getValue());
+        store.remove(VALID_KEY);
+        assertNull(store.get(VALID_KEY));
+        assertEquals(Boolean.FALSE, store.get(INVALID_KEY).getValue());
+    }
+
+    @Test
+    void testExpiredVerdict() {
+        store.put(VALID_KEY, true, System.currentTimeMillis() - 1);
+        assertNull(store.get(VALID_KEY));
+    }
+
+    @Test
+    void testManyVerdicts() {
+        long expiresAt = System.currentTimeMillis() + 60000;
+        for (int i = 0; i < 500; i++) {
+            store.put(new ServiceCacheKey("token-" + i, ServiceRequestType.RECAPTCHA), i % 2 == 0, expiresAt);
+        }
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i % 2 == 0, store.get(new ServiceCacheKey("token-" + i, ServiceRequestType.RECAPTCHA)).getValue());
+        }
+    }
+
+    @Test
+    void testCapacityRoundedUp() {
+        assertEquals(64, OffHeapVerdictStore.segmentCapacity(1));
+        assertEquals(64, OffHeapVerdictStore.segmentCapacity(1024));
+        assertEquals(128, OffHeapVerdictStore.segmentCapacity(1025));
+        assertEquals(32768, new OffHeapVerdictStore(20000).capacity());
+        assertEquals(Integer.highestOneBit(Integer.MAX_VALUE / 16), OffHeapVerdictStore.segmentCapacity(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testClear() {
+        store.put(VALID_KEY, true, System.currentTimeMillis() + 60000);
+        store.clear();
+        assertNull(store.get(VALID_KEY));
+        store.put(VALID_KEY, true, System.currentTimeMillis() + 60000);
+        assertEquals(Boolean.TRUE, store.get(VALID_KEY).getValue());
+    }
+
+    @Test
+    void testClose() {
+        store.put(VALID_KEY, true, System.currentTimeMillis() + 60000);
+        store.close();
+        assertTrue(store.isClosed());
+        assertNull(store.get(VALID_KEY));
+        store.put(INVALID_KEY, false, System.currentTimeMillis() + 60000);
+        assertNull(store.get(INVALID_KEY));
+    }
+}
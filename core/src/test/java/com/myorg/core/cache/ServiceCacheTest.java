@@ -0,0 +1,342 @@
+package com.myorg.core.cache;
+
+import com.myorg.core.beans.ServiceCacheKey;
+import com.myorg.core.beans.ServiceRequestType;
+import com.myorg.core.exception.CacheException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServiceCacheTest {
+
+    private static final String CACHE_NAME = "test_cache";
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private final AtomicInteger reloadCount = new AtomicInteger();
+
+    private final CacheReloader reloader = new CacheReloader() {
+        @Override
+        public Object getReloadContext(Object loadContext) {
+            return "no-reload".equals(loadContext) ? null : loadContext;
+        }
+
+        @Override
+        public Object reload(Object reloadContext) {
+            reloadCount.incrementAndGet();
+            return "reload-failure".equals(reloadContext) ? LoadResult.failure() : reloadContext + "-reloaded";
+        }
+    };
+
+    private ServiceCache getServiceCache(CacheBackendType backendType) {
+        return getServiceCache(backendType, 0);
+    }
+
+    private ServiceCache getServiceCache(CacheBackendType backendType, long refreshTime) {
+        /*Reloads run on the calling thread*/
+        ServiceCache serviceCache = new ServiceCache(CACHE_NAME, 60, refreshTime, 100, 30, Runnable::run);
+        serviceCache.setEnabled(true);
+        serviceCache.setBackendType(backendType);
+        serviceCache.init(key -> {
+            loadCount.incrementAndGet();
+            if ("negative".equals(key)) {
+                return LoadResult.negative(false);
+            }
+            if ("failure".equals(key)) {
+                return LoadResult.failure();
+            }
+            return "null".equals(key) ? null : key + "-data";
+        }, reloader);
+        return serviceCache;
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testGetData(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        assertEquals("key-data", serviceCache.getData("key"));
+        assertEquals("key-data", serviceCache.getData("key"));
+        assertEquals(1, loadCount.get());
+        assertTrue(serviceCache.getCacheMap().containsKey("key"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testGetDataNull(CacheBackendType backendType) {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        assertThrows(CacheException.class, () -> serviceCache.getData("null"));
+        assertFalse(serviceCache.getCacheMap().containsKey("null"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testGetDataWithLoadContext(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        assertEquals("context-data", serviceCache.getData("key", "context"));
+        assertEquals("context-data", serviceCache.getData("key", "other-context"));
+        assertEquals(1, loadCount.get());
+        assertTrue(serviceCache.getCacheMap().containsKey("key"));
+        assertFalse(serviceCache.getCacheMap().containsKey("context"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testGetDataNegative(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        assertEquals(false, serviceCache.getData("negative"));
+        assertEquals(false, serviceCache.getData("negative"));
+        assertEquals(1, loadCount.get());
+        assertTrue(serviceCache.isCached("negative"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testGetDataFailureCached(CacheBackendType backendType) {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        serviceCache.setFailureTtl(30);
+        assertThrows(CacheException.class, () -> serviceCache.getData("failure"));
+        assertThrows(CacheException.class, () -> serviceCache.getData("failure"));
+        assertEquals(1, loadCount.get());
+        assertTrue(serviceCache.isCached("failure"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testGetDataFailureNotCached(CacheBackendType backendType) {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        serviceCache.setFailureTtl(0);
+        assertThrows(CacheException.class, () -> serviceCache.getData("failure"));
+        assertThrows(CacheException.class, () -> serviceCache.getData("failure"));
+        assertEquals(2, loadCount.get());
+        assertFalse(serviceCache.isCached("failure"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testExpiredNegativeIsReloaded(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        serviceCache.getCacheMap().put("negative", LoadResult.negative(false).expiringAt(System.currentTimeMillis() - 1));
+        assertFalse(serviceCache.isCached("negative"));
+        assertEquals(false, serviceCache.getData("negative"));
+        assertEquals(1, loadCount.get());
+        /*Reloaded negative replaces the expired one*/
+        assertTrue(serviceCache.isCached("negative"));
+        assertEquals(false, serviceCache.getData("negative"));
+        assertEquals(1, loadCount.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testExpiredFailureIsReloaded(CacheBackendType backendType) {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        serviceCache.setFailureTtl(30);
+        serviceCache.getCacheMap().put("failure", LoadResult.failure().expiringAt(System.currentTimeMillis() - 1));
+        assertFalse(serviceCache.isCached("failure"));
+        assertThrows(CacheException.class, () -> serviceCache.getData("failure"));
+        assertEquals(1, loadCount.get());
+        assertTrue(serviceCache.isCached("failure"));
+        assertThrows(CacheException.class, () -> serviceCache.getData("failure"));
+        assertEquals(1, loadCount.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testNegativeTtlIsCappedAtTtl(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        serviceCache.setNegativeTtl(600);
+        long loadedAt = System.currentTimeMillis();
+        serviceCache.getData("negative");
+        long expiresAt = ((LoadResult) serviceCache.getCacheMap().get("negative")).getExpiresAt();
+        /*Cache ttl is 60 minutes*/
+        assertTrue(expiresAt >= loadedAt + TimeUnit.MINUTES.toMillis(60));
+        assertTrue(expiresAt <= System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(60));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testNegativeTtlBelowTtl(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        serviceCache.setNegativeTtl(5);
+        long loadedAt = System.currentTimeMillis();
+        serviceCache.getData("negative");
+        long expiresAt = ((LoadResult) serviceCache.getCacheMap().get("negative")).getExpiresAt();
+        assertTrue(expiresAt >= loadedAt + TimeUnit.MINUTES.toMillis(5));
+        assertTrue(expiresAt <= System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(5));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testVerdictStoreHitExpiresWithStoredVerdict(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        serviceCache.setVerdictStore(new OffHeapVerdictStore(1024));
+        ServiceCacheKey key = new ServiceCacheKey("valid@example.com", ServiceRequestType.ZEROBOUNCE);
+        serviceCache.getVerdictStore().put(key, true, System.currentTimeMillis() + 100);
+        assertEquals(true, serviceCache.getData(key));
+        assertEquals(0, loadCount.get());
+        TimeUnit.MILLISECONDS.sleep(150);
+        assertEquals(key + "-data", serviceCache.getData(key));
+        assertEquals(1, loadCount.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testRefreshReloadsWithLoadContext(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType, 30);
+        assertEquals("context-data", serviceCache.getData("key", "context"));
+        serviceCache.refresh("key");
+        assertEquals("context-reloaded", serviceCache.getData("key", "other-context"));
+        assertEquals(1, loadCount.get());
+        assertEquals(1, reloadCount.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testRefreshWithoutReloadContextKeepsValue(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType, 30);
+        assertEquals("no-reload-data", serviceCache.getData("key", "no-reload"));
+        serviceCache.refresh("key");
+        assertEquals("no-reload-data", serviceCache.getData("key"));
+        assertEquals(0, reloadCount.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testFailedReloadKeepsValue(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType, 30);
+        assertEquals("reload-failure-data", serviceCache.getData("key", "reload-failure"));
+        serviceCache.refresh("key");
+        assertEquals(1, reloadCount.get());
+        assertEquals("reload-failure-data", serviceCache.getData("key"));
+        assertEquals(1, loadCount.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testNoRefreshIfRefreshTimeNotBelowTtl(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType, 60);
+        assertEquals("context-data", serviceCache.getData("key", "context"));
+        serviceCache.refresh("key");
+        assertEquals("context-data", serviceCache.getData("key"));
+        assertEquals(0, reloadCount.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testInvalidate(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        serviceCache.getData("key");
+        serviceCache.invalidate("key");
+        assertFalse(serviceCache.getCacheMap().containsKey("key"));
+        serviceCache.getData("key");
+        assertEquals(2, loadCount.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testInvalidateAllClearsVerdictStore(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        serviceCache.setVerdictStore(new OffHeapVerdictStore(1024));
+        ServiceCacheKey key = new ServiceCacheKey("valid@example.com", ServiceRequestType.ZEROBOUNCE);
+        serviceCache.getData(key);
+        serviceCache.invalidateAll();
+        assertFalse(serviceCache.isCached(key));
+        serviceCache.getData(key);
+        assertEquals(2, loadCount.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testEvictAllKeepsVerdictStore(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        serviceCache.setVerdictStore(new OffHeapVerdictStore(1024));
+        ServiceCacheKey key = new ServiceCacheKey("valid@example.com", ServiceRequestType.ZEROBOUNCE);
+        serviceCache.getVerdictStore().put(key, true, System.currentTimeMillis() + 60000);
+        serviceCache.getData(key);
+        serviceCache.evictAll();
+        assertFalse(serviceCache.getCacheMap().containsKey(key));
+        assertTrue(serviceCache.isCached(key));
+        assertEquals(true, serviceCache.getData(key));
+        assertEquals(0, loadCount.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testCompletedLoadStaysInFlightUntilCached(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        CompletableFuture<String> load = new CompletableFuture<>();
+        assertNull(serviceCache.registerInFlight("key", load));
+        load.complete("response");
+        /*Request between completion of the load and caching of its data attaches to the completed load*/
+        assertFalse(serviceCache.isCached("key"));
+        assertSame(load, serviceCache.registerInFlight("key", new CompletableFuture<String>()));
+        assertEquals("key-data", serviceCache.getData("key"));
+        assertTrue(serviceCache.isCached("key"));
+        assertNull(serviceCache.registerInFlight("key", new CompletableFuture<String>()));
+        assertEquals(1, loadCount.get());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testFailedLoadIsNotInFlight(CacheBackendType backendType) {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        CompletableFuture<String> load = new CompletableFuture<>();
+        assertNull(serviceCache.registerInFlight("key", load));
+        load.completeExceptionally(new IllegalStateException("upstream call failed"));
+        assertNull(serviceCache.registerInFlight("key", new CompletableFuture<String>()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testUpdateFootprint(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        assertEquals(CacheFootprint.EMPTY, serviceCache.getFootprint());
+        for (int i = 0; i < 10; i++) {
+            serviceCache.getData("key" + i);
+        }
+        CacheFootprint footprint = serviceCache.updateFootprint(4);
+        assertEquals(10, footprint.getEntries());
+        assertEquals(4, footprint.getSampledEntries());
+        /*Entries of equal size, so that extrapolation is exact*/
+        assertEquals(10 * (64 + CacheFootprint.estimateBytes("key0") + CacheFootprint.estimateBytes("key0-data")),
+                footprint.getEstimatedBytes());
+        assertEquals(footprint, serviceCache.getFootprint());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheBackendType.class)
+    void testGetStatistics(CacheBackendType backendType) throws Exception {
+        ServiceCache serviceCache = getServiceCache(backendType);
+        serviceCache.getData("key");
+        serviceCache.getData("key");
+        CacheStatistics statistics = serviceCache.getStatistics();
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(1, statistics.getLoadSuccessCount());
+        assertEquals(0.5, statistics.getHitRate());
+        assertTrue(serviceCache.getLoadTimePercentile(99) >= serviceCache.getLoadTimePercentile(50));
+    }
+
+    @Test
+    void testLoadTimePercentile() {
+        LoadTimeSampler sampler = new LoadTimeSampler(100);
+        assertEquals(0, sampler.getPercentile(50));
+        for (int i = 1; i <= 200; i++) {
+            sampler.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        /*Only the last 100 load times are kept*/
+        assertEquals(150, sampler.getPercentile(50));
+        assertEquals(199, sampler.getPercentile(99));
+        assertEquals(200, sampler.getPercentile(100));
+    }
+}
@@ -0,0 +1,159 @@
+package com.myorg.core.outbox;
+
+import com.myorg.core.beans.RequestDeadline;
+import com.myorg.core.beans.leadgeneration.FormSubmissionResponse;
+import com.myorg.core.services.LeadGenerationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LeadBatcherImplTest {
+
+    private static final String TOKEN = "token";
+
+    @InjectMocks
+    LeadBatcherImpl leadBatcher;
+
+    @Mock
+    LeadGenerationService leadGenerationService;
+
+    @Mock
+    LeadBatcher.Config config;
+
+    @BeforeEach
+    void setupMock() {
+        lenient().when(config.enabled()).thenReturn(true);
+        lenient().when(config.maxBatchSize()).thenReturn(3);
+        lenient().when(config.lingerTime()).thenReturn(200L);
+        lenient().when(config.queueCapacity()).thenReturn(10);
+        lenient().when(config.senderThreads()).thenReturn(1);
+    }
+
+    /**
+     * Answers every batch with a successful response per lead, whose id is the lead
+     */
+    @SuppressWarnings("unchecked")
+    private void answerBatches() {
+        when(leadGenerationService.submitLeadGenerations(anyList(), eq(TOKEN), any(RequestDeadline.class))).thenAnswer(invocation ->
+                ((List<String>) invocation.getArgument(0)).stream().map(LeadBatcherImplTest::getResponse).collect(Collectors.toList()));
+    }
+
+    private static FormSubmissionResponse getResponse(String lead) {
+        FormSubmissionResponse formSubmissionResponse = new FormSubmissionResponse(true, null, null, Collections.emptyList());
+        formSubmissionResponse.setId(lead);
+        return formSubmissionResponse;
+    }
+
+    @Test
+    void testLeadsAreSentInOneBatch() throws Exception {
+        answerBatches();
+        leadBatcher.activate(config);
+        CompletableFuture<FormSubmissionResponse> first = leadBatcher.submit("first", TOKEN, RequestDeadline.none());
+        CompletableFuture<FormSubmissionResponse> second = leadBatcher.submit("second", TOKEN, RequestDeadline.none());
+        CompletableFuture<FormSubmissionResponse> third = leadBatcher.submit("third", TOKEN, RequestDeadline.none());
+        assertEquals("first", first.get(5, TimeUnit.SECONDS).getId());
+        assertEquals("second", second.get(5, TimeUnit.SECONDS).getId());
+        assertEquals("third", third.get(5, TimeUnit.SECONDS).getId());
+        verify(leadGenerationService).submitLeadGenerations(eq(Arrays.asList("first", "second", "third")), eq(TOKEN), any(RequestDeadline.class));
+    }
+
+    @Test
+    void testFailedBatchFailsItsLeads() {
+        when(leadGenerationService.submitLeadGenerations(anyList(), eq(TOKEN), any(RequestDeadline.class)))
+                .thenThrow(new IllegalStateException("composite request failed"));
+        leadBatcher.activate(config);
+        CompletableFuture<FormSubmissionResponse> first = leadBatcher.submit("first", TOKEN, RequestDeadline.none());
+        CompletableFuture<FormSubmissionResponse> second = leadBatcher.submit("second", TOKEN, RequestDeadline.none());
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testExpiredAndCancelledLeadsAreLeftOut() throws Exception {
+        answerBatches();
+        leadBatcher.activate(config);
+        CompletableFuture<FormSubmissionResponse> expired = leadBatcher.submit("expired", TOKEN, RequestDeadline.after(0));
+        CompletableFuture<FormSubmissionResponse> cancelled = leadBatcher.submit("cancelled", TOKEN, RequestDeadline.none());
+        CompletableFuture<FormSubmissionResponse> sent = leadBatcher.submit("sent", TOKEN, RequestDeadline.none());
+        cancelled.cancel(false);
+        assertEquals("sent", sent.get(5, TimeUnit.SECONDS).getId());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> expired.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TimeoutException);
+        verify(leadGenerationService).submitLeadGenerations(eq(Collections.singletonList("sent")), eq(TOKEN), any(RequestDeadline.class));
+    }
+
+    @Test
+    void testDeactivateRejectsLeadsNotSent() {
+        lenient().when(config.lingerTime()).thenReturn(60000L);
+        leadBatcher.activate(config);
+        /*Batch lingers for further leads, first leads are taken from the queue already*/
+        CompletableFuture<FormSubmissionResponse> first = leadBatcher.submit("first", TOKEN, RequestDeadline.none());
+        CompletableFuture<FormSubmissionResponse> second = leadBatcher.submit("second", TOKEN, RequestDeadline.none());
+        leadBatcher.deactivate();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        e = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    void testDeactivateCompletesBatchInFlight() throws Exception {
+        lenient().when(config.maxBatchSize()).thenReturn(1);
+        lenient().when(config.lingerTime()).thenReturn(0L);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(leadGenerationService.submitLeadGenerations(anyList(), eq(TOKEN), any(RequestDeadline.class))).thenAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Collections.singletonList(getResponse("first"));
+        });
+        leadBatcher.activate(config);
+        CompletableFuture<FormSubmissionResponse> first = leadBatcher.submit("first", TOKEN, RequestDeadline.none());
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        leadBatcher.deactivate();
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS).getId());
+    }
+
+    @Test
+    void testSubmitAfterDeactivateIsRejected() {
+        leadBatcher.activate(config);
+        leadBatcher.deactivate();
+        assertFalse(leadBatcher.isEnabled());
+        CompletableFuture<FormSubmissionResponse> rejected = leadBatcher.submit("rejected", TOKEN, RequestDeadline.none());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    @AfterEach
+    void shouldTearDown() {
+        leadBatcher.deactivate();
+    }
+}
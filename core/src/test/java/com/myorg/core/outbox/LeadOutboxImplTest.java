@@ -0,0 +1,157 @@
+package com.myorg.core.outbox;
+
+import com.myorg.core.beans.RequestDeadline;
+import com.myorg.core.beans.ServiceRequestType;
+import com.myorg.core.beans.ServiceWorker;
+import com.myorg.core.beans.leadgeneration.FormSubmissionResponse;
+import com.myorg.core.services.LeadGenerationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LeadOutboxImplTest {
+
+    private static final String LEAD = "{\"LastName\":\"Doe\"}";
+
+    private static final String TOKEN = "token";
+
+    @TempDir
+    Path tempDir;
+
+    @InjectMocks
+    LeadOutboxImpl leadOutbox;
+
+    @Mock
+    LeadGenerationService leadGenerationService;
+
+    @Mock
+    LeadBatcher leadBatcher;
+
+    @Mock
+    LeadOutbox.Config config;
+
+    @BeforeEach
+    void setupMock() throws IOException {
+        lenient().when(config.enabled()).thenReturn(true);
+        lenient().when(config.logDirectory()).thenReturn(tempDir.toString());
+        lenient().when(config.workerCount()).thenReturn(1);
+        lenient().when(config.maxAttempts()).thenReturn(2);
+        lenient().when(config.initialRetryDelay()).thenReturn(1L);
+        lenient().when(config.maxRetryDelay()).thenReturn(1L);
+        lenient().when(config.tokenTimeout()).thenReturn(1000L);
+        ServiceWorker tokenWorker = new ServiceWorker(TOKEN, ServiceRequestType.AUTH_TOKEN);
+        lenient().when(leadGenerationService.getServiceWorker(Collections.emptyMap())).thenReturn(tokenWorker);
+        lenient().when(leadGenerationService.getServiceDataAsync(tokenWorker)).thenReturn(CompletableFuture.completedFuture(TOKEN));
+        leadOutbox.activate(config, null);
+    }
+
+    private static FormSubmissionResponse getResponse(int statusCode) {
+        FormSubmissionResponse formSubmissionResponse = new FormSubmissionResponse(statusCode < 300, null, null, Collections.emptyList());
+        formSubmissionResponse.setStatusCode(statusCode);
+        return formSubmissionResponse;
+    }
+
+    private void awaitPendingCount(int pendingCount) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (leadOutbox.getPendingCount() != pendingCount && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(pendingCount, leadOutbox.getPendingCount());
+    }
+
+    private boolean isDeadLettered(String id) throws IOException {
+        Path deadLetterFile = tempDir.resolve("lead-outbox.log.dead");
+        return Files.exists(deadLetterFile) && new String(Files.readAllBytes(deadLetterFile), StandardCharsets.UTF_8).contains(id);
+    }
+
+    @Test
+    void testLeadIsDelivered() throws Exception {
+        when(leadGenerationService.submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class))).thenReturn(getResponse(201));
+        String id = leadOutbox.submit(LEAD);
+        awaitPendingCount(0);
+        verify(leadGenerationService).submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class));
+        assertFalse(isDeadLettered(id));
+    }
+
+    @Test
+    void testTransientFailureIsRetried() throws Exception {
+        when(leadGenerationService.submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class)))
+                .thenReturn(getResponse(503), getResponse(201));
+        String id = leadOutbox.submit(LEAD);
+        awaitPendingCount(0);
+        verify(leadGenerationService, times(2)).submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class));
+        assertFalse(isDeadLettered(id));
+    }
+
+    @Test
+    void testExceptionOnDeliveryIsRetried() throws Exception {
+        when(leadGenerationService.submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class)))
+                .thenThrow(new IllegalStateException("service is deactivated")).thenReturn(getResponse(201));
+        leadOutbox.submit(LEAD);
+        awaitPendingCount(0);
+        verify(leadGenerationService, times(2)).submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class));
+    }
+
+    @Test
+    void testRejectedLeadIsDeadLettered() throws Exception {
+        when(leadGenerationService.submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class))).thenReturn(getResponse(400));
+        String id = leadOutbox.submit(LEAD);
+        awaitPendingCount(0);
+        verify(leadGenerationService, times(1)).submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class));
+        assertTrue(isDeadLettered(id));
+    }
+
+    @Test
+    void testLeadIsDeadLetteredAfterMaxAttempts() throws Exception {
+        when(leadGenerationService.submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class))).thenReturn(getResponse(503));
+        String id = leadOutbox.submit(LEAD);
+        awaitPendingCount(0);
+        verify(leadGenerationService, times(2)).submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class));
+        assertTrue(isDeadLettered(id));
+    }
+
+    @Test
+    void testPendingLeadIsRedeliveredAfterRestart() throws Exception {
+        when(leadGenerationService.submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class))).thenReturn(getResponse(503));
+        leadOutbox.submit(LEAD);
+        verify(leadGenerationService, timeout(5000)).submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class));
+        /*Deactivated before the redelivery is due*/
+        leadOutbox.deactivate();
+
+        when(leadGenerationService.submitLeadGeneration(eq(LEAD), eq(TOKEN), any(RequestDeadline.class))).thenReturn(getResponse(201));
+        leadOutbox.activate(config, null);
+        awaitPendingCount(0);
+        verify(leadGenerationService, times(2)).submitLeadGeneration(anyString(), anyString(), any(RequestDeadline.class));
+    }
+
+    @AfterEach
+    void shouldTearDown() {
+        leadOutbox.deactivate();
+    }
+}
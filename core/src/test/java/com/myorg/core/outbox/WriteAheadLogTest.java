@@ -0,0 +1,143 @@
+package com.myorg.core.outbox;
+
+import com.myorg.core.utils.JsonUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static WriteAheadLog.Entry getEntry(String id) {
+        return new WriteAheadLog.Entry(id, "{\"LastName\":\"" + id + "\"}", System.currentTimeMillis());
+    }
+
+    @Test
+    void testPendingLeadsSurviveReopen() throws IOException {
+        Path file = tempDir.resolve("outbox.log");
+        WriteAheadLog writeAheadLog = new WriteAheadLog(file);
+        assertTrue(writeAheadLog.open().isEmpty());
+        writeAheadLog.append(getEntry("first"));
+        writeAheadLog.append(getEntry("second"));
+        writeAheadLog.append(getEntry("third"));
+        writeAheadLog.markDelivered("second");
+        writeAheadLog.close();
+
+        WriteAheadLog reopened = new WriteAheadLog(file);
+        List<WriteAheadLog.Entry> pendingEntries = reopened.open();
+        assertEquals(2, pendingEntries.size());
+        assertEquals("first", pendingEntries.get(0).getId());
+        assertEquals("{\"LastName\":\"first\"}", pendingEntries.get(0).getPayload());
+        assertEquals("third", pendingEntries.get(1).getId());
+        reopened.close();
+    }
+
+    @Test
+    void testTornRecordIsDiscarded() throws IOException {
+        Path file = tempDir.resolve("outbox.log");
+        WriteAheadLog writeAheadLog = new WriteAheadLog(file);
+        writeAheadLog.open();
+        writeAheadLog.append(getEntry("first"));
+        writeAheadLog.append(getEntry("second"));
+        writeAheadLog.close();
+        /*Simulate crash while second record was written*/
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        WriteAheadLog reopened = new WriteAheadLog(file);
+        List<WriteAheadLog.Entry> pendingEntries = reopened.open();
+        assertEquals(1, pendingEntries.size());
+        assertEquals("first", pendingEntries.get(0).getId());
+        /*Log remains appendable after torn tail was discarded*/
+        reopened.append(getEntry("third"));
+        reopened.close();
+        assertEquals(2, new WriteAheadLog(file).open().size());
+    }
+
+    @Test
+    void testTornRecordInTheMiddleIsSkipped() throws IOException {
+        Path file = tempDir.resolve("outbox.log");
+        WriteAheadLog writeAheadLog = new WriteAheadLog(file);
+        writeAheadLog.open();
+        writeAheadLog.append(getEntry("first"));
+        writeAheadLog.append(getEntry("second"));
+        writeAheadLog.markDelivered("first");
+        long deliveredRecordEnd = Files.size(file);
+        writeAheadLog.append(getEntry("third"));
+        writeAheadLog.close();
+        /*Corrupt checksum of the delivered record, records appended after it must still be read*/
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer checksumByte = ByteBuffer.allocate(1);
+            channel.read(checksumByte, deliveredRecordEnd - 1);
+            checksumByte.put(0, (byte) ~checksumByte.get(0));
+            checksumByte.flip();
+            channel.write(checksumByte, deliveredRecordEnd - 1);
+        }
+
+        WriteAheadLog reopened = new WriteAheadLog(file);
+        List<WriteAheadLog.Entry> pendingEntries = reopened.open();
+        assertEquals(3, pendingEntries.size());
+        assertEquals("first", pendingEntries.get(0).getId());
+        assertEquals("third", pendingEntries.get(2).getId());
+        reopened.close();
+    }
+
+    @Test
+    void testDeadLeadIsMovedToDeadLetterFile() throws IOException {
+        Path file = tempDir.resolve("outbox.log");
+        WriteAheadLog writeAheadLog = new WriteAheadLog(file);
+        writeAheadLog.open();
+        writeAheadLog.append(getEntry("first"));
+        writeAheadLog.markDead("first");
+        assertEquals(0, writeAheadLog.getPendingCount());
+        writeAheadLog.close();
+
+        assertTrue(new WriteAheadLog(file).open().isEmpty());
+        List<String> deadLetters = Files.readAllLines(tempDir.resolve("outbox.log.dead"), StandardCharsets.UTF_8);
+        assertEquals(1, deadLetters.size());
+        assertArrayEquals(new String[]{"first", "{\"LastName\":\"first\"}"}, JsonUtils.extractFields(deadLetters.get(0), "id", "payload"));
+    }
+
+    @Test
+    void testFailedCompactionKeepsLogOpen() throws IOException {
+        Path file = tempDir.resolve("outbox.log");
+        WriteAheadLog writeAheadLog = new WriteAheadLog(file);
+        writeAheadLog.open();
+        for (int i = 0; i < 1000; i++) {
+            writeAheadLog.append(getEntry("lead" + i));
+        }
+        /*Compacted log can not be written in place of a directory*/
+        Path blocker = Files.createDirectories(tempDir.resolve("outbox.log.compact").resolve("blocker"));
+        for (int i = 0; i < 999; i++) {
+            writeAheadLog.markDelivered("lead" + i);
+        }
+        assertThrows(IOException.class, () -> writeAheadLog.markDelivered("lead999"));
+        writeAheadLog.append(getEntry("next"));
+        assertEquals(1, writeAheadLog.getPendingCount());
+        writeAheadLog.close();
+
+        Files.delete(blocker);
+        Files.delete(blocker.getParent());
+        WriteAheadLog reopened = new WriteAheadLog(file);
+        List<WriteAheadLog.Entry> pendingEntries = reopened.open();
+        assertEquals(1, pendingEntries.size());
+        assertEquals("next", pendingEntries.get(0).getId());
+        reopened.close();
+    }
+}
@@ -0,0 +1,92 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.ServiceRequestType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class CircuitBreakerTest {
+
+    @Mock
+    CircuitBreakerRegistry.Config config;
+
+    @BeforeEach
+    public void setupMock() {
+        lenient().when(config.windowSize()).thenReturn(4);
+        lenient().when(config.minimumCalls()).thenReturn(4);
+        lenient().when(config.failureRateThreshold()).thenReturn(50);
+        lenient().when(config.slowCallRateThreshold()).thenReturn(100);
+        lenient().when(config.slowCallDuration()).thenReturn(60000L);
+        lenient().when(config.openDuration()).thenReturn(0L);
+        lenient().when(config.halfOpenProbes()).thenReturn(1);
+    }
+
+    @Test
+    void testOpensOnFailureRate() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(ServiceRequestType.ZEROBOUNCE, config);
+        circuitBreaker.record(false, false);
+        circuitBreaker.record(true, false);
+        circuitBreaker.record(false, false);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.record(true, false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void testOpensOnSlowCallRate() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(ServiceRequestType.ZEROBOUNCE, config);
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.record(false, true);
+        }
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void testStaysOpenWithinOpenDuration() {
+        lenient().when(config.openDuration()).thenReturn(60L);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(ServiceRequestType.RECAPTCHA, config);
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.record(true, false);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void testHalfOpenProbe() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(ServiceRequestType.ZEROBOUNCE, config);
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.record(true, false);
+        }
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        CompletableFuture<String> probe = new CompletableFuture<>();
+        circuitBreaker.monitor(probe);
+        probe.complete("response");
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void testCancelledProbeReleased() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(ServiceRequestType.ZEROBOUNCE, config);
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.record(true, false);
+        }
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        CompletableFuture<String> probe = new CompletableFuture<>();
+        circuitBreaker.monitor(probe);
+        probe.cancel(true);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+}
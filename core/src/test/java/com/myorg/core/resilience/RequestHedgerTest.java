@@ -0,0 +1,82 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.ServiceRequestType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class RequestHedgerTest {
+
+    @Mock
+    HedgingRegistry.Config config;
+
+    ScheduledExecutorService hedgeScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @BeforeEach
+    public void setupMock() {
+        lenient().when(config.hedgeDelayPercentile()).thenReturn(90);
+        lenient().when(config.minimumHedgeDelay()).thenReturn(1L);
+        lenient().when(config.latencySamples()).thenReturn(100);
+        lenient().when(config.hedgeBudget()).thenReturn(50);
+    }
+
+    @Test
+    void testNoHedgeWithoutLatencies() {
+        RequestHedger requestHedger = new RequestHedger(ServiceRequestType.RECAPTCHA, config, hedgeScheduler);
+        assertTrue(requestHedger.getHedgeDelay() < 0);
+        assertNull(requestHedger.scheduleHedge(() -> { }));
+    }
+
+    @Test
+    void testHedgeDelayPercentile() {
+        RequestHedger requestHedger = new RequestHedger(ServiceRequestType.RECAPTCHA, config, hedgeScheduler);
+        for (int i = 1; i <= 100; i++) {
+            requestHedger.recordLatency(i);
+        }
+        assertEquals(90, requestHedger.getHedgeDelay());
+    }
+
+    @Test
+    void testHedgeBudget() {
+        RequestHedger requestHedger = new RequestHedger(ServiceRequestType.RECAPTCHA, config, hedgeScheduler);
+        assertFalse(requestHedger.tryAcquireHedge());
+        requestHedger.scheduleHedge(() -> { });
+        assertFalse(requestHedger.tryAcquireHedge());
+        requestHedger.scheduleHedge(() -> { });
+        assertTrue(requestHedger.tryAcquireHedge());
+        assertFalse(requestHedger.tryAcquireHedge());
+    }
+
+    @Test
+    void testScheduleHedge() throws InterruptedException {
+        lenient().when(config.hedgeBudget()).thenReturn(100);
+        RequestHedger requestHedger = new RequestHedger(ServiceRequestType.RECAPTCHA, config, hedgeScheduler);
+        for (int i = 0; i < 32; i++) {
+            requestHedger.recordLatency(1);
+        }
+        CountDownLatch hedged = new CountDownLatch(1);
+        assertNotNull(requestHedger.scheduleHedge(hedged::countDown));
+        assertTrue(hedged.await(5, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    void shouldTearDown() {
+        hedgeScheduler.shutdownNow();
+    }
+}
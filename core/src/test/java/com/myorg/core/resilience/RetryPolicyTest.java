@@ -0,0 +1,104 @@
+package com.myorg.core.resilience;
+
+import com.myorg.core.beans.RequestDeadline;
+import com.myorg.core.beans.ServiceRequestType;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class RetryPolicyTest {
+
+    private static final Set<Integer> RETRYABLE_STATUS_CODES = new HashSet<>(Arrays.asList(429, 502, 503, 504));
+
+    @Mock
+    RetryRegistry.Config config;
+
+    @BeforeEach
+    public void setupMock() {
+        lenient().when(config.initialBackoff()).thenReturn(10L);
+        lenient().when(config.maxBackoff()).thenReturn(100L);
+        lenient().when(config.maxRetryAfter()).thenReturn(5000L);
+    }
+
+    private RetryPolicy getRetryPolicy(int maxAttempts, RetryBudget retryBudget) {
+        return new RetryPolicy(ServiceRequestType.ZEROBOUNCE, maxAttempts, config, RETRYABLE_STATUS_CODES, retryBudget, null);
+    }
+
+    private static HttpResponse getResponse(int statusCode) {
+        return new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, null);
+    }
+
+    @Test
+    void testRetriesIdempotentRequestUpToMaxAttempts() {
+        RetryPolicy retryPolicy = getRetryPolicy(3, new RetryBudget(0, 10));
+        HttpGet request = new HttpGet("http://localhost");
+        long delay = retryPolicy.getRetryDelay(request, 1, null, new SocketTimeoutException(), RequestDeadline.none());
+        assertTrue(delay >= 0 && delay <= 10);
+        assertTrue(retryPolicy.getRetryDelay(request, 2, null, new IOException(), RequestDeadline.none()) >= 0);
+        assertEquals(RetryPolicy.NO_RETRY, retryPolicy.getRetryDelay(request, 3, null, new IOException(), RequestDeadline.none()));
+    }
+
+    @Test
+    void testRetriesNonIdempotentRequestOnlyIfNotProcessed() {
+        RetryPolicy retryPolicy = getRetryPolicy(3, new RetryBudget(0, 10));
+        HttpPost request = new HttpPost("http://localhost");
+        assertEquals(RetryPolicy.NO_RETRY, retryPolicy.getRetryDelay(request, 1, null, new SocketTimeoutException(), RequestDeadline.none()));
+        assertEquals(RetryPolicy.NO_RETRY, retryPolicy.getRetryDelay(request, 1, getResponse(502), null, RequestDeadline.none()));
+        assertTrue(retryPolicy.getRetryDelay(request, 1, null, new ConnectException(), RequestDeadline.none()) >= 0);
+        assertTrue(retryPolicy.getRetryDelay(request, 1, getResponse(503), null, RequestDeadline.none()) >= 0);
+    }
+
+    @Test
+    void testRetryAfter() {
+        RetryPolicy retryPolicy = getRetryPolicy(3, new RetryBudget(0, 10));
+        HttpGet request = new HttpGet("http://localhost");
+        HttpResponse response = getResponse(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "2");
+        assertEquals(2000, retryPolicy.getRetryDelay(request, 1, response, null, RequestDeadline.none()));
+        response.setHeader(HttpHeaders.RETRY_AFTER, "60");
+        assertEquals(RetryPolicy.NO_RETRY, retryPolicy.getRetryDelay(request, 1, response, null, RequestDeadline.none()));
+        assertEquals(RetryPolicy.NO_RETRY, retryPolicy.getRetryDelay(request, 1, getResponse(404), null, RequestDeadline.none()));
+    }
+
+    @Test
+    void testRetryWithinDeadline() {
+        RetryPolicy retryPolicy = getRetryPolicy(3, new RetryBudget(0, 10));
+        HttpGet request = new HttpGet("http://localhost");
+        HttpResponse response = getResponse(503);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        assertEquals(RetryPolicy.NO_RETRY, retryPolicy.getRetryDelay(request, 1, response, null, RequestDeadline.after(500)));
+    }
+
+    @Test
+    void testRetryBudget() {
+        RetryBudget retryBudget = new RetryBudget(50, 1);
+        RetryPolicy retryPolicy = getRetryPolicy(3, retryBudget);
+        HttpGet request = new HttpGet("http://localhost");
+        assertTrue(retryPolicy.getRetryDelay(request, 1, null, new IOException(), RequestDeadline.none()) >= 0);
+        assertEquals(RetryPolicy.NO_RETRY, retryPolicy.getRetryDelay(request, 1, null, new IOException(), RequestDeadline.none()));
+        retryPolicy.onRequest();
+        assertEquals(RetryPolicy.NO_RETRY, retryPolicy.getRetryDelay(request, 1, null, new IOException(), RequestDeadline.none()));
+        retryPolicy.onRequest();
+        assertTrue(retryPolicy.getRetryDelay(request, 1, null, new IOException(), RequestDeadline.none()) >= 0);
+    }
+}
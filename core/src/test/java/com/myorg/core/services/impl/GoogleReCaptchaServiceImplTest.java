@@ -1,37 +1,42 @@
 package com.myorg.core.services.impl;
 
 import com.google.common.collect.ImmutableMap;
+import com.myorg.core.beans.ServiceCacheKey;
 import com.myorg.core.beans.ServiceRequestType;
 import com.myorg.core.beans.ServiceWorker;
 import com.myorg.core.cache.CacheRegistry;
 import com.myorg.core.cache.ServiceCache;
 import com.myorg.core.constants.GenericConstants;
 import com.myorg.core.exception.CacheException;
+import com.myorg.core.resilience.CircuitBreaker;
+import com.myorg.core.resilience.CircuitBreakerRegistry;
+import com.myorg.core.resilience.HedgingRegistry;
+import com.myorg.core.resilience.RetryRegistry;
 import com.myorg.core.services.GoogleReCaptchaService;
 import com.myorg.core.utils.HttpClientUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.HttpRequestFutureTask;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import static com.myorg.core.constants.GenericConstants.CACHE_RECAPTCHA_RESPONSE;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
@@ -64,12 +69,27 @@ class GoogleReCaptchaServiceImplTest {
     @Mock
     CacheRegistry cacheRegistry;
 
+    @Mock
+    CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Mock
+    CircuitBreaker circuitBreaker;
+
+    @Mock
+    HedgingRegistry hedgingRegistry;
+
+    @Mock
+    RetryRegistry retryRegistry;
+
     @BeforeEach
     public void setupMock() throws IOException {
         MockitoAnnotations.initMocks(this);
         lenient().when(config.googleReCaptchaEndPoint()).thenReturn(RECAPTCHA_END_POINT);
         lenient().when(config.googleReCaptchaSecretKey()).thenReturn(RECAPTCHA_SECRET_KEY);
         lenient().when(config.googleReCaptchaSiteKey()).thenReturn(RECAPTCHA_SITE_KEY);
+        lenient().when(circuitBreakerRegistry.getCircuitBreaker(ServiceRequestType.RECAPTCHA)).thenReturn(circuitBreaker);
+        lenient().when(circuitBreakerRegistry.getFallbackVerdict(ServiceRequestType.RECAPTCHA)).thenReturn(false);
+        lenient().when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
         googleReCaptchaServiceImpl.activate(config);
     }
 
@@ -78,11 +98,9 @@ class GoogleReCaptchaServiceImplTest {
                 "secret", config.googleReCaptchaSecretKey(),
                 "response", RECAPTCHA_TOKEN
         );
-        ServiceWorker serviceWorker = new ServiceWorker(RECAPTCHA_TOKEN, ServiceRequestType.AUTH_TOKEN, HttpClientUtils.getPayload(config.googleReCaptchaEndPoint(),
+        ServiceWorker serviceWorker = new ServiceWorker(RECAPTCHA_TOKEN, ServiceRequestType.RECAPTCHA, HttpClientUtils.getPayload(config.googleReCaptchaEndPoint(),
                 params, HttpGet.METHOD_NAME));
-        HttpRequestFutureTask<String> mockTask = Mockito.mock(HttpRequestFutureTask.class);
-        lenient().when(mockTask.get(anyLong(), same(TimeUnit.SECONDS))).thenReturn(RECAPTCHA_RESPONSE);
-        serviceWorker.setServiceTask(mockTask);
+        serviceWorker.setServiceTask(CompletableFuture.completedFuture(RECAPTCHA_RESPONSE));
         return serviceWorker;
     }
 
@@ -90,7 +108,7 @@ class GoogleReCaptchaServiceImplTest {
         ServiceCache serviceCache = mock(ServiceCache.class);
         when(serviceCache.isEnabled()).thenReturn(true);
         when(serviceCache.isInitialized()).thenReturn(true);
-        when(serviceCache.getData(new ServiceWorker(RECAPTCHA_TOKEN))).thenReturn(true);
+        when(serviceCache.getData(eq(new ServiceCacheKey(RECAPTCHA_TOKEN, ServiceRequestType.RECAPTCHA)), any(ServiceWorker.class))).thenReturn(true);
         when(cacheRegistry.getCache(same(CACHE_RECAPTCHA_RESPONSE))).thenReturn(serviceCache);
     }
 
@@ -114,8 +132,24 @@ class GoogleReCaptchaServiceImplTest {
         ServiceWorker serviceWorker = googleReCaptchaServiceImpl.getServiceWorker(Collections.singletonMap(GenericConstants.RESPONSE, RECAPTCHA_TOKEN));
         assertAll("Validate Recaptcha service worker",
                 () -> assertEquals(ServiceRequestType.RECAPTCHA, serviceWorker.getServiceRequest()),
-                () -> assertEquals(StringUtils.abbreviate(RECAPTCHA_TOKEN, 60), serviceWorker.getId())
+                () -> assertEquals(RECAPTCHA_TOKEN, serviceWorker.getId())
         );
     }
 
+    @Test
+    void testServiceWorkerCircuitOpen() {
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(false);
+        ServiceWorker serviceWorker = googleReCaptchaServiceImpl.getServiceWorker(Collections.singletonMap(GenericConstants.RESPONSE, RECAPTCHA_TOKEN));
+        assertNull(serviceWorker.getServiceRequest());
+        assertEquals(false, googleReCaptchaServiceImpl.getCacheData(serviceWorker));
+    }
+
+    @Test
+    void testServiceWorkerKeyedByFullToken() {
+        ServiceWorker serviceWorker = new ServiceWorker(RECAPTCHA_TOKEN, ServiceRequestType.RECAPTCHA);
+        assertEquals(new ServiceWorker(RECAPTCHA_TOKEN, ServiceRequestType.RECAPTCHA), serviceWorker);
+        assertNotEquals(new ServiceWorker(RECAPTCHA_TOKEN + "x", ServiceRequestType.RECAPTCHA), serviceWorker);
+        assertNotEquals(new ServiceWorker(RECAPTCHA_TOKEN, ServiceRequestType.ZEROBOUNCE), serviceWorker);
+    }
+
 }
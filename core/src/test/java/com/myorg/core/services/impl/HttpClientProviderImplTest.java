@@ -0,0 +1,77 @@
+package com.myorg.core.services.impl;
+
+import com.myorg.core.beans.RequestDeadline;
+import com.myorg.core.services.HttpClientProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class HttpClientProviderImplTest {
+
+    @Mock
+    HttpClientProvider.Config config;
+
+    HttpClientProviderImpl httpClientProvider = new HttpClientProviderImpl();
+
+    @BeforeEach
+    void setupMock() throws Exception {
+        lenient().when(config.maxTotalConnections()).thenReturn(20);
+        lenient().when(config.maxConnectionsPerRoute()).thenReturn(5);
+        lenient().when(config.validateAfterInactivity()).thenReturn(2000);
+        lenient().when(config.keepAliveDuration()).thenReturn(30L);
+        lenient().when(config.maxIdleTime()).thenReturn(60L);
+        lenient().when(config.evictionInterval()).thenReturn(10L);
+        lenient().when(config.ioThreadCount()).thenReturn(1);
+        lenient().when(config.connectTimeout()).thenReturn(1000);
+        lenient().when(config.connectionRequestTimeout()).thenReturn(500);
+        httpClientProvider.activate(config);
+    }
+
+    @Test
+    void testGetHttpClient() {
+        assertNotNull(httpClientProvider.getHttpClient());
+        assertSame(httpClientProvider.getHttpClient(), httpClientProvider.getHttpClient());
+    }
+
+    @Test
+    void testGetHttpAsyncClient() {
+        assertNotNull(httpClientProvider.getHttpAsyncClient());
+        assertTrue(httpClientProvider.getHttpAsyncClient().isRunning());
+    }
+
+    @Test
+    void testGetRequestConfig() {
+        RequestConfig requestConfig = httpClientProvider.getRequestConfig(RequestDeadline.none(), 3000);
+        assertEquals(1000, requestConfig.getConnectTimeout());
+        assertEquals(500, requestConfig.getConnectionRequestTimeout());
+        assertEquals(3000, requestConfig.getSocketTimeout());
+    }
+
+    @Test
+    void testGetRequestConfigCappedByDeadline() {
+        RequestConfig requestConfig = httpClientProvider.getRequestConfig(RequestDeadline.after(200), 3000);
+        assertTrue(requestConfig.getConnectTimeout() <= 200);
+        assertTrue(requestConfig.getSocketTimeout() <= 200);
+        /*Exhausted budget must never turn into an infinite timeout*/
+        RequestConfig expiredConfig = httpClientProvider.getRequestConfig(RequestDeadline.after(0), 3000);
+        assertEquals(1, expiredConfig.getConnectTimeout());
+        assertEquals(1, expiredConfig.getConnectionRequestTimeout());
+        assertEquals(1, expiredConfig.getSocketTimeout());
+    }
+
+    @AfterEach
+    void shouldTearDown() {
+        httpClientProvider.deactivate();
+    }
+}
@@ -1,23 +1,26 @@
 package com.myorg.core.services.impl;
 
 import com.google.common.collect.ImmutableMap;
+import com.myorg.core.beans.RequestDeadline;
 import com.myorg.core.beans.ServiceRequestType;
 import com.myorg.core.beans.ServiceWorker;
 import com.myorg.core.beans.leadgeneration.FormSubmissionResponse;
-import com.myorg.core.cache.CacheRegistry;
-import com.myorg.core.cache.ServiceCache;
-import com.myorg.core.exception.CacheException;
+import com.myorg.core.resilience.RetryRegistry;
+import com.myorg.core.services.HttpClientProvider;
 import com.myorg.core.services.LeadGenerationService.Config;
 import com.myorg.core.utils.HttpClientUtils;
 import mockit.MockUp;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.Configurable;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpRequestFutureTask;
+import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,24 +28,27 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
-import static com.myorg.core.constants.GenericConstants.CACHE_TOKEN_RESPONSE;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.lenient;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -89,12 +95,17 @@ class LeadGenerationServiceImplTest {
     StatusLine statusLine;
 
     @Mock
-    CacheRegistry cacheRegistry;
+    HttpClientProvider httpClientProvider;
+
+    @Mock
+    RetryRegistry retryRegistry;
 
     String res = "";
 
     String mockedAccessToken = "mock-token";
 
+    private static final String ACCESS_TOKEN = "some-token";
+
     private MockUp<CloseableHttpClient> closeableHttpClientMockup;
 
     private MockUp<EntityUtils> entityUtilsMockup;
@@ -111,6 +122,11 @@ class LeadGenerationServiceImplTest {
         lenient().when(config.recordTypeId()).thenReturn(RECORD_TYPE_ID);
         lenient().when(config.leadSource()).thenReturn(LEAD_SOURCE);
         lenient().when(config.company()).thenReturn(COMPANY);
+        lenient().when(config.serviceTimeoutMillis()).thenReturn(5000L);
+        lenient().when(config.cacheTTL()).thenReturn(14L);
+        lenient().when(config.tokenRefreshFraction()).thenReturn(0.75);
+        lenient().when(httpClientProvider.getHttpClient()).thenReturn(HttpClients.createDefault());
+        leadGenerationServiceImpl.activate(config);
 
     }
 
@@ -144,20 +160,10 @@ class LeadGenerationServiceImplTest {
         );
         ServiceWorker serviceWorker = new ServiceWorker(config.userName(), ServiceRequestType.AUTH_TOKEN, HttpClientUtils.getPayload(config.oauthUrl(),
                 params, HttpPost.METHOD_NAME));
-        HttpRequestFutureTask<String> mockTask = Mockito.mock(HttpRequestFutureTask.class);
-        lenient().when(mockTask.get(anyLong(), same(TimeUnit.SECONDS))).thenReturn(TOKEN_RESPONSE);
-        serviceWorker.setServiceTask(mockTask);
+        serviceWorker.setServiceTask(CompletableFuture.completedFuture(TOKEN_RESPONSE));
         return serviceWorker;
     }
 
-    private void initializeCache() throws CacheException {
-        ServiceCache serviceCache = mock(ServiceCache.class);
-        when(serviceCache.isEnabled()).thenReturn(true);
-        when(serviceCache.isInitialized()).thenReturn(true);
-        when(serviceCache.getData(new ServiceWorker(config.userName()))).thenReturn(mockedAccessToken);
-        when(cacheRegistry.getCache(same(CACHE_TOKEN_RESPONSE))).thenReturn(serviceCache);
-    }
-
     @Test
     void testSubmitLeadGeneration() throws Exception {
 
@@ -165,7 +171,7 @@ class LeadGenerationServiceImplTest {
         String json = resourceURL.toString();
 
         setUpHttpResponse(json, 201);
-        FormSubmissionResponse formSubmissionResponse = leadGenerationServiceImpl.submitLeadGeneration(json, mockedAccessToken);
+        FormSubmissionResponse formSubmissionResponse = leadGenerationServiceImpl.submitLeadGeneration(json, mockedAccessToken, RequestDeadline.none());
         assertEquals(HttpStatus.SC_OK , formSubmissionResponse.getStatusCode());
     }
 
@@ -174,23 +180,91 @@ class LeadGenerationServiceImplTest {
         URL resourceURL = getClass().getResource(JSON_PATH);
         String json = resourceURL.toString();
         setUpHttpResponse(null, 500);
-        FormSubmissionResponse actualResponse = leadGenerationServiceImpl.submitLeadGeneration(json, mockedAccessToken);
+        FormSubmissionResponse actualResponse = leadGenerationServiceImpl.submitLeadGeneration(json, mockedAccessToken, RequestDeadline.none());
         assertEquals(HttpStatus.SC_INTERNAL_SERVER_ERROR, actualResponse.getStatusCode());
     }
 
+    @Test
+    void testSubmitLeadGenerationUnauthorized() throws Exception {
+        leadGenerationServiceImpl.getServiceData(getServiceWorker());
+        List<String> authHeaders = new ArrayList<>();
+        closeableHttpClientMockup = new MockUp<CloseableHttpClient>() {
+            @mockit.Mock
+            CloseableHttpResponse execute(HttpUriRequest request) {
+                authHeaders.add(request.getFirstHeader(HttpHeaders.AUTHORIZATION).getValue());
+                return response;
+            }
+        };
+        entityUtilsMockup = new MockUp<EntityUtils>() {
+            @mockit.Mock
+            String toString(HttpEntity entity) {
+                return authHeaders.size() == 1 ? "[]" : "{}";
+            }
+        };
+        when(response.getStatusLine()).thenReturn(statusLine);
+        when(statusLine.getStatusCode()).thenReturn(HttpStatus.SC_UNAUTHORIZED, HttpStatus.SC_UNAUTHORIZED, HttpStatus.SC_CREATED);
+        FormSubmissionResponse formSubmissionResponse = leadGenerationServiceImpl.submitLeadGeneration("{}", mockedAccessToken, RequestDeadline.none());
+        assertEquals(HttpStatus.SC_OK, formSubmissionResponse.getStatusCode());
+        assertEquals(Arrays.asList("Bearer " + mockedAccessToken, "Bearer " + ACCESS_TOKEN), authHeaders);
+    }
+
+    @Test
+    void testSubmitLeadGenerationWithinDeadline() {
+        List<RequestConfig> requestConfigs = new ArrayList<>();
+        setUpHttpResponse("{}", HttpStatus.SC_CREATED);
+        closeableHttpClientMockup = new MockUp<CloseableHttpClient>() {
+            @mockit.Mock
+            CloseableHttpResponse execute(HttpUriRequest request) {
+                requestConfigs.add(((Configurable) request).getConfig());
+                return response;
+            }
+        };
+        when(httpClientProvider.getRequestConfig(any(RequestDeadline.class), anyLong())).thenReturn(RequestConfig.custom().setSocketTimeout(5000).build());
+        leadGenerationServiceImpl.submitLeadGeneration("{}", mockedAccessToken, RequestDeadline.after(100));
+        assertEquals(1, requestConfigs.size());
+        assertTrue(requestConfigs.get(0).getSocketTimeout() <= 100);
+    }
+
+    @Test
+    void testSubmitLeadGenerations() {
+        when(config.compositeApiEndPoint()).thenReturn("composite-endpoint");
+        setUpHttpResponse("[{\"id\":\"lead-id\",\"success\":true,\"errors\":[]},"
+                + "{\"success\":false,\"errors\":[{\"statusCode\":\"REQUIRED_FIELD_MISSING\",\"message\":\"Required fields are missing\",\"fields\":[\"LastName\"]}]}]",
+                HttpStatus.SC_OK);
+        List<FormSubmissionResponse> formSubmissionResponses = leadGenerationServiceImpl.submitLeadGenerations(
+                Arrays.asList("{\"LastName\":\"Last\"}", "{}"), mockedAccessToken, RequestDeadline.none());
+        assertEquals(2, formSubmissionResponses.size());
+        assertTrue(formSubmissionResponses.get(0).isSuccess());
+        assertEquals("lead-id", formSubmissionResponses.get(0).getId());
+        assertFalse(formSubmissionResponses.get(1).isSuccess());
+        assertEquals(HttpStatus.SC_BAD_REQUEST, formSubmissionResponses.get(1).getStatusCode());
+        assertEquals("REQUIRED_FIELD_MISSING", formSubmissionResponses.get(1).getErrors().get(0).getErrorCode());
+        assertEquals(Collections.singletonList("LastName"), formSubmissionResponses.get(1).getErrors().get(0).getFields());
+    }
+
+    @Test
+    void testSubmitLeadGenerationsBatchRejected() {
+        when(config.compositeApiEndPoint()).thenReturn("composite-endpoint");
+        setUpHttpResponse("[]", HttpStatus.SC_SERVICE_UNAVAILABLE);
+        List<FormSubmissionResponse> formSubmissionResponses = leadGenerationServiceImpl.submitLeadGenerations(
+                Arrays.asList("{}", "{}"), mockedAccessToken, RequestDeadline.none());
+        assertEquals(2, formSubmissionResponses.size());
+        formSubmissionResponses.forEach(formSubmissionResponse -> assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, formSubmissionResponse.getStatusCode()));
+    }
+
     @Test
     void testGetServiceData() throws Exception {
         ServiceWorker serviceWorker = getServiceWorker();
         Object responsestring = leadGenerationServiceImpl.getServiceData(serviceWorker);
-        assertEquals(mockedAccessToken, responsestring);
+        assertEquals(ACCESS_TOKEN, responsestring);
     }
 
     @Test
     void testGetServiceResponse() throws Exception {
-        initializeCache();
         ServiceWorker serviceWorker = getServiceWorker();
         Object responsestring = leadGenerationServiceImpl.getCacheData(serviceWorker);
-        assertEquals(mockedAccessToken, responsestring);
+        assertEquals(ACCESS_TOKEN, responsestring);
+        assertEquals(ACCESS_TOKEN, leadGenerationServiceImpl.getCacheData(new ServiceWorker(config.userName(), ServiceRequestType.AUTH_TOKEN)));
     }
 
     @Test
@@ -202,6 +276,24 @@ class LeadGenerationServiceImplTest {
         );
     }
 
+    @Test
+    void testServiceWorkerWithToken() throws Exception {
+        leadGenerationServiceImpl.getServiceData(getServiceWorker());
+        ServiceWorker serviceWorker = leadGenerationServiceImpl.getServiceWorker(Collections.emptyMap());
+        assertNull(serviceWorker.getServiceRequest());
+        assertNull(serviceWorker.getServiceTask());
+    }
+
+    @Test
+    void testServiceWorkerCoalesced() {
+        ServiceWorker serviceWorker = leadGenerationServiceImpl.getServiceWorker(Collections.emptyMap());
+        ServiceWorker coalescedWorker = leadGenerationServiceImpl.getServiceWorker(Collections.emptyMap());
+        assertEquals(ServiceRequestType.AUTH_TOKEN, serviceWorker.getServiceRequest());
+        assertNull(coalescedWorker.getServiceRequest());
+        serviceWorker.setServiceTask(CompletableFuture.completedFuture(TOKEN_RESPONSE));
+        assertEquals(ACCESS_TOKEN, leadGenerationServiceImpl.getCacheData(coalescedWorker));
+    }
+
     @Test
     void testGetRecordTypeId() throws Exception {
         assertEquals(RECORD_TYPE_ID, leadGenerationServiceImpl.getRecordTypeId());
@@ -219,6 +311,7 @@ class LeadGenerationServiceImplTest {
 
     @AfterEach
     void shouldTearDown() {
+        leadGenerationServiceImpl.deactivate();
         if (closeableHttpClientMockup != null) {
             closeableHttpClientMockup.tearDown();
         }
@@ -1,40 +1,55 @@
 package com.myorg.core.services.impl;
 
 import com.google.common.collect.ImmutableMap;
+import com.myorg.core.beans.ServiceCacheKey;
 import com.myorg.core.beans.ServiceRequestType;
 import com.myorg.core.beans.ServiceWorker;
 import com.myorg.core.cache.CacheRegistry;
 import com.myorg.core.cache.ServiceCache;
 import com.myorg.core.exception.CacheException;
+import com.myorg.core.utils.CacheUtils;
+import com.myorg.core.resilience.CircuitBreaker;
+import com.myorg.core.resilience.CircuitBreakerRegistry;
+import com.myorg.core.resilience.HedgingRegistry;
+import com.myorg.core.resilience.RetryRegistry;
+import com.myorg.core.services.HttpClientProvider;
+import com.myorg.core.services.ServiceExecutor;
 import com.myorg.core.services.ZeroBounceService;
 import com.myorg.core.utils.HttpClientUtils;
 import io.wcm.testing.mock.aem.junit5.AemContextExtension;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.HttpRequestFutureTask;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 
 import static com.myorg.core.constants.GenericConstants.CACHE_ZEROBOUNCE_RESPONSE;
 import static com.myorg.core.constants.GenericConstants.EMAIL;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith({AemContextExtension.class, MockitoExtension.class})
@@ -42,7 +57,7 @@ class ZeroBounceServiceImplTest {
 
     private static String ZB_ENPOINT = "https://api.zerobounce.net/v2/validate";
     private static String ZB_API_KEY = "random_key";
-    private static long ZB_TIMEOUT = 3;
+    private static long ZB_TIMEOUT = 3000;
     private static final boolean ZB_RESPONSE_STATUS = true;
 
     @InjectMocks
@@ -54,6 +69,24 @@ class ZeroBounceServiceImplTest {
     @Mock
     CacheRegistry cacheRegistry;
 
+    @Mock
+    HttpClientProvider httpClientProvider;
+
+    @Mock
+    CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Mock
+    CircuitBreaker circuitBreaker;
+
+    @Mock
+    HedgingRegistry hedgingRegistry;
+
+    @Mock
+    RetryRegistry retryRegistry;
+
+    @Mock
+    ServiceExecutor serviceExecutor;
+
     private static final String VALID_EMAIL = "valid@example.com";
 
     private static final String ZEROBOUNCE_RESPONSE = "{\"address\":\"greylisted@example.com\",\"status\":\"unknown\",\"sub_status\":\"greylisted\",\"free_email\":false,\"did_you_mean\":null,\"account\":null," +
@@ -65,7 +98,10 @@ class ZeroBounceServiceImplTest {
         MockitoAnnotations.initMocks(this);
         lenient().when(config.zerobounceEndpoint()).thenReturn(ZB_ENPOINT);
         lenient().when(config.zerobounceAPIKey()).thenReturn(ZB_API_KEY);
-        lenient().when(config.serviceTimeout()).thenReturn(ZB_TIMEOUT);
+        lenient().when(config.serviceTimeoutMillis()).thenReturn(ZB_TIMEOUT);
+        lenient().when(circuitBreakerRegistry.getCircuitBreaker(ServiceRequestType.ZEROBOUNCE)).thenReturn(circuitBreaker);
+        lenient().when(circuitBreakerRegistry.getFallbackVerdict(ServiceRequestType.ZEROBOUNCE)).thenReturn(true);
+        lenient().when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
     }
 
     private ServiceWorker getServiceWorker() throws InterruptedException, ExecutionException, TimeoutException {
@@ -76,9 +112,7 @@ class ZeroBounceServiceImplTest {
         );
         ServiceWorker serviceWorker = new ServiceWorker(VALID_EMAIL, ServiceRequestType.ZEROBOUNCE, HttpClientUtils.getPayload(config.zerobounceEndpoint(),
                 params, HttpGet.METHOD_NAME));
-        HttpRequestFutureTask<String> mockTask = Mockito.mock(HttpRequestFutureTask.class);
-        lenient().when(mockTask.get(anyLong(), same(TimeUnit.SECONDS))).thenReturn(ZEROBOUNCE_RESPONSE);
-        serviceWorker.setServiceTask(mockTask);
+        serviceWorker.setServiceTask(CompletableFuture.completedFuture(ZEROBOUNCE_RESPONSE));
         return serviceWorker;
     }
 
@@ -86,7 +120,7 @@ class ZeroBounceServiceImplTest {
         ServiceCache serviceCache = mock(ServiceCache.class);
         when(serviceCache.isEnabled()).thenReturn(true);
         when(serviceCache.isInitialized()).thenReturn(true);
-        when(serviceCache.getData(new ServiceWorker(VALID_EMAIL))).thenReturn(true);
+        when(serviceCache.getData(eq(new ServiceCacheKey(VALID_EMAIL, ServiceRequestType.ZEROBOUNCE)), any(ServiceWorker.class))).thenReturn(true);
         when(cacheRegistry.getCache(same(CACHE_ZEROBOUNCE_RESPONSE))).thenReturn(serviceCache);
     }
 
@@ -106,6 +140,14 @@ class ZeroBounceServiceImplTest {
         assertEquals(ZB_RESPONSE_STATUS, responsestring);
     }
 
+    @Test
+    void testGetServiceDataAsync() throws Exception {
+        initializeCache();
+        ServiceWorker serviceWorker = getServiceWorker();
+        CompletableFuture<Boolean> response = zerobounceServiceImpl.getServiceDataAsync(serviceWorker);
+        assertEquals(ZB_RESPONSE_STATUS, response.get());
+    }
+
     @Test
     void testServiceWorker() {
         ServiceWorker serviceWorker = zerobounceServiceImpl.getServiceWorker(Collections.singletonMap(EMAIL, VALID_EMAIL));
@@ -114,4 +156,66 @@ class ZeroBounceServiceImplTest {
                 () -> assertEquals(VALID_EMAIL, serviceWorker.getId())
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void testServiceWorkerCircuitOpen() {
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(false);
+        ServiceWorker serviceWorker = zerobounceServiceImpl.getServiceWorker(Collections.singletonMap(EMAIL, VALID_EMAIL));
+        assertNull(serviceWorker.getServiceRequest());
+        assertNull(serviceWorker.getServiceTask());
+        assertEquals(true, zerobounceServiceImpl.getCacheData(serviceWorker));
+    }
+
+    @Test
+    void testServiceWorkerCoalesced() throws Exception {
+        CompletableFuture<String> inFlightTask = new CompletableFuture<>();
+        when(cacheRegistry.registerInFlight(same(CACHE_ZEROBOUNCE_RESPONSE), eq(new ServiceCacheKey(VALID_EMAIL, ServiceRequestType.ZEROBOUNCE)), ArgumentMatchers.<CompletableFuture<String>>any())).thenReturn(inFlightTask);
+        ServiceWorker serviceWorker = zerobounceServiceImpl.getServiceWorker(Collections.singletonMap(EMAIL, VALID_EMAIL));
+        assertNull(serviceWorker.getServiceRequest());
+        assertNull(serviceWorker.getRequestPayload());
+        assertFalse(serviceWorker.getServiceTask().isDone());
+        inFlightTask.complete(ZEROBOUNCE_RESPONSE);
+        assertEquals(ZEROBOUNCE_RESPONSE, serviceWorker.getServiceTask().get());
+    }
+
+    @Test
+    void testReloadSkippedIfCircuitBreakerOpen() {
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(false);
+        assertNull(zerobounceServiceImpl.reload(VALID_EMAIL));
+        verify(httpClientProvider, never()).getHttpClient();
+    }
+
+    @Test
+    void testCancelledLoadIsNotCached() throws Exception {
+        ServiceCache serviceCache = new ServiceCache(CACHE_ZEROBOUNCE_RESPONSE, 60, 0, 100, 30, Runnable::run);
+        serviceCache.setEnabled(true);
+        serviceCache.setFailureTtl(30);
+        AtomicInteger loadCount = new AtomicInteger();
+        UnaryOperator<Object> verdictLoader = CacheUtils.getVerdictLoader(zerobounceServiceImpl::getServiceData);
+        serviceCache.init(loadContext -> {
+            loadCount.incrementAndGet();
+            return verdictLoader.apply(loadContext);
+        });
+        when(cacheRegistry.getCache(same(CACHE_ZEROBOUNCE_RESPONSE))).thenReturn(serviceCache);
+        ServiceWorker cancelledWorker = getServiceWorker();
+        cancelledWorker.setServiceTask(new CompletableFuture<>());
+        cancelledWorker.cancel();
+        /*Fallback verdict is answered, but not cached as failure*/
+        assertEquals(true, zerobounceServiceImpl.getCacheData(cancelledWorker));
+        assertFalse(serviceCache.isCached(cancelledWorker.getCacheKey()));
+        ServiceWorker serviceWorker = getServiceWorker();
+        assertEquals(ZB_RESPONSE_STATUS, zerobounceServiceImpl.getCacheData(serviceWorker));
+        assertEquals(2, loadCount.get());
+        assertTrue(serviceCache.isCached(serviceWorker.getCacheKey()));
+    }
+
+    @Test
+    void testCancelledLoadAsyncSkipsCache() throws Exception {
+        ServiceWorker cancelledWorker = getServiceWorker();
+        cancelledWorker.setServiceTask(new CompletableFuture<>());
+        cancelledWorker.cancel();
+        assertTrue(zerobounceServiceImpl.getServiceDataAsync(cancelledWorker).isCancelled());
+        verify(serviceExecutor, never()).submit(any());
+        verify(cacheRegistry, never()).getCache(any());
+    }
+}
@@ -2,13 +2,20 @@ package com.myorg.core.servlets;
 
 import com.myorg.core.beans.leadgeneration.FormSubmissionRequest;
 import com.myorg.core.beans.leadgeneration.FormSubmissionResponse;
+import com.myorg.core.beans.RequestDeadline;
+import com.myorg.core.beans.ServiceRequestType;
 import com.myorg.core.beans.ServiceWorker;
 import com.myorg.core.constants.FormConstants;
 import com.myorg.core.constants.GenericConstants;
+import com.myorg.core.outbox.LeadBatcher;
+import com.myorg.core.outbox.LeadOutbox;
 import com.myorg.core.services.GoogleReCaptchaService;
+import com.myorg.core.services.ServiceExecutor;
 import com.myorg.core.services.LeadGenerationService;
 import com.myorg.core.services.ZeroBounceService;
 import io.wcm.testing.mock.aem.junit5.AemContext;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
 import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
@@ -16,15 +23,36 @@ import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -55,33 +83,49 @@ class LeadGenerationServletTest {
     @Mock
     LeadGenerationService leadGenerationService;
 
+    @Mock
+    ServiceExecutor serviceExecutor;
+
+    @Mock
+    LeadOutbox leadOutbox;
+
+    @Mock
+    LeadBatcher leadBatcher;
+
+    @Mock
+    LeadGenerationServlet.Config config;
+
     private final AemContext context = new AemContext();
 
     @BeforeEach
     public void setupMock() {
         req = getRequest();
         res = new MockSlingHttpServletResponse();
+        lenient().when(config.nonBlockingClient()).thenReturn(true);
+        lenient().when(config.requestBudget()).thenReturn(10000L);
+        leadGenerationServlet.activate(config);
     }
 
     @Test
     void testDoPost() throws Exception {
 
         MockSlingHttpServletRequest mockSlingHttpServletRequest = new MockSlingHttpServletRequest(context.bundleContext());
-        ServiceWorker salesforceWorker = new ServiceWorker(SESSION_ID);
+        ServiceWorker salesforceWorker = new ServiceWorker(SESSION_ID, ServiceRequestType.AUTH_TOKEN);
         when(leadGenerationService.getServiceWorker(Collections.emptyMap())).thenReturn(salesforceWorker);
         when(leadGenerationService.getLeadSource()).thenReturn("my website");
         when(leadGenerationService.getCompany()).thenReturn("my company");
+        when(leadGenerationService.getServiceDataAsync(salesforceWorker)).thenReturn(CompletableFuture.completedFuture(SESSION_ID));
 
-        ServiceWorker recaptchaWorker = new ServiceWorker(req.getParameter(FormConstants.CAPTCHA_TOKEN));
+        ServiceWorker recaptchaWorker = new ServiceWorker(req.getParameter(FormConstants.CAPTCHA_TOKEN), ServiceRequestType.RECAPTCHA);
         when(googleReCaptchaService.getServiceWorker(Collections.singletonMap(GenericConstants.RESPONSE, req.getParameter(FormConstants.CAPTCHA_TOKEN)))).thenReturn(recaptchaWorker);
-        when(googleReCaptchaService.getCacheData(any(ServiceWorker.class))).thenReturn(true);
+        when(googleReCaptchaService.getServiceDataAsync(any(ServiceWorker.class))).thenReturn(CompletableFuture.completedFuture(true));
 
-        ServiceWorker zerobounceWorker = new ServiceWorker(req.getParameter(FormConstants.EMAIL));
+        ServiceWorker zerobounceWorker = new ServiceWorker(req.getParameter(FormConstants.EMAIL), ServiceRequestType.ZEROBOUNCE);
         when(zeroBounceService.getServiceWorker(Collections.singletonMap(GenericConstants.EMAIL, req.getParameter(FormConstants.EMAIL)))).thenReturn(zerobounceWorker);
-        when(zeroBounceService.getCacheData(any(ServiceWorker.class))).thenReturn(true);
+        when(zeroBounceService.getServiceDataAsync(any(ServiceWorker.class))).thenReturn(CompletableFuture.completedFuture(true));
 
         FormSubmissionResponse formSubmissionResponse =  new FormSubmissionResponse(true, null, null, Collections.emptyList());
-        when(leadGenerationService.submitLeadGeneration(anyString(), anyString())).thenReturn(formSubmissionResponse);
+        when(leadGenerationService.submitLeadGeneration(anyString(), anyString(), any(RequestDeadline.class))).thenReturn(formSubmissionResponse);
         leadGenerationServlet.doPost(req, res);
         String output = ((MockSlingHttpServletResponse)res).getOutputAsString();
         verify(leadGenerationService).getServiceWorker(Collections.emptyMap());
@@ -93,6 +137,253 @@ class LeadGenerationServletTest {
         assertNotNull(output);
     }
 
+    @Test
+    void testDoPostExecutorSaturated() throws Exception {
+        when(config.nonBlockingClient()).thenReturn(false);
+        ServiceWorker recaptchaWorker = new ServiceWorker(RECAPTCHA_TOKEN, ServiceRequestType.RECAPTCHA, new HttpGet("http://localhost"));
+        when(googleReCaptchaService.getServiceWorker(Collections.singletonMap(GenericConstants.RESPONSE, req.getParameter(FormConstants.CAPTCHA_TOKEN)))).thenReturn(recaptchaWorker);
+        when(zeroBounceService.getServiceWorker(Collections.singletonMap(GenericConstants.EMAIL, req.getParameter(FormConstants.EMAIL)))).thenReturn(new ServiceWorker(req.getParameter(FormConstants.EMAIL), ServiceRequestType.ZEROBOUNCE));
+        when(leadGenerationService.getServiceWorker(Collections.emptyMap())).thenReturn(new ServiceWorker(SESSION_ID, ServiceRequestType.AUTH_TOKEN));
+        doThrow(new RejectedExecutionException()).when(serviceExecutor).execute(recaptchaWorker);
+
+        leadGenerationServlet.doPost(req, res);
+        assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, ((MockSlingHttpServletResponse)res).getStatus());
+        verify(leadGenerationService, never()).submitLeadGeneration(anyString(), anyString(), any(RequestDeadline.class));
+    }
+
+    @Test
+    void testDoPostFailFast() throws Exception {
+        HttpGet recaptchaRequest = new HttpGet("http://localhost");
+        ServiceWorker recaptchaWorker = new ServiceWorker(RECAPTCHA_TOKEN, ServiceRequestType.RECAPTCHA, recaptchaRequest);
+        recaptchaWorker.setServiceTask(new CompletableFuture<>());
+        when(googleReCaptchaService.getServiceWorker(Collections.singletonMap(GenericConstants.RESPONSE, req.getParameter(FormConstants.CAPTCHA_TOKEN)))).thenReturn(recaptchaWorker);
+        when(googleReCaptchaService.getServiceDataAsync(recaptchaWorker)).thenReturn(new CompletableFuture<>());
+
+        ServiceWorker zerobounceWorker = new ServiceWorker(req.getParameter(FormConstants.EMAIL), ServiceRequestType.ZEROBOUNCE);
+        when(zeroBounceService.getServiceWorker(Collections.singletonMap(GenericConstants.EMAIL, req.getParameter(FormConstants.EMAIL)))).thenReturn(zerobounceWorker);
+        when(zeroBounceService.getServiceDataAsync(zerobounceWorker)).thenReturn(CompletableFuture.completedFuture(false));
+
+        ServiceWorker salesforceWorker = new ServiceWorker(SESSION_ID, ServiceRequestType.AUTH_TOKEN);
+        when(leadGenerationService.getServiceWorker(Collections.emptyMap())).thenReturn(salesforceWorker);
+        when(leadGenerationService.getServiceDataAsync(salesforceWorker)).thenReturn(CompletableFuture.completedFuture(SESSION_ID));
+
+        leadGenerationServlet.doPost(req, res);
+        assertEquals(HttpStatus.SC_BAD_REQUEST, ((MockSlingHttpServletResponse)res).getStatus());
+        assertTrue(((MockSlingHttpServletResponse)res).getOutputAsString().contains(GenericConstants.ERROR_CODE_INVALID_EMAIL));
+        assertTrue(recaptchaWorker.getServiceTask().isCancelled());
+        assertTrue(recaptchaRequest.isAborted());
+        verify(leadGenerationService, never()).submitLeadGeneration(anyString(), anyString(), any(RequestDeadline.class));
+    }
+
+    @Test
+    void testDoPostSetsHeadersBeforeBody() throws Exception {
+        SlingHttpServletResponse response = mock(SlingHttpServletResponse.class);
+        StringWriter body = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(body));
+
+        ServiceWorker recaptchaWorker = new ServiceWorker(RECAPTCHA_TOKEN, ServiceRequestType.RECAPTCHA);
+        when(googleReCaptchaService.getServiceWorker(Collections.singletonMap(GenericConstants.RESPONSE, req.getParameter(FormConstants.CAPTCHA_TOKEN)))).thenReturn(recaptchaWorker);
+        when(googleReCaptchaService.getServiceDataAsync(recaptchaWorker)).thenReturn(CompletableFuture.completedFuture(true));
+
+        ServiceWorker zerobounceWorker = new ServiceWorker(req.getParameter(FormConstants.EMAIL), ServiceRequestType.ZEROBOUNCE);
+        when(zeroBounceService.getServiceWorker(Collections.singletonMap(GenericConstants.EMAIL, req.getParameter(FormConstants.EMAIL)))).thenReturn(zerobounceWorker);
+        when(zeroBounceService.getServiceDataAsync(zerobounceWorker)).thenReturn(CompletableFuture.completedFuture(false));
+
+        ServiceWorker salesforceWorker = new ServiceWorker(SESSION_ID, ServiceRequestType.AUTH_TOKEN);
+        when(leadGenerationService.getServiceWorker(Collections.emptyMap())).thenReturn(salesforceWorker);
+        when(leadGenerationService.getServiceDataAsync(salesforceWorker)).thenReturn(CompletableFuture.completedFuture(SESSION_ID));
+
+        leadGenerationServlet.doPost(req, response);
+        InOrder inOrder = inOrder(response);
+        inOrder.verify(response).setStatus(HttpStatus.SC_BAD_REQUEST);
+        inOrder.verify(response).setCharacterEncoding(StandardCharsets.UTF_8.name());
+        inOrder.verify(response).setContentType(GenericConstants.APPLICATION_JSON_CONTENT_TYPE);
+        inOrder.verify(response).getWriter();
+        assertTrue(body.toString().contains(GenericConstants.ERROR_CODE_INVALID_EMAIL));
+    }
+
+    @Test
+    void testDoPostBudgetExceeded() throws Exception {
+        when(config.requestBudget()).thenReturn(50L);
+        HttpGet recaptchaRequest = new HttpGet("http://localhost");
+        ServiceWorker recaptchaWorker = new ServiceWorker(RECAPTCHA_TOKEN, ServiceRequestType.RECAPTCHA, recaptchaRequest);
+        recaptchaWorker.setServiceTask(new CompletableFuture<>());
+        when(googleReCaptchaService.getServiceWorker(Collections.singletonMap(GenericConstants.RESPONSE, req.getParameter(FormConstants.CAPTCHA_TOKEN)))).thenReturn(recaptchaWorker);
+        when(googleReCaptchaService.getServiceDataAsync(recaptchaWorker)).thenReturn(new CompletableFuture<>());
+
+        ServiceWorker zerobounceWorker = new ServiceWorker(req.getParameter(FormConstants.EMAIL), ServiceRequestType.ZEROBOUNCE);
+        when(zeroBounceService.getServiceWorker(Collections.singletonMap(GenericConstants.EMAIL, req.getParameter(FormConstants.EMAIL)))).thenReturn(zerobounceWorker);
+        when(zeroBounceService.getServiceDataAsync(zerobounceWorker)).thenReturn(CompletableFuture.completedFuture(true));
+
+        ServiceWorker salesforceWorker = new ServiceWorker(SESSION_ID, ServiceRequestType.AUTH_TOKEN);
+        when(leadGenerationService.getServiceWorker(Collections.emptyMap())).thenReturn(salesforceWorker);
+        when(leadGenerationService.getServiceDataAsync(salesforceWorker)).thenReturn(CompletableFuture.completedFuture(SESSION_ID));
+
+        leadGenerationServlet.doPost(req, res);
+        assertEquals(HttpStatus.SC_GATEWAY_TIMEOUT, ((MockSlingHttpServletResponse)res).getStatus());
+        assertSame(recaptchaWorker.getDeadline(), zerobounceWorker.getDeadline());
+        assertTrue(recaptchaWorker.getDeadline().isExpired());
+        assertTrue(recaptchaRequest.isAborted());
+        verify(leadGenerationService, never()).submitLeadGeneration(anyString(), anyString(), any(RequestDeadline.class));
+    }
+
+    @Test
+    void testDoPostOutbox() throws Exception {
+        when(leadOutbox.isEnabled()).thenReturn(true);
+        when(leadOutbox.submit(anyString())).thenReturn("submission-id");
+
+        ServiceWorker recaptchaWorker = new ServiceWorker(req.getParameter(FormConstants.CAPTCHA_TOKEN), ServiceRequestType.RECAPTCHA);
+        when(googleReCaptchaService.getServiceWorker(Collections.singletonMap(GenericConstants.RESPONSE, req.getParameter(FormConstants.CAPTCHA_TOKEN)))).thenReturn(recaptchaWorker);
+        when(googleReCaptchaService.getServiceDataAsync(any(ServiceWorker.class))).thenReturn(CompletableFuture.completedFuture(true));
+
+        ServiceWorker zerobounceWorker = new ServiceWorker(req.getParameter(FormConstants.EMAIL), ServiceRequestType.ZEROBOUNCE);
+        when(zeroBounceService.getServiceWorker(Collections.singletonMap(GenericConstants.EMAIL, req.getParameter(FormConstants.EMAIL)))).thenReturn(zerobounceWorker);
+        when(zeroBounceService.getServiceDataAsync(any(ServiceWorker.class))).thenReturn(CompletableFuture.completedFuture(true));
+
+        leadGenerationServlet.doPost(req, res);
+        assertEquals(HttpStatus.SC_ACCEPTED, ((MockSlingHttpServletResponse)res).getStatus());
+        assertTrue(((MockSlingHttpServletResponse)res).getOutputAsString().contains("submission-id"));
+        verify(leadGenerationService, never()).getServiceWorker(Collections.emptyMap());
+        verify(leadGenerationService, never()).submitLeadGeneration(anyString(), anyString(), any(RequestDeadline.class));
+    }
+
+    @Test
+    void testDoPostBatched() throws Exception {
+        when(leadBatcher.isEnabled()).thenReturn(true);
+        FormSubmissionResponse formSubmissionResponse = new FormSubmissionResponse();
+        formSubmissionResponse.setSuccess(true);
+        when(leadBatcher.submit(anyString(), anyString(), any(RequestDeadline.class))).thenReturn(CompletableFuture.completedFuture(formSubmissionResponse));
+
+        ServiceWorker recaptchaWorker = new ServiceWorker(req.getParameter(FormConstants.CAPTCHA_TOKEN), ServiceRequestType.RECAPTCHA);
+        when(googleReCaptchaService.getServiceWorker(Collections.singletonMap(GenericConstants.RESPONSE, req.getParameter(FormConstants.CAPTCHA_TOKEN)))).thenReturn(recaptchaWorker);
+        when(googleReCaptchaService.getServiceDataAsync(any(ServiceWorker.class))).thenReturn(CompletableFuture.completedFuture(true));
+
+        ServiceWorker zerobounceWorker = new ServiceWorker(req.getParameter(FormConstants.EMAIL), ServiceRequestType.ZEROBOUNCE);
+        when(zeroBounceService.getServiceWorker(Collections.singletonMap(GenericConstants.EMAIL, req.getParameter(FormConstants.EMAIL)))).thenReturn(zerobounceWorker);
+        when(zeroBounceService.getServiceDataAsync(any(ServiceWorker.class))).thenReturn(CompletableFuture.completedFuture(true));
+
+        ServiceWorker salesforceWorker = new ServiceWorker(SESSION_ID, ServiceRequestType.AUTH_TOKEN);
+        when(leadGenerationService.getServiceWorker(Collections.emptyMap())).thenReturn(salesforceWorker);
+        when(leadGenerationService.getServiceDataAsync(salesforceWorker)).thenReturn(CompletableFuture.completedFuture(SESSION_ID));
+
+        leadGenerationServlet.doPost(req, res);
+        assertEquals(HttpStatus.SC_OK, ((MockSlingHttpServletResponse)res).getStatus());
+        verify(leadBatcher).submit(anyString(), anyString(), any(RequestDeadline.class));
+        verify(leadGenerationService, never()).submitLeadGeneration(anyString(), anyString(), any(RequestDeadline.class));
+    }
+
+    @Test
+    void testDoPostAsyncCompletes() throws Exception {
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        SlingHttpServletRequest asyncRequest = getAsyncRequest(asyncContext);
+        getAsyncServiceWorker(CompletableFuture.completedFuture(true));
+        FormSubmissionResponse formSubmissionResponse = new FormSubmissionResponse();
+        formSubmissionResponse.setSuccess(true);
+        when(leadGenerationService.submitLeadGeneration(anyString(), anyString(), any(RequestDeadline.class))).thenReturn(formSubmissionResponse);
+        when(serviceExecutor.submit(any())).thenAnswer(invocation -> CompletableFuture.completedFuture(((Supplier<?>) invocation.getArgument(0)).get()));
+
+        leadGenerationServlet.doPost(asyncRequest, res);
+        verify(asyncContext).setTimeout(longThat(timeout -> timeout > 0 && timeout <= 10000L));
+        verify(asyncContext).complete();
+        assertEquals(HttpStatus.SC_OK, ((MockSlingHttpServletResponse)res).getStatus());
+        verify(leadGenerationService).submitLeadGeneration(anyString(), anyString(), any(RequestDeadline.class));
+    }
+
+    @Test
+    void testDoPostAsyncTimeout() throws Exception {
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        SlingHttpServletRequest asyncRequest = getAsyncRequest(asyncContext);
+        CompletableFuture<Boolean> recaptchaData = new CompletableFuture<>();
+        ServiceWorker recaptchaWorker = getAsyncServiceWorker(recaptchaData);
+
+        leadGenerationServlet.doPost(asyncRequest, res);
+        verify(asyncContext, never()).complete();
+        getAsyncListener(asyncContext).onTimeout(new AsyncEvent(asyncContext));
+        assertEquals(HttpStatus.SC_GATEWAY_TIMEOUT, ((MockSlingHttpServletResponse)res).getStatus());
+        assertTrue(recaptchaWorker.getServiceTask().isCancelled());
+        assertTrue(recaptchaWorker.getRequestPayload().isAborted());
+
+        /*Validation completing after the timeout neither submits the lead nor writes another response*/
+        recaptchaData.complete(true);
+        verify(asyncContext).complete();
+        verify(serviceExecutor, never()).submit(any());
+        verify(leadGenerationService, never()).submitLeadGeneration(anyString(), anyString(), any(RequestDeadline.class));
+    }
+
+    @Test
+    void testDoPostAsyncTimeoutCancelsSubmission() throws Exception {
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        SlingHttpServletRequest asyncRequest = getAsyncRequest(asyncContext);
+        getAsyncServiceWorker(CompletableFuture.completedFuture(true));
+        CompletableFuture<FormSubmissionResponse> submission = new CompletableFuture<>();
+        when(serviceExecutor.<FormSubmissionResponse>submit(any())).thenReturn(submission);
+
+        leadGenerationServlet.doPost(asyncRequest, res);
+        getAsyncListener(asyncContext).onTimeout(new AsyncEvent(asyncContext));
+        assertEquals(HttpStatus.SC_GATEWAY_TIMEOUT, ((MockSlingHttpServletResponse)res).getStatus());
+        assertTrue(submission.isCancelled());
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    void testDoPostAsyncError() throws Exception {
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        SlingHttpServletRequest asyncRequest = getAsyncRequest(asyncContext);
+        CompletableFuture<Boolean> recaptchaData = new CompletableFuture<>();
+        ServiceWorker recaptchaWorker = getAsyncServiceWorker(recaptchaData);
+
+        leadGenerationServlet.doPost(asyncRequest, res);
+        getAsyncListener(asyncContext).onError(new AsyncEvent(asyncContext, new IOException("connection reset")));
+        assertEquals(HttpStatus.SC_INTERNAL_SERVER_ERROR, ((MockSlingHttpServletResponse)res).getStatus());
+        assertTrue(recaptchaWorker.getServiceTask().isCancelled());
+
+        recaptchaData.complete(true);
+        verify(asyncContext).complete();
+        verify(serviceExecutor, never()).submit(any());
+    }
+
+    /**
+     * @param asyncContext  Async context started by returned request, writes to the response of this test
+     * @return  Request with parameters of this test which supports async processing
+     */
+    private SlingHttpServletRequest getAsyncRequest(AsyncContext asyncContext) {
+        when(config.asyncProcessing()).thenReturn(true);
+        when(config.asyncTimeout()).thenReturn(15000L);
+        SlingHttpServletRequest asyncRequest = mock(SlingHttpServletRequest.class);
+        lenient().when(asyncRequest.getParameter(anyString())).thenAnswer(invocation -> req.getParameter(invocation.getArgument(0)));
+        when(asyncRequest.isAsyncSupported()).thenReturn(true);
+        when(asyncRequest.startAsync()).thenReturn(asyncContext);
+        lenient().when(asyncContext.getResponse()).thenReturn(res);
+        return asyncRequest;
+    }
+
+    /**
+     * Stubs service workers of an async request, recaptcha request is in flight until supplied recaptcha data completes
+     * @param recaptchaData Future completed with recaptcha verdict
+     * @return  Recaptcha service worker
+     */
+    private ServiceWorker getAsyncServiceWorker(CompletableFuture<Boolean> recaptchaData) {
+        ServiceWorker recaptchaWorker = new ServiceWorker(RECAPTCHA_TOKEN, ServiceRequestType.RECAPTCHA, new HttpGet("http://localhost"));
+        recaptchaWorker.setServiceTask(new CompletableFuture<>());
+        when(googleReCaptchaService.getServiceWorker(Collections.singletonMap(GenericConstants.RESPONSE, req.getParameter(FormConstants.CAPTCHA_TOKEN)))).thenReturn(recaptchaWorker);
+        when(googleReCaptchaService.getServiceDataAsync(recaptchaWorker)).thenReturn(recaptchaData);
+
+        ServiceWorker zerobounceWorker = new ServiceWorker(req.getParameter(FormConstants.EMAIL), ServiceRequestType.ZEROBOUNCE);
+        when(zeroBounceService.getServiceWorker(Collections.singletonMap(GenericConstants.EMAIL, req.getParameter(FormConstants.EMAIL)))).thenReturn(zerobounceWorker);
+        when(zeroBounceService.getServiceDataAsync(zerobounceWorker)).thenReturn(CompletableFuture.completedFuture(true));
+
+        ServiceWorker salesforceWorker = new ServiceWorker(SESSION_ID, ServiceRequestType.AUTH_TOKEN);
+        when(leadGenerationService.getServiceWorker(Collections.emptyMap())).thenReturn(salesforceWorker);
+        when(leadGenerationService.getServiceDataAsync(salesforceWorker)).thenReturn(CompletableFuture.completedFuture(SESSION_ID));
+        return recaptchaWorker;
+    }
+
+    private static AsyncListener getAsyncListener(AsyncContext asyncContext) {
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+        return listener.getValue();
+    }
+
     private SlingHttpServletRequest getRequest() {
         MockSlingHttpServletRequest mockSlingHttpServletRequest = new MockSlingHttpServletRequest(context.bundleContext());
         mockSlingHttpServletRequest.addRequestParameter(FormConstants.CAPTCHA_TOKEN, RECAPTCHA_TOKEN);
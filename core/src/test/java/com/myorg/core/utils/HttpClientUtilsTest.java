@@ -0,0 +1,316 @@
+package com.myorg.core.utils;
+
+import com.myorg.core.beans.RequestDeadline;
+import com.myorg.core.beans.ServiceRequestType;
+import com.myorg.core.beans.ServiceWorker;
+import com.myorg.core.resilience.HedgingRegistry;
+import com.myorg.core.resilience.RequestHedger;
+import com.myorg.core.resilience.RetryBudget;
+import com.myorg.core.resilience.RetryPolicy;
+import com.myorg.core.resilience.RetryRegistry;
+import com.myorg.core.services.HttpClientProvider;
+import com.myorg.core.services.ServiceExecutor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HttpClientUtilsTest {
+
+    /*Leaves the request of the non blocking client outstanding*/
+    private static final Object PENDING = new Object();
+
+    @Mock
+    RetryRegistry.Config retryConfig;
+
+    @Mock
+    HedgingRegistry.Config hedgingConfig;
+
+    @Mock
+    CloseableHttpClient httpClient;
+
+    @Mock
+    CloseableHttpAsyncClient httpAsyncClient;
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    /*Futures returned by the non blocking client in the order the requests were sent*/
+    List<Future<HttpResponse>> responseFutures = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setupMock() {
+        lenient().when(retryConfig.initialBackoff()).thenReturn(1L);
+        lenient().when(retryConfig.maxBackoff()).thenReturn(1L);
+        lenient().when(retryConfig.maxRetryAfter()).thenReturn(5000L);
+        lenient().when(hedgingConfig.hedgeDelayPercentile()).thenReturn(90);
+        lenient().when(hedgingConfig.minimumHedgeDelay()).thenReturn(1L);
+        lenient().when(hedgingConfig.latencySamples()).thenReturn(100);
+        lenient().when(hedgingConfig.hedgeBudget()).thenReturn(100);
+    }
+
+    private RetryPolicy getRetryPolicy(RetryBudget retryBudget) {
+        return new RetryPolicy(ServiceRequestType.ZEROBOUNCE, 3, retryConfig, new HashSet<>(Arrays.asList(429, 502, 503, 504)),
+                retryBudget, scheduler);
+    }
+
+    private RequestHedger getRequestHedger() {
+        RequestHedger requestHedger = new RequestHedger(ServiceRequestType.ZEROBOUNCE, hedgingConfig, scheduler);
+        for (int i = 0; i < 32; i++) {
+            requestHedger.recordLatency(1);
+        }
+        return requestHedger;
+    }
+
+    private static CloseableHttpResponse getResponse(int statusCode) {
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        lenient().when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode, null));
+        return response;
+    }
+
+    private static HttpResponse getAsyncResponse(int statusCode) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, null);
+        response.setEntity(new StringEntity("response " + statusCode, "UTF-8"));
+        return response;
+    }
+
+    private static ServiceWorker getServiceWorker() {
+        return new ServiceWorker("test@example.com", ServiceRequestType.ZEROBOUNCE, new HttpGet("http://localhost"));
+    }
+
+    /**
+     * Answers requests of the non blocking client with supplied outcomes in turn, a response completes the
+     * request, an exception fails it and {@link #PENDING} leaves it outstanding
+     */
+    @SuppressWarnings("unchecked")
+    private void answerAsync(Object... outcomes) {
+        Deque<Object> pendingOutcomes = new ArrayDeque<>(Arrays.asList(outcomes));
+        when(httpAsyncClient.execute(any(HttpUriRequest.class), any(FutureCallback.class))).thenAnswer(invocation -> {
+            FutureCallback<HttpResponse> callback = invocation.getArgument(1);
+            Future<HttpResponse> responseFuture = mock(Future.class);
+            responseFutures.add(responseFuture);
+            Object outcome;
+            synchronized (pendingOutcomes) {
+                outcome = pendingOutcomes.isEmpty() ? PENDING : pendingOutcomes.poll();
+            }
+            if (outcome instanceof HttpResponse) {
+                callback.completed((HttpResponse) outcome);
+            } else if (outcome instanceof Exception) {
+                callback.failed((Exception) outcome);
+            }
+            return responseFuture;
+        });
+    }
+
+    @Test
+    void testExecuteWithRetryOnServerError() throws IOException {
+        CloseableHttpResponse failedResponse = getResponse(503);
+        CloseableHttpResponse response = getResponse(200);
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(failedResponse, response);
+        assertSame(response, HttpClientUtils.executeWithRetry(httpClient, new HttpGet("http://localhost"),
+                getRetryPolicy(new RetryBudget(0, 10)), RequestDeadline.none()));
+        verify(httpClient, times(2)).execute(any(HttpUriRequest.class));
+        verify(failedResponse).close();
+    }
+
+    @Test
+    void testExecuteWithRetryOnIOException() throws IOException {
+        CloseableHttpResponse response = getResponse(200);
+        when(httpClient.execute(any(HttpUriRequest.class))).thenThrow(new SocketTimeoutException()).thenReturn(response);
+        assertSame(response, HttpClientUtils.executeWithRetry(httpClient, new HttpGet("http://localhost"),
+                getRetryPolicy(new RetryBudget(0, 10)), RequestDeadline.none()));
+        verify(httpClient, times(2)).execute(any(HttpUriRequest.class));
+    }
+
+    @Test
+    void testExecuteWithRetryBudgetExhausted() throws IOException {
+        RetryPolicy retryPolicy = getRetryPolicy(new RetryBudget(0, 0));
+        CloseableHttpResponse failedResponse = getResponse(503);
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(failedResponse).thenThrow(new SocketTimeoutException());
+        assertSame(failedResponse, HttpClientUtils.executeWithRetry(httpClient, new HttpGet("http://localhost"),
+                retryPolicy, RequestDeadline.none()));
+        assertThrows(SocketTimeoutException.class, () -> HttpClientUtils.executeWithRetry(httpClient,
+                new HttpGet("http://localhost"), retryPolicy, RequestDeadline.none()));
+        verify(httpClient, times(2)).execute(any(HttpUriRequest.class));
+    }
+
+    @Test
+    void testExecuteWithRetryWithinDeadline() throws IOException {
+        when(httpClient.execute(any(HttpUriRequest.class))).thenThrow(new SocketTimeoutException());
+        HttpGet request = new HttpGet("http://localhost");
+        request.setConfig(RequestConfig.custom().setSocketTimeout(30000).build());
+        assertThrows(SocketTimeoutException.class, () -> HttpClientUtils.executeWithRetry(httpClient, request,
+                getRetryPolicy(new RetryBudget(0, 10)), RequestDeadline.after(0)));
+        ArgumentCaptor<HttpUriRequest> sentRequest = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient, times(1)).execute(sentRequest.capture());
+        /*Timeouts of the attempt are capped by the exhausted deadline instead of becoming infinite*/
+        assertEquals(1, ((HttpRequestBase) sentRequest.getValue()).getConfig().getSocketTimeout());
+    }
+
+    @Test
+    void testExecuteAsyncRetryOnServerError() throws Exception {
+        answerAsync(getAsyncResponse(503), getAsyncResponse(200));
+        CompletableFuture<String> serviceTask = HttpClientUtils.executeAsync(httpAsyncClient, getServiceWorker(),
+                RequestConfig.DEFAULT, null, getRetryPolicy(new RetryBudget(0, 10)));
+        assertEquals("response 200", serviceTask.get(5, TimeUnit.SECONDS));
+        verify(httpAsyncClient, times(2)).execute(any(HttpUriRequest.class), any(FutureCallback.class));
+    }
+
+    @Test
+    void testExecuteAsyncRetryOnIOException() throws Exception {
+        answerAsync(new SocketTimeoutException(), getAsyncResponse(200));
+        CompletableFuture<String> serviceTask = HttpClientUtils.executeAsync(httpAsyncClient, getServiceWorker(),
+                RequestConfig.DEFAULT, null, getRetryPolicy(new RetryBudget(0, 10)));
+        assertEquals("response 200", serviceTask.get(5, TimeUnit.SECONDS));
+        verify(httpAsyncClient, times(2)).execute(any(HttpUriRequest.class), any(FutureCallback.class));
+    }
+
+    @Test
+    void testExecuteAsyncRetryBudgetExhausted() {
+        answerAsync(new SocketTimeoutException(), getAsyncResponse(200));
+        CompletableFuture<String> serviceTask = HttpClientUtils.executeAsync(httpAsyncClient, getServiceWorker(),
+                RequestConfig.DEFAULT, null, getRetryPolicy(new RetryBudget(0, 0)));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> serviceTask.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof SocketTimeoutException);
+        verify(httpAsyncClient, times(1)).execute(any(HttpUriRequest.class), any(FutureCallback.class));
+    }
+
+    @Test
+    void testExecuteAsyncRetryWithinDeadline() {
+        answerAsync(getAsyncResponse(503), getAsyncResponse(200));
+        ServiceWorker serviceWorker = getServiceWorker();
+        serviceWorker.setDeadline(RequestDeadline.after(0));
+        CompletableFuture<String> serviceTask = HttpClientUtils.executeAsync(httpAsyncClient, serviceWorker,
+                RequestConfig.DEFAULT, null, getRetryPolicy(new RetryBudget(0, 10)));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> serviceTask.get(5, TimeUnit.SECONDS));
+        assertEquals(503, ((HttpResponseException) e.getCause()).getStatusCode());
+        verify(httpAsyncClient, times(1)).execute(any(HttpUriRequest.class), any(FutureCallback.class));
+    }
+
+    @Test
+    void testExecuteAsyncRetryOfHedge() throws Exception {
+        /*Original request stays outstanding, its hedge fails and is retried*/
+        answerAsync(PENDING, getAsyncResponse(503), getAsyncResponse(200));
+        CompletableFuture<String> serviceTask = HttpClientUtils.executeAsync(httpAsyncClient, getServiceWorker(),
+                RequestConfig.DEFAULT, getRequestHedger(), getRetryPolicy(new RetryBudget(0, 10)));
+        assertEquals("response 200", serviceTask.get(5, TimeUnit.SECONDS));
+        verify(httpAsyncClient, times(3)).execute(any(HttpUriRequest.class), any(FutureCallback.class));
+        verify(responseFutures.get(0)).cancel(true);
+    }
+
+    @Test
+    void testExecuteAsyncHedgeFirstResponseWins() throws Exception {
+        /*Original request stays outstanding, its hedge responds first*/
+        answerAsync(PENDING, getAsyncResponse(200));
+        ServiceWorker serviceWorker = getServiceWorker();
+        CompletableFuture<String> serviceTask = HttpClientUtils.executeAsync(httpAsyncClient, serviceWorker,
+                RequestConfig.DEFAULT, getRequestHedger(), null);
+        assertEquals("response 200", serviceTask.get(5, TimeUnit.SECONDS));
+        ArgumentCaptor<HttpUriRequest> sentRequests = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpAsyncClient, times(2)).execute(sentRequests.capture(), any(FutureCallback.class));
+        assertSame(serviceWorker.getRequestPayload(), sentRequests.getAllValues().get(0));
+        assertEquals(serviceWorker.getRequestPayload().getURI(), sentRequests.getAllValues().get(1).getURI());
+    }
+
+    @Test
+    void testExecuteAsyncHedgeAbortsSlowerRequest() throws Exception {
+        answerAsync(PENDING, getAsyncResponse(200));
+        ServiceWorker serviceWorker = getServiceWorker();
+        CompletableFuture<String> serviceTask = HttpClientUtils.executeAsync(httpAsyncClient, serviceWorker,
+                RequestConfig.DEFAULT, getRequestHedger(), null);
+        serviceTask.get(5, TimeUnit.SECONDS);
+        /*Connection of the original request is released*/
+        verify(responseFutures.get(0)).cancel(true);
+        assertTrue(((HttpRequestBase) serviceWorker.getRequestPayload()).isAborted());
+    }
+
+    @Test
+    void testExecuteAsyncNoHedgeOfUnsafeRequest() {
+        answerAsync(PENDING);
+        ServiceWorker serviceWorker = new ServiceWorker("test@example.com", ServiceRequestType.ZEROBOUNCE, new HttpPost("http://localhost"));
+        CompletableFuture<String> serviceTask = HttpClientUtils.executeAsync(httpAsyncClient, serviceWorker,
+                RequestConfig.DEFAULT, getRequestHedger(), null);
+        /*Outstanding for well beyond the hedge delay, a non idempotent request is still sent once only*/
+        verify(httpAsyncClient, after(200).times(1)).execute(any(HttpUriRequest.class), any(FutureCallback.class));
+        assertFalse(serviceTask.isDone());
+    }
+
+    @Test
+    void testGetServiceDataAsyncReadsDataOnServiceExecutor() throws Exception {
+        ServiceExecutor serviceExecutor = mock(ServiceExecutor.class);
+        when(serviceExecutor.submit(any())).thenAnswer(invocation -> CompletableFuture.supplyAsync(invocation.getArgument(0), scheduler));
+        Thread workerThread = scheduler.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+        ServiceWorker serviceWorker = getServiceWorker();
+        CompletableFuture<String> serviceTask = new CompletableFuture<>();
+        serviceWorker.setServiceTask(serviceTask);
+        CompletableFuture<Thread> serviceData = HttpClientUtils.getServiceDataAsync(mock(HttpClientProvider.class), serviceExecutor,
+                serviceWorker, 1000, completedWorker -> Thread.currentThread());
+        /*Completed here like on the I/O dispatcher thread, data is still read on the worker pool*/
+        serviceTask.complete("response");
+        assertSame(workerThread, serviceData.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testGetServiceDataAsyncExecutorSaturated() {
+        ServiceExecutor serviceExecutor = mock(ServiceExecutor.class);
+        when(serviceExecutor.submit(any())).thenThrow(new RejectedExecutionException());
+        ServiceWorker serviceWorker = getServiceWorker();
+        serviceWorker.setServiceTask(CompletableFuture.completedFuture("response"));
+        CompletableFuture<String> serviceData = HttpClientUtils.getServiceDataAsync(mock(HttpClientProvider.class), serviceExecutor,
+                serviceWorker, 1000, completedWorker -> "data");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> serviceData.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    @AfterEach
+    void shouldTearDown() {
+        scheduler.shutdownNow();
+    }
+}
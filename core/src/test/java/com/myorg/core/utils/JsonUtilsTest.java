@@ -0,0 +1,97 @@
+package com.myorg.core.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.myorg.core.beans.leadgeneration.FormSubmissionRequest;
+import com.myorg.core.beans.leadgeneration.FormSubmissionResponse;
+import com.myorg.core.constants.FormConstants;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JsonUtilsTest {
+
+    @Test
+    void testExtractFields() {
+        String json = "{\"address\":\"first.last@example.com\",\"status\":\"valid\",\"domain_age_days\":9692,"
+                + "\"mx\":{\"found\":true,\"records\":[\"a\",\"b\"]},\"free_email\":false,\"sub_status\":\"\",\"account\":null}";
+        assertArrayEquals(new String[] {"valid", "", "false", "9692", null, null},
+                JsonUtils.extractFields(json, "status", "sub_status", "free_email", "domain_age_days", "mx", "account"));
+    }
+
+    @Test
+    void testExtractFieldsStopsOnceAllFieldsAreRead() {
+        /*Remainder of the json is malformed, it must not be parsed*/
+        assertArrayEquals(new String[] {"true"}, JsonUtils.extractFields("{\"success\":true,\"challenge_ts\":", "success"));
+    }
+
+    @Test
+    void testExtractFieldsOfEmptyJson() {
+        assertArrayEquals(new String[2], JsonUtils.extractFields((String) null, "status", "sub_status"));
+        assertArrayEquals(new String[1], JsonUtils.extractFields("{}", "success"));
+    }
+
+    @Test
+    void testExtractFieldsOfMalformedJson() {
+        assertThrows(JsonParseException.class, () -> JsonUtils.extractFields("[]", "success"));
+        assertThrows(JsonParseException.class, () -> JsonUtils.extractFields("{\"success\"", "success"));
+    }
+
+    @Test
+    void testFormSubmissionRequestMatchesReflectiveJson() {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getParameter(FormConstants.FIRST_NAME)).thenReturn("First");
+        when(request.getParameter(FormConstants.LAST_NAME)).thenReturn("Last");
+        when(request.getParameter(FormConstants.EMAIL)).thenReturn("first.last@example.com");
+        when(request.getParameter(FormConstants.DESCRIPTION)).thenReturn("Comments \"quoted\"");
+        FormSubmissionRequest formSubmissionRequest = new FormSubmissionRequest(request, "my company", "record-type", "my website");
+        assertEquals(new Gson().toJson(formSubmissionRequest), formSubmissionRequest.serialize());
+    }
+
+    @Test
+    void testReadFormSubmissionRequest() {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getParameter(FormConstants.FIRST_NAME)).thenReturn("First");
+        when(request.getParameter(FormConstants.LAST_NAME)).thenReturn("Last");
+        when(request.getParameter(FormConstants.EMAIL)).thenReturn("first.last@example.com");
+        String json = new FormSubmissionRequest(request, "my company", "record-type", "my website").serialize();
+        FormSubmissionRequest formSubmissionRequest = JsonUtils.GSON.fromJson(json, FormSubmissionRequest.class);
+        assertEquals("first.last@example.com", formSubmissionRequest.getEmail());
+        assertEquals("First Last my company", formSubmissionRequest.getCompany());
+        assertEquals(json, formSubmissionRequest.serialize());
+        assertEquals("Last", JsonUtils.GSON.fromJson("{\"LastName\":\"Last\",\"Phone\":null,\"unknown\":[1]}",
+                FormSubmissionRequest.class).getLastName());
+    }
+
+    @Test
+    void testFormSubmissionResponseMatchesReflectiveJson() {
+        FormSubmissionResponse formSubmissionResponse = new FormSubmissionResponse(false, "INVALID_EMAIL", "Email is invalid",
+                Arrays.asList("email", null));
+        assertEquals(new Gson().toJson(formSubmissionResponse), formSubmissionResponse.serialize());
+        FormSubmissionResponse acceptedResponse = new FormSubmissionResponse();
+        acceptedResponse.setSuccess(true);
+        acceptedResponse.setSubmissionId("submission-id");
+        StringWriter writer = new StringWriter();
+        acceptedResponse.writeTo(writer);
+        assertEquals(new Gson().toJson(acceptedResponse), writer.toString());
+    }
+
+    @Test
+    void testReadFormSubmissionResponse() {
+        FormSubmissionResponse formSubmissionResponse = JsonUtils.GSON.fromJson(
+                "{\"success\":false,\"errors\":[{\"message\":\"Email is invalid\",\"errorCode\":\"INVALID_EMAIL\",\"fields\":[\"email\"]}],\"unknown\":{}}",
+                FormSubmissionResponse.class);
+        assertEquals(false, formSubmissionResponse.isSuccess());
+        assertEquals("INVALID_EMAIL", formSubmissionResponse.getErrors().get(0).getErrorCode());
+        assertEquals(Collections.singletonList("email"), formSubmissionResponse.getErrors().get(0).getFields());
+    }
+}